@@ -1,16 +1,37 @@
 package com.example.charity_collection.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class AppConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public WebClient nbpWebClient(WebClient.Builder builder,
+                                  @Value("${charity.rates.nbp.connect-timeout:2s}") Duration connectTimeout,
+                                  @Value("${charity.rates.nbp.read-timeout:5s}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout)
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler exchangeRateScheduler() {
+        return Schedulers.newSingle("exchange-rate-update");
     }
 
 }
@@ -1,22 +1,51 @@
 package com.example.charity_collection.controller;
 
 import com.example.charity_collection.dto.*;
+import com.example.charity_collection.service.CollectionBoxBatchService;
+import com.example.charity_collection.service.CollectionBoxCache;
+import com.example.charity_collection.service.CollectionBoxExportService;
 import com.example.charity_collection.service.CollectionBoxService;
+import com.example.charity_collection.service.DonationBatchService;
+import com.example.charity_collection.service.DonationStreamService;
+import com.example.charity_collection.service.IdempotencyStore;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/api/collection-boxes")
 public class CollectionBoxController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final CollectionBoxService collectionBoxService;
+    private final DonationBatchService donationBatchService;
+    private final DonationStreamService donationStreamService;
+    private final IdempotencyStore idempotencyStore;
+    private final CollectionBoxCache collectionBoxCache;
+    private final CollectionBoxExportService collectionBoxExportService;
+    private final CollectionBoxBatchService collectionBoxBatchService;
 
-    public CollectionBoxController(CollectionBoxService collectionBoxService) {
+    public CollectionBoxController(CollectionBoxService collectionBoxService,
+                                   DonationBatchService donationBatchService,
+                                   DonationStreamService donationStreamService,
+                                   IdempotencyStore idempotencyStore,
+                                   CollectionBoxCache collectionBoxCache,
+                                   CollectionBoxExportService collectionBoxExportService,
+                                   CollectionBoxBatchService collectionBoxBatchService) {
         this.collectionBoxService = collectionBoxService;
+        this.donationBatchService = donationBatchService;
+        this.donationStreamService = donationStreamService;
+        this.idempotencyStore = idempotencyStore;
+        this.collectionBoxCache = collectionBoxCache;
+        this.collectionBoxExportService = collectionBoxExportService;
+        this.collectionBoxBatchService = collectionBoxBatchService;
     }
 
     @PostMapping
@@ -25,10 +54,34 @@ public class CollectionBoxController {
         return ResponseEntity.status(HttpStatus.CREATED).body(registeredBox);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkRegisterCollectionBoxesResponseDto> registerCollectionBoxes(@Valid @RequestBody BulkRegisterCollectionBoxesDto bulkRegisterCollectionBoxesDto) {
+        BulkRegisterCollectionBoxesResponseDto response = collectionBoxBatchService.registerCollectionBoxes(bulkRegisterCollectionBoxesDto.getIdentifiers());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
-    public ResponseEntity<List<CollectionBoxInfoDto>> listAllCollectionBoxes() {
-        List<CollectionBoxInfoDto> collectionBoxes = collectionBoxService.listAllCollectionBoxes();
-        return ResponseEntity.ok(collectionBoxes);
+    public ResponseEntity<CollectionBoxPageDto> listCollectionBoxes(@RequestParam(required = false) Long after,
+                                                                    @RequestParam(required = false) Integer limit,
+                                                                    @RequestParam(required = false) Boolean assigned,
+                                                                    @RequestParam(required = false) Boolean empty,
+                                                                    @RequestParam(required = false) Long eventId) {
+        CollectionBoxPageDto page = collectionBoxService.listCollectionBoxes(after, limit, assigned, empty, eventId);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/export")
+    public void exportCollectionBoxes(@RequestParam(defaultValue = "ndjson") String format,
+                                      HttpServletResponse response) throws IOException {
+        CollectionBoxExportService.Format exportFormat = CollectionBoxExportService.Format.of(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        collectionBoxExportService.exportCollectionBoxes(exportFormat, response.getOutputStream());
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<CollectionBoxCacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(collectionBoxCache.stats());
     }
 
     @DeleteMapping("/delete/{identifier}")
@@ -43,15 +96,43 @@ public class CollectionBoxController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/assign/bulk")
+    public ResponseEntity<BulkAssignCollectionBoxesResponseDto> assignCollectionBoxesToEvent(@Valid @RequestBody BulkAssignCollectionBoxesDto bulkAssignCollectionBoxesDto) {
+        BulkAssignCollectionBoxesResponseDto response = collectionBoxBatchService.assignCollectionBoxesToEvent(bulkAssignCollectionBoxesDto);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/add")
-    public ResponseEntity<MessageResponseDto> addMoneyToCollectionBox(@Valid @RequestBody AddMoneyDto addMoneyDto) {
-        MessageResponseDto response = collectionBoxService.addMoneyToCollectionBox(addMoneyDto);
+    public ResponseEntity<MessageResponseDto> addMoneyToCollectionBox(@Valid @RequestBody AddMoneyDto addMoneyDto,
+                                                                      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        MessageResponseDto response = idempotencyStore.execute("add", idempotencyKey, fingerprint(addMoneyDto),
+                () -> collectionBoxService.addMoneyToCollectionBox(addMoneyDto));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/add/bulk")
+    public ResponseEntity<BulkAddMoneyResponseDto> addMoneyToCollectionBoxes(@Valid @RequestBody BulkAddMoneyDto bulkAddMoneyDto) {
+        BulkAddMoneyResponseDto response = donationBatchService.addMoneyToCollectionBoxes(bulkAddMoneyDto.getDonations());
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/add/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void addMoneyToCollectionBoxesFromStream(InputStream inputStream, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        donationStreamService.addMoneyFromStream(inputStream, response.getOutputStream());
+    }
+
     @PostMapping("/empty/{identifier}")
-    public ResponseEntity<MessageResponseDto> emptyCollectionBox(@PathVariable String identifier) {
-        MessageResponseDto response = collectionBoxService.emptyCollectionBox(identifier);
+    public ResponseEntity<MessageResponseDto> emptyCollectionBox(@PathVariable String identifier,
+                                                                 @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        MessageResponseDto response = idempotencyStore.execute("empty", idempotencyKey, identifier,
+                () -> collectionBoxService.emptyCollectionBox(identifier));
         return ResponseEntity.ok(response);
     }
+
+    // Amounts that differ only in trailing zeros describe the same donation
+    private static String fingerprint(AddMoneyDto addMoneyDto) {
+        return addMoneyDto.getCollectionBoxIdentifier() + '\n' + addMoneyDto.getCurrencyCode() + '\n'
+                + addMoneyDto.getAmount().stripTrailingZeros().toPlainString();
+    }
 }
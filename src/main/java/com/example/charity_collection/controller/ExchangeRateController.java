@@ -1,11 +1,14 @@
 package com.example.charity_collection.controller;
 
-import com.example.charity_collection.dto.MessageResponseDto;
+import com.example.charity_collection.dto.ExchangeRateDto;
+import com.example.charity_collection.dto.ExchangeRateUpdateJobDto;
 import com.example.charity_collection.service.ExchangeRateService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/exchange-rates")
@@ -18,8 +21,23 @@ public class ExchangeRateController {
     }
 
     @PostMapping("/update")
-    public ResponseEntity<MessageResponseDto> updateExchangeRates() {
-        exchangeRateService.updateExchangeRates();
-        return ResponseEntity.ok(new MessageResponseDto("Exchange rated updated successfully"));
+    public ResponseEntity<ExchangeRateUpdateJobDto> updateExchangeRates() {
+        ExchangeRateUpdateJobDto job = exchangeRateService.startUpdateJob();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/exchange-rates/update/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/update/{jobId}")
+    public ResponseEntity<ExchangeRateUpdateJobDto> getUpdateJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(exchangeRateService.getUpdateJob(jobId));
+    }
+
+    @GetMapping("/{fromCode}/{toCode}")
+    public ResponseEntity<ExchangeRateDto> getExchangeRate(
+            @PathVariable String fromCode,
+            @PathVariable String toCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(exchangeRateService.getExchangeRate(fromCode, toCode, date != null ? date : LocalDate.now()));
     }
 }
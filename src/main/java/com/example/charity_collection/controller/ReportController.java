@@ -1,6 +1,7 @@
 package com.example.charity_collection.controller;
 
 import com.example.charity_collection.dto.FinancialReportDto;
+import com.example.charity_collection.dto.PendingFundsReportDto;
 import com.example.charity_collection.service.ReportService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,5 +25,10 @@ public class ReportController {
         List<FinancialReportDto> report = reportService.generateFinancialReport();
         return ResponseEntity.ok(report);
     }
-}
 
+    @GetMapping("/pending")
+    public ResponseEntity<List<PendingFundsReportDto>> getPendingFundsReport() {
+        List<PendingFundsReportDto> report = reportService.generatePendingFundsReport();
+        return ResponseEntity.ok(report);
+    }
+}
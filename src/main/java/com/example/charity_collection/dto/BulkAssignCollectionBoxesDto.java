@@ -0,0 +1,27 @@
+package com.example.charity_collection.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAssignCollectionBoxesDto {
+
+    @Size(max = 10000, message = "A single batch can contain at most 10000 identifiers")
+    private List<String> collectionBoxIdentifiers;
+
+    private String fromIdentifier;
+
+    private String toIdentifier;
+
+    @NotNull(message = "Event id is required")
+    private Long fundraisingEventId;
+}
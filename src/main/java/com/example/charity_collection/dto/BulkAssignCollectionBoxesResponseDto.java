@@ -0,0 +1,18 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAssignCollectionBoxesResponseDto {
+    private Long fundraisingEventId;
+    private int assigned;
+    private List<String> rejectedNotEmpty;
+}
@@ -0,0 +1,21 @@
+package com.example.charity_collection.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegisterCollectionBoxesDto {
+
+    @NotEmpty(message = "At least one identifier is required")
+    @Size(max = 100000, message = "A single batch can contain at most 100000 identifiers")
+    private List<String> identifiers;
+}
@@ -0,0 +1,19 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegisterCollectionBoxesResponseDto {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<CollectionBoxRegistrationResultDto> results;
+}
@@ -0,0 +1,20 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CollectionBoxCacheStatsDto {
+    private int size;
+    private int maxEntries;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;
+    private long invalidations;
+}
@@ -0,0 +1,17 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionBoxPageDto {
+    private List<CollectionBoxInfoDto> collectionBoxes;
+    private Long nextCursor;
+}
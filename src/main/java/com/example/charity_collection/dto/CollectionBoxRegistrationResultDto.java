@@ -0,0 +1,18 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionBoxRegistrationResultDto {
+    private int index;
+    private String identifier;
+    private Long id;
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationLineErrorDto {
+    private long line;
+    private String collectionBoxIdentifier;
+    private String message;
+}
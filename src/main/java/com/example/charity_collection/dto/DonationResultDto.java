@@ -0,0 +1,17 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationResultDto {
+    private int index;
+    private String collectionBoxIdentifier;
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationStreamProgressDto {
+    private int chunk;
+    private long firstLine;
+    private long lastLine;
+    private int succeeded;
+    private int failed;
+    private long totalSucceeded;
+    private long totalFailed;
+    private boolean complete;
+    private List<DonationLineErrorDto> errors;
+}
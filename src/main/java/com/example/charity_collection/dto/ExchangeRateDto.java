@@ -0,0 +1,20 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExchangeRateDto {
+    private String fromCurrency;
+    private String toCurrency;
+    private LocalDate date;
+    private BigDecimal rate;
+}
@@ -0,0 +1,23 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExchangeRateUpdateJobDto {
+    private String id;
+    private String status;
+    private String stage;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long durationMillis;
+    private int ratesChanged;
+    private String error;
+}
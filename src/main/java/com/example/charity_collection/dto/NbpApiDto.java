@@ -19,5 +19,6 @@ public class NbpApiDto {
         private String currency;
         private String code;
         private String mid;
+        private String effectiveDate;
     }
 }
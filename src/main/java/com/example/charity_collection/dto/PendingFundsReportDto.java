@@ -0,0 +1,20 @@
+package com.example.charity_collection.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PendingFundsReportDto {
+    private String eventName;
+    private BigDecimal amount;
+    private String currency;
+    private List<String> unconvertedCurrencies;
+}
@@ -0,0 +1,74 @@
+package com.example.charity_collection.model;
+
+import java.util.Arrays;
+
+public final class BoxContents {
+
+    private long[] amounts;
+    private long[] present;
+
+    public BoxContents() {
+        this(Long.SIZE);
+    }
+
+    public BoxContents(int capacity) {
+        this.amounts = new long[Math.max(1, capacity)];
+        this.present = new long[wordIndex(amounts.length - 1) + 1];
+    }
+
+    public void add(int ordinal, long minorUnits) {
+        ensureCapacity(ordinal);
+        amounts[ordinal] = Math.addExact(amounts[ordinal], minorUnits);
+        present[wordIndex(ordinal)] |= 1L << ordinal;
+    }
+
+    public void addAll(BoxContents other) {
+        other.forEach(this::add);
+    }
+
+    public long amount(int ordinal) {
+        return ordinal < amounts.length ? amounts[ordinal] : 0;
+    }
+
+    public boolean contains(int ordinal) {
+        return ordinal < amounts.length && (present[wordIndex(ordinal)] & (1L << ordinal)) != 0;
+    }
+
+    public boolean isEmpty() {
+        for (long word : present) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void forEach(AmountConsumer consumer) {
+        for (int word = 0; word < present.length; word++) {
+            long bits = present[word];
+            while (bits != 0) {
+                int ordinal = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                consumer.accept(ordinal, amounts[ordinal]);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private void ensureCapacity(int ordinal) {
+        if (ordinal < amounts.length) {
+            return;
+        }
+        int capacity = Math.max(ordinal + 1, amounts.length * 2);
+        amounts = Arrays.copyOf(amounts, capacity);
+        present = Arrays.copyOf(present, wordIndex(capacity - 1) + 1);
+    }
+
+    private static int wordIndex(int ordinal) {
+        return ordinal >>> 6;
+    }
+
+    @FunctionalInterface
+    public interface AmountConsumer {
+        void accept(int ordinal, long minorUnits);
+    }
+}
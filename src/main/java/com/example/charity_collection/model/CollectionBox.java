@@ -1,6 +1,6 @@
 package com.example.charity_collection.model;
 
-
+import com.example.charity_collection.service.CollectionBoxChangeListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,7 +11,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "collection_box")
+@Table(name = "collection_box",
+        indexes = @Index(name = "idx_collection_box_event", columnList = "fundrising_event_id, id"))
+@EntityListeners(CollectionBoxChangeListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -33,6 +35,10 @@ public class CollectionBox {
     @JoinColumn(name = "fundrising_event_id")
     private FundraisingEvent fundraisingEvent;
 
+    @Column(name = "snapshot_entry_id", nullable = false, updatable = false)
+    @Builder.Default
+    private Long snapshotEntryId = 0L;
+
     @OneToMany(mappedBy = "collectionBox", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<CollectionBoxMoney> money = new ArrayList<>();
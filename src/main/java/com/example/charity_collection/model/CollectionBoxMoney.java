@@ -10,7 +10,8 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "collection_box_money")
+@Table(name = "collection_box_money",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"collection_box_id", "currency_id"}))
 @Data
 @Builder
 @AllArgsConstructor
@@ -0,0 +1,30 @@
+package com.example.charity_collection.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Rate between two currencies kept as both of their PLN rates, so an amount converted through PLN is rounded
+ * once, in {@link Money#convert(CrossRate, int)}, instead of once for the cross rate and again for the amount.
+ */
+public record CrossRate(long fromPlnUnits, long toPlnUnits) {
+
+    public static final CrossRate ONE = new CrossRate(Money.RATE_ONE, Money.RATE_ONE);
+    public static final CrossRate MISSING = new CrossRate(0, 0);
+
+    public static CrossRate of(BigDecimal rate) {
+        return new CrossRate(Money.rateUnits(rate), Money.RATE_ONE);
+    }
+
+    public boolean isMissing() {
+        return fromPlnUnits == 0 || toPlnUnits == 0;
+    }
+
+    public boolean isOne() {
+        return fromPlnUnits == toPlnUnits && !isMissing();
+    }
+
+    public BigDecimal toBigDecimal(int scale) {
+        return BigDecimal.valueOf(fromPlnUnits).divide(BigDecimal.valueOf(toPlnUnits), scale, RoundingMode.HALF_UP);
+    }
+}
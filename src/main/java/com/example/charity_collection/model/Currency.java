@@ -1,10 +1,12 @@
 package com.example.charity_collection.model;
 
+import com.example.charity_collection.service.CurrencyChangeListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
 @Table(name = "currency")
+@EntityListeners(CurrencyChangeListener.class)
 @Data
 public class Currency {
 
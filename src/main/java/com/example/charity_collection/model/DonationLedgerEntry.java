@@ -0,0 +1,45 @@
+package com.example.charity_collection.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "donation_ledger_entry",
+        indexes = @Index(name = "idx_donation_ledger_entry_box", columnList = "collection_box_id, id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DonationLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Deliberately not a foreign key, so the entries of an unregistered box stay in the ledger
+    @Column(name = "collection_box_id", nullable = false)
+    private Long collectionBoxId;
+
+    @ManyToOne
+    @JoinColumn(name = "currency_id", nullable = false)
+    private Currency currency;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 16)
+    private LedgerEntryType entryType;
+
+    @Column(name = "rate_version")
+    private Long rateVersion;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -9,7 +9,8 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "exchange_rate")
+@Table(name = "exchange_rate",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"from_currency_id", "to_currency_id"}))
 @Data
 public class ExchangeRate {
 
@@ -25,6 +26,6 @@ public class ExchangeRate {
     @JoinColumn(name = "to_currency_id", nullable = false)
     private Currency toCurrency;
 
-    @Column(nullable = false, precision = 19, scale = 6)
+    @Column(nullable = false, precision = 19, scale = 10)
     private BigDecimal rate;
 }
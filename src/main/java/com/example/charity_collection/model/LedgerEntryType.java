@@ -0,0 +1,7 @@
+package com.example.charity_collection.model;
+
+public enum LedgerEntryType {
+    DONATION,
+    SETTLEMENT,
+    CLOSING
+}
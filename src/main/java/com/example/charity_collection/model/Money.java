@@ -0,0 +1,134 @@
+package com.example.charity_collection.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+public record Money(long minorUnits, int scale) {
+
+    public static final int DEFAULT_SCALE = 2;
+    public static final int RATE_SCALE = 10;
+    public static final long RATE_ONE = 10_000_000_000L;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    public Money {
+        if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Unsupported money scale: " + scale);
+        }
+    }
+
+    public static Money zero(int scale) {
+        return new Money(0, scale);
+    }
+
+    public static Money of(BigDecimal amount, int scale) {
+        try {
+            return new Money(amount.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact(), scale);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+    }
+
+    /**
+     * Exact conversion of an amount in the given currency; an amount with more decimal places than the
+     * currency's minor units is rejected instead of being rounded.
+     */
+    public static Money of(BigDecimal amount, String currencyCode) {
+        int scale = scaleOf(currencyCode);
+        if (!fitsScale(amount, scale)) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " has more decimal places than "
+                    + currencyCode + " allows (" + scale + ")");
+        }
+        return of(amount, scale);
+    }
+
+    public static boolean fitsScale(BigDecimal amount, int scale) {
+        return amount.scale() <= scale || amount.stripTrailingZeros().scale() <= scale;
+    }
+
+    public static int scaleOf(String currencyCode) {
+        try {
+            int digits = java.util.Currency.getInstance(currencyCode).getDefaultFractionDigits();
+            return digits < 0 ? DEFAULT_SCALE : Math.min(digits, DEFAULT_SCALE);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_SCALE;
+        }
+    }
+
+    public static long rateUnits(BigDecimal rate) {
+        return rate.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public Money plus(Money other) {
+        requireSameScale(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), scale);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), scale);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public Money convert(CrossRate rate, int targetScale) {
+        if (rate.isOne()) {
+            return withScale(targetScale);
+        }
+        int shift = targetScale - scale;
+
+        try {
+            long dividend = Math.multiplyExact(minorUnits, rate.fromPlnUnits());
+            long divisor = rate.toPlnUnits();
+            if (shift >= 0) {
+                dividend = Math.multiplyExact(dividend, POWERS_OF_TEN[shift]);
+            } else {
+                divisor = Math.multiplyExact(divisor, POWERS_OF_TEN[-shift]);
+            }
+            return new Money(divideHalfUp(dividend, divisor), targetScale);
+        } catch (ArithmeticException e) {
+            BigDecimal exact = new BigDecimal(BigInteger.valueOf(minorUnits).multiply(BigInteger.valueOf(rate.fromPlnUnits())), -shift);
+            return new Money(exact.divide(BigDecimal.valueOf(rate.toPlnUnits()), 0, RoundingMode.HALF_UP).longValueExact(), targetScale);
+        }
+    }
+
+    public Money withScale(int targetScale) {
+        if (targetScale == scale) {
+            return this;
+        }
+        if (targetScale > scale) {
+            return new Money(Math.multiplyExact(minorUnits, POWERS_OF_TEN[targetScale - scale]), targetScale);
+        }
+        return new Money(divideHalfUp(minorUnits, POWERS_OF_TEN[scale - targetScale]), targetScale);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, scale);
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    private void requireSameScale(Money other) {
+        if (scale != other.scale) {
+            throw new IllegalArgumentException("Cannot combine amounts with scale " + scale + " and " + other.scale);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.charity_collection.repository;
+
+import java.util.List;
+
+public interface CollectionBoxBatchRepository {
+
+    List<Long> insertEmptyBoxes(List<String> identifiers);
+}
@@ -0,0 +1,43 @@
+package com.example.charity_collection.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class CollectionBoxBatchRepositoryImpl implements CollectionBoxBatchRepository {
+
+    private static final String INSERT_EMPTY_BOX_SQL = "INSERT INTO collection_box (identifier, is_empty, snapshot_entry_id) " +
+            "VALUES (:identifier, TRUE, 0)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CollectionBoxBatchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // IDENTITY ids rule out Hibernate insert batching, so the rows go through one JDBC batch
+    @Override
+    public List<Long> insertEmptyBoxes(List<String> identifiers) {
+        if (identifiers.isEmpty()) {
+            return List.of();
+        }
+
+        SqlParameterSource[] batch = identifiers.stream()
+                .map(identifier -> new MapSqlParameterSource("identifier", identifier))
+                .toArray(SqlParameterSource[]::new);
+
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_EMPTY_BOX_SQL, batch, keyHolder, new String[]{"id"});
+
+        List<Long> ids = new ArrayList<>(identifiers.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+}
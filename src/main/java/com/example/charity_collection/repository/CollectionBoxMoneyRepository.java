@@ -0,0 +1,7 @@
+package com.example.charity_collection.repository;
+
+import com.example.charity_collection.model.CollectionBoxMoney;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CollectionBoxMoneyRepository extends JpaRepository<CollectionBoxMoney, Long>, CollectionBoxMoneySnapshotRepository {
+}
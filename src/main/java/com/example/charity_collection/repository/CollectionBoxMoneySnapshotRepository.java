@@ -0,0 +1,12 @@
+package com.example.charity_collection.repository;
+
+import java.util.List;
+
+public interface CollectionBoxMoneySnapshotRepository {
+
+    List<CurrencyBalance> findBalances(Long collectionBoxId);
+
+    List<EventCurrencyBalance> findPendingBalancesByEvent();
+
+    int snapshotLedger(Long collectionBoxId);
+}
@@ -0,0 +1,84 @@
+package com.example.charity_collection.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+
+public class CollectionBoxMoneySnapshotRepositoryImpl implements CollectionBoxMoneySnapshotRepository {
+
+    private static final String BALANCES_SQL = "SELECT currency_id, SUM(amount) AS amount FROM (" +
+            "SELECT m.currency_id, m.amount FROM collection_box_money m WHERE m.collection_box_id = :collectionBoxId " +
+            "UNION ALL " +
+            "SELECT e.currency_id, e.amount FROM donation_ledger_entry e " +
+            "JOIN collection_box b ON b.id = e.collection_box_id " +
+            "WHERE e.collection_box_id = :collectionBoxId AND e.id > b.snapshot_entry_id" +
+            ") GROUP BY currency_id HAVING SUM(amount) <> 0 ORDER BY currency_id";
+
+    private static final String PENDING_BALANCES_SQL = "SELECT b.fundrising_event_id, f.currency_id AS event_currency_id, x.currency_id, SUM(x.amount) AS amount FROM (" +
+            "SELECT m.collection_box_id, m.currency_id, m.amount FROM collection_box_money m " +
+            "UNION ALL " +
+            "SELECT e.collection_box_id, e.currency_id, e.amount FROM donation_ledger_entry e " +
+            "JOIN collection_box eb ON eb.id = e.collection_box_id " +
+            "WHERE e.id > eb.snapshot_entry_id" +
+            ") x JOIN collection_box b ON b.id = x.collection_box_id " +
+            "JOIN fundraising_event f ON f.id = b.fundrising_event_id " +
+            "GROUP BY b.fundrising_event_id, f.currency_id, x.currency_id HAVING SUM(x.amount) <> 0";
+
+    private static final String LOCK_BOX_SQL = "SELECT snapshot_entry_id FROM collection_box WHERE id = :collectionBoxId FOR UPDATE";
+
+    private static final String LAST_ENTRY_SQL = "SELECT MAX(id) FROM donation_ledger_entry WHERE collection_box_id = :collectionBoxId";
+
+    private static final String FOLD_ENTRIES_SQL = "MERGE INTO collection_box_money m " +
+            "USING (SELECT collection_box_id, currency_id, SUM(amount) AS amount FROM donation_ledger_entry " +
+            "WHERE collection_box_id = :collectionBoxId AND id > :fromEntryId AND id <= :toEntryId " +
+            "GROUP BY collection_box_id, currency_id) d " +
+            "ON m.collection_box_id = d.collection_box_id AND m.currency_id = d.currency_id " +
+            "WHEN MATCHED THEN UPDATE SET amount = m.amount + d.amount " +
+            "WHEN NOT MATCHED THEN INSERT (collection_box_id, currency_id, amount) " +
+            "VALUES (d.collection_box_id, d.currency_id, d.amount)";
+
+    private static final String DELETE_ZERO_SQL = "DELETE FROM collection_box_money WHERE collection_box_id = :collectionBoxId AND amount = 0";
+
+    private static final String MOVE_WATERMARK_SQL = "UPDATE collection_box SET snapshot_entry_id = :toEntryId WHERE id = :collectionBoxId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CollectionBoxMoneySnapshotRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<CurrencyBalance> findBalances(Long collectionBoxId) {
+        return jdbcTemplate.query(BALANCES_SQL, new MapSqlParameterSource("collectionBoxId", collectionBoxId),
+                (rs, rowNum) -> new CurrencyBalance(rs.getLong("currency_id"), rs.getBigDecimal("amount")));
+    }
+
+    @Override
+    public List<EventCurrencyBalance> findPendingBalancesByEvent() {
+        return jdbcTemplate.query(PENDING_BALANCES_SQL, (rs, rowNum) -> new EventCurrencyBalance(
+                rs.getLong("fundrising_event_id"), rs.getLong("event_currency_id"), rs.getLong("currency_id"),
+                rs.getBigDecimal("amount")));
+    }
+
+    @Override
+    public int snapshotLedger(Long collectionBoxId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("collectionBoxId", collectionBoxId);
+
+        List<Long> watermark = jdbcTemplate.queryForList(LOCK_BOX_SQL, params, Long.class);
+        if (watermark.isEmpty()) {
+            return 0;
+        }
+
+        Long lastEntryId = jdbcTemplate.queryForObject(LAST_ENTRY_SQL, params, Long.class);
+        if (lastEntryId == null || lastEntryId <= watermark.get(0)) {
+            return 0;
+        }
+
+        params.addValue("fromEntryId", watermark.get(0)).addValue("toEntryId", lastEntryId);
+        int folded = jdbcTemplate.update(FOLD_ENTRIES_SQL, params);
+        jdbcTemplate.update(DELETE_ZERO_SQL, params);
+        jdbcTemplate.update(MOVE_WATERMARK_SQL, params);
+        return folded;
+    }
+}
@@ -1,11 +1,99 @@
 package com.example.charity_collection.repository;
 
 import com.example.charity_collection.model.CollectionBox;
+import com.example.charity_collection.model.FundraisingEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface CollectionBoxRepository extends JpaRepository<CollectionBox, Long> {
+public interface CollectionBoxRepository extends JpaRepository<CollectionBox, Long>, CollectionBoxBatchRepository {
 
     Optional<CollectionBox> findByIdentifier(String identifier);
+
+    @Query("select new com.example.charity_collection.repository.CollectionBoxState(b.id, e.id, c.id, b.isEmpty) " +
+            "from CollectionBox b left join b.fundraisingEvent e left join e.currency c where b.identifier = :identifier")
+    Optional<CollectionBoxState> findStateByIdentifier(@Param("identifier") String identifier);
+
+    @Query("select new com.example.charity_collection.repository.CollectionBoxSummary(b.id, b.identifier, b.isEmpty, b.fundraisingEvent.id) " +
+            "from CollectionBox b where b.id > :afterId " +
+            "and (:empty is null or b.isEmpty = :empty) " +
+            "and (:assigned is null or (:assigned = true and b.fundraisingEvent.id is not null) " +
+            "or (:assigned = false and b.fundraisingEvent.id is null)) " +
+            "order by b.id")
+    List<CollectionBoxSummary> findSummariesAfter(@Param("afterId") Long afterId,
+                                                  @Param("assigned") Boolean assigned,
+                                                  @Param("empty") Boolean empty,
+                                                  Limit limit);
+
+    @Query("select new com.example.charity_collection.repository.CollectionBoxSummary(b.id, b.identifier, b.isEmpty, b.fundraisingEvent.id) " +
+            "from CollectionBox b where b.fundraisingEvent.id = :eventId and b.id > :afterId " +
+            "and (:empty is null or b.isEmpty = :empty) " +
+            "order by b.id")
+    List<CollectionBoxSummary> findSummariesByEventAfter(@Param("eventId") Long eventId,
+                                                         @Param("afterId") Long afterId,
+                                                         @Param("empty") Boolean empty,
+                                                         Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.charity_collection.repository.CollectionBoxSummary(b.id, b.identifier, b.isEmpty, b.fundraisingEvent.id) " +
+            "from CollectionBox b order by b.id")
+    Stream<CollectionBoxSummary> streamAllSummaries();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select b.identifier from CollectionBox b")
+    Stream<String> streamAllIdentifiers();
+
+    @Query("select b.identifier from CollectionBox b where b.identifier in :identifiers")
+    List<String> findExistingIdentifiers(@Param("identifiers") Collection<String> identifiers);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from CollectionBox b where b.identifier = :identifier")
+    Optional<CollectionBox> findByIdentifierForUpdate(@Param("identifier") String identifier);
+
+    @Modifying
+    @Query("update CollectionBox b set b.isEmpty = false where b.id = :id and b.fundraisingEvent.id = :fundraisingEventId")
+    int markNotEmpty(@Param("id") Long id, @Param("fundraisingEventId") Long fundraisingEventId);
+
+    @Modifying
+    @Query("update CollectionBox b set b.isEmpty = false where b.id in :ids")
+    int markAllNotEmpty(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.identifier from CollectionBox b where b.identifier in :identifiers and b.isEmpty = false order by b.identifier")
+    List<String> findNonEmptyIdentifiers(@Param("identifiers") Collection<String> identifiers);
+
+    @Query("select b.identifier from CollectionBox b where b.identifier between :from and :to and b.isEmpty = false order by b.identifier")
+    List<String> findNonEmptyIdentifiersBetween(@Param("from") String from, @Param("to") String to);
+
+    // The emptiness condition is repeated here so a box that received money after the check is never assigned
+    @Modifying
+    @Query("update CollectionBox b set b.fundraisingEvent = :event where b.identifier in :identifiers and b.isEmpty = true")
+    int assignEmptyBoxes(@Param("event") FundraisingEvent event, @Param("identifiers") Collection<String> identifiers);
+
+    @Modifying
+    @Query("update CollectionBox b set b.fundraisingEvent = :event where b.identifier between :from and :to and b.isEmpty = true")
+    int assignEmptyBoxesBetween(@Param("event") FundraisingEvent event, @Param("from") String from, @Param("to") String to);
+
+    @Query("select b from CollectionBox b left join fetch b.fundraisingEvent where b.identifier in :identifiers")
+    List<CollectionBox> findAllWithEventByIdentifierIn(@Param("identifiers") Collection<String> identifiers);
+
+    @Query(value = "SELECT id FROM collection_box WHERE identifier IN (:identifiers) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockAllByIdentifierIn(@Param("identifiers") Collection<String> identifiers);
+
+    @Query(value = "SELECT id FROM collection_box WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT id FROM collection_box WHERE identifier BETWEEN :from AND :to ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockAllByIdentifierBetween(@Param("from") String from, @Param("to") String to);
 }
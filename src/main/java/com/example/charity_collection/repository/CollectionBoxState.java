@@ -0,0 +1,4 @@
+package com.example.charity_collection.repository;
+
+public record CollectionBoxState(Long id, Long fundraisingEventId, Long eventCurrencyId, Boolean isEmpty) {
+}
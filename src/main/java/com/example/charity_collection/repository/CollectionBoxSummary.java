@@ -0,0 +1,4 @@
+package com.example.charity_collection.repository;
+
+public record CollectionBoxSummary(Long id, String identifier, Boolean isEmpty, Long fundraisingEventId) {
+}
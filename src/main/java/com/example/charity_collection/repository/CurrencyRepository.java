@@ -3,8 +3,12 @@ package com.example.charity_collection.repository;
 import com.example.charity_collection.model.Currency;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CurrencyRepository extends JpaRepository<Currency, Long> {
     Optional<Currency> findByCode(String code);
+
+    List<Currency> findByCodeIn(Collection<String> codes);
 }
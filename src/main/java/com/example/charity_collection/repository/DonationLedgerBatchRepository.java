@@ -0,0 +1,15 @@
+package com.example.charity_collection.repository;
+
+import com.example.charity_collection.model.LedgerEntryType;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DonationLedgerBatchRepository {
+
+    void appendEntries(Collection<MoneyIncrement> entries, LedgerEntryType entryType);
+
+    void appendEntries(Collection<MoneyIncrement> entries, LedgerEntryType entryType, Long rateVersion);
+
+    List<Long> findCollectionBoxIdsWithUnsnapshottedEntries(int minEntries);
+}
@@ -0,0 +1,58 @@
+package com.example.charity_collection.repository;
+
+import com.example.charity_collection.model.LedgerEntryType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Collection;
+import java.util.List;
+
+public class DonationLedgerBatchRepositoryImpl implements DonationLedgerBatchRepository {
+
+    private static final String APPEND_RATED_ENTRY_SQL = "INSERT INTO donation_ledger_entry " +
+            "(collection_box_id, currency_id, amount, entry_type, rate_version, created_at) " +
+            "VALUES (:collectionBoxId, :currencyId, :amount, :entryType, :rateVersion, CURRENT_TIMESTAMP)";
+
+    private static final String UNSNAPSHOTTED_BOXES_SQL = "SELECT e.collection_box_id FROM donation_ledger_entry e " +
+            "JOIN collection_box b ON b.id = e.collection_box_id " +
+            "WHERE e.id > b.snapshot_entry_id " +
+            "GROUP BY e.collection_box_id " +
+            "HAVING COUNT(*) >= :minEntries " +
+            "ORDER BY e.collection_box_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public DonationLedgerBatchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void appendEntries(Collection<MoneyIncrement> entries, LedgerEntryType entryType) {
+        appendEntries(entries, entryType, null);
+    }
+
+    @Override
+    public void appendEntries(Collection<MoneyIncrement> entries, LedgerEntryType entryType, Long rateVersion) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        SqlParameterSource[] batch = entries.stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("collectionBoxId", entry.collectionBoxId())
+                        .addValue("currencyId", entry.currencyId())
+                        .addValue("amount", entry.amount())
+                        .addValue("entryType", entryType.name())
+                        .addValue("rateVersion", rateVersion))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(APPEND_RATED_ENTRY_SQL, batch);
+    }
+
+    @Override
+    public List<Long> findCollectionBoxIdsWithUnsnapshottedEntries(int minEntries) {
+        return jdbcTemplate.queryForList(UNSNAPSHOTTED_BOXES_SQL,
+                new MapSqlParameterSource("minEntries", minEntries), Long.class);
+    }
+}
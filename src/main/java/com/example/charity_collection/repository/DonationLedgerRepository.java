@@ -0,0 +1,25 @@
+package com.example.charity_collection.repository;
+
+import com.example.charity_collection.model.DonationLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface DonationLedgerRepository extends JpaRepository<DonationLedgerEntry, Long>, DonationLedgerBatchRepository {
+
+    String APPEND_ENTRY_SQL = "INSERT INTO donation_ledger_entry (collection_box_id, currency_id, amount, entry_type, created_at) " +
+            "VALUES (:collectionBoxId, :currencyId, :amount, :entryType, CURRENT_TIMESTAMP)";
+
+    @Modifying
+    @Query(value = APPEND_ENTRY_SQL, nativeQuery = true)
+    int appendEntry(@Param("collectionBoxId") Long collectionBoxId,
+                    @Param("currencyId") Long currencyId,
+                    @Param("amount") BigDecimal amount,
+                    @Param("entryType") String entryType);
+
+    List<DonationLedgerEntry> findByCollectionBoxIdOrderById(Long collectionBoxId);
+}
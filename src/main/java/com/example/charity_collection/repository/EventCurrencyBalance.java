@@ -0,0 +1,6 @@
+package com.example.charity_collection.repository;
+
+import java.math.BigDecimal;
+
+public record EventCurrencyBalance(Long fundraisingEventId, Long eventCurrencyId, Long currencyId, BigDecimal amount) {
+}
@@ -0,0 +1,40 @@
+package com.example.charity_collection.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Collection;
+
+public class ExchangeRateBatchRepositoryImpl implements ExchangeRateBatchRepository {
+
+    private static final String UPSERT_RATE_SQL = "MERGE INTO exchange_rate r " +
+            "USING (VALUES (CAST(:fromCurrencyId AS BIGINT), CAST(:toCurrencyId AS BIGINT), CAST(:rate AS NUMERIC(19, 10)))) " +
+            "AS d(from_currency_id, to_currency_id, rate) " +
+            "ON r.from_currency_id = d.from_currency_id AND r.to_currency_id = d.to_currency_id " +
+            "WHEN MATCHED THEN UPDATE SET rate = d.rate " +
+            "WHEN NOT MATCHED THEN INSERT (from_currency_id, to_currency_id, rate) " +
+            "VALUES (d.from_currency_id, d.to_currency_id, d.rate)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ExchangeRateBatchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertRates(Collection<RateUpdate> rates) {
+        if (rates.isEmpty()) {
+            return;
+        }
+
+        SqlParameterSource[] batch = rates.stream()
+                .map(rate -> new MapSqlParameterSource()
+                        .addValue("fromCurrencyId", rate.fromCurrencyId())
+                        .addValue("toCurrencyId", rate.toCurrencyId())
+                        .addValue("rate", rate.rate()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(UPSERT_RATE_SQL, batch);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.charity_collection.repository;
+
+import java.util.Collection;
+
+public interface ExchangeRateHistoryBatchRepository {
+
+    void recordRates(Collection<HistoricalRate> rates);
+}
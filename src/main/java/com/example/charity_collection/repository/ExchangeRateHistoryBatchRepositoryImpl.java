@@ -0,0 +1,40 @@
+package com.example.charity_collection.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Collection;
+
+public class ExchangeRateHistoryBatchRepositoryImpl implements ExchangeRateHistoryBatchRepository {
+
+    private static final String RECORD_RATE_SQL = "MERGE INTO exchange_rate_history h " +
+            "USING (VALUES (CAST(:currencyId AS BIGINT), CAST(:effectiveDate AS DATE), CAST(:plnRate AS NUMERIC(19, 10)))) " +
+            "AS d(currency_id, effective_date, pln_rate) " +
+            "ON h.currency_id = d.currency_id AND h.effective_date = d.effective_date " +
+            "WHEN MATCHED THEN UPDATE SET pln_rate = d.pln_rate " +
+            "WHEN NOT MATCHED THEN INSERT (currency_id, effective_date, pln_rate) " +
+            "VALUES (d.currency_id, d.effective_date, d.pln_rate)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ExchangeRateHistoryBatchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void recordRates(Collection<HistoricalRate> rates) {
+        if (rates.isEmpty()) {
+            return;
+        }
+
+        SqlParameterSource[] batch = rates.stream()
+                .map(rate -> new MapSqlParameterSource()
+                        .addValue("currencyId", rate.currencyId())
+                        .addValue("effectiveDate", rate.effectiveDate())
+                        .addValue("plnRate", rate.plnRate()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(RECORD_RATE_SQL, batch);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.charity_collection.repository;
+
+import com.example.charity_collection.model.ExchangeRateHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ExchangeRateHistoryRepository extends JpaRepository<ExchangeRateHistory, Long>, ExchangeRateHistoryBatchRepository {
+
+    @Query("SELECT new com.example.charity_collection.repository.HistoricalRate(h.currency.id, h.effectiveDate, h.plnRate) " +
+            "FROM ExchangeRateHistory h ORDER BY h.currency.id, h.effectiveDate")
+    List<HistoricalRate> findAllRates();
+}
@@ -3,11 +3,16 @@ package com.example.charity_collection.repository;
 import com.example.charity_collection.model.Currency;
 import com.example.charity_collection.model.ExchangeRate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long>, ExchangeRateBatchRepository {
 
     Optional<ExchangeRate> findByFromCurrencyAndToCurrency(Currency fromCurrency, Currency toCurrency);
 
+    @Query("SELECT new com.example.charity_collection.repository.RateUpdate(r.fromCurrency.id, r.toCurrency.id, r.rate) FROM ExchangeRate r")
+    List<RateUpdate> findAllRates();
+
 }
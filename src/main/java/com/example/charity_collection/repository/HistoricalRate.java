@@ -0,0 +1,7 @@
+package com.example.charity_collection.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record HistoricalRate(Long currencyId, LocalDate effectiveDate, BigDecimal plnRate) {
+}
@@ -0,0 +1,6 @@
+package com.example.charity_collection.repository;
+
+import java.math.BigDecimal;
+
+public record MoneyIncrement(Long collectionBoxId, Long currencyId, BigDecimal amount) {
+}
@@ -0,0 +1,6 @@
+package com.example.charity_collection.repository;
+
+import java.math.BigDecimal;
+
+public record RateUpdate(Long fromCurrencyId, Long toCurrencyId, BigDecimal rate) {
+}
@@ -0,0 +1,151 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.BulkAssignCollectionBoxesDto;
+import com.example.charity_collection.dto.BulkAssignCollectionBoxesResponseDto;
+import com.example.charity_collection.dto.BulkRegisterCollectionBoxesResponseDto;
+import com.example.charity_collection.dto.CollectionBoxRegistrationResultDto;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.FundraisingEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Service
+public class CollectionBoxBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectionBoxBatchService.class);
+
+    private final CollectionBoxRepository collectionBoxRepository;
+    private final FundraisingEventRepository fundraisingEventRepository;
+    private final CollectionBoxIdentifierFilter identifierFilter;
+    private final CollectionBoxCache collectionBoxCache;
+    private final int batchSize;
+
+    public CollectionBoxBatchService(CollectionBoxRepository collectionBoxRepository,
+                                     FundraisingEventRepository fundraisingEventRepository,
+                                     CollectionBoxIdentifierFilter identifierFilter,
+                                     CollectionBoxCache collectionBoxCache,
+                                     @Value("${charity.boxes.bulk.batch-size:1000}") int batchSize) {
+        this.collectionBoxRepository = collectionBoxRepository;
+        this.fundraisingEventRepository = fundraisingEventRepository;
+        this.identifierFilter = identifierFilter;
+        this.collectionBoxCache = collectionBoxCache;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Transactional
+    public BulkRegisterCollectionBoxesResponseDto registerCollectionBoxes(List<String> identifiers) {
+        CollectionBoxRegistrationResultDto[] results = new CollectionBoxRegistrationResultDto[identifiers.size()];
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        List<String> suspects = new ArrayList<>();
+
+        for (int i = 0; i < identifiers.size(); i++) {
+            String identifier = identifiers.get(i);
+            if (identifier == null || identifier.isBlank()) {
+                results[i] = failure(i, identifier, "An identifier is required");
+            } else if (candidates.putIfAbsent(identifier, i) != null) {
+                results[i] = failure(i, identifier, "Duplicate identifier in request: " + identifier);
+            } else if (identifierFilter.mightContain(identifier)) {
+                suspects.add(identifier);
+            }
+        }
+
+        // Only identifiers the filter cannot rule out are checked against the database
+        for (int from = 0; from < suspects.size(); from += batchSize) {
+            List<String> chunk = suspects.subList(from, Math.min(from + batchSize, suspects.size()));
+            for (String existing : collectionBoxRepository.findExistingIdentifiers(chunk)) {
+                int index = candidates.remove(existing);
+                results[index] = failure(index, existing, "Collection box with identifier " + existing + " already exists");
+            }
+        }
+        logger.debug("Bulk registration of {} identifiers needed a database check for {}", identifiers.size(), suspects.size());
+
+        List<String> accepted = new ArrayList<>(candidates.keySet());
+        for (int from = 0; from < accepted.size(); from += batchSize) {
+            List<String> chunk = accepted.subList(from, Math.min(from + batchSize, accepted.size()));
+            chunk.forEach(identifierFilter::add);
+            List<Long> ids = collectionBoxRepository.insertEmptyBoxes(chunk);
+
+            for (int i = 0; i < chunk.size(); i++) {
+                String identifier = chunk.get(i);
+                int index = candidates.get(identifier);
+                results[index] = CollectionBoxRegistrationResultDto.builder()
+                        .index(index)
+                        .identifier(identifier)
+                        .id(ids.get(i))
+                        .success(true)
+                        .message("Collection box with identifier " + identifier + " registered")
+                        .build();
+            }
+        }
+
+        int succeeded = accepted.size();
+
+        return BulkRegisterCollectionBoxesResponseDto.builder()
+                .total(results.length)
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    // The boxes are locked in id order first, so the ones found non-empty are exactly the ones the update then skips;
+    // without the lock a donation landing between the two statements left a box neither assigned nor reported
+    @Transactional
+    public BulkAssignCollectionBoxesResponseDto assignCollectionBoxesToEvent(BulkAssignCollectionBoxesDto bulkAssignDto) {
+        List<String> identifiers = bulkAssignDto.getCollectionBoxIdentifiers();
+        String from = bulkAssignDto.getFromIdentifier();
+        String to = bulkAssignDto.getToIdentifier();
+        boolean byList = identifiers != null && !identifiers.isEmpty();
+        boolean byRange = from != null && to != null;
+
+        if (byList == byRange) {
+            throw new IllegalArgumentException("Either collectionBoxIdentifiers or both fromIdentifier and toIdentifier are required");
+        }
+        if (byRange && from.compareTo(to) > 0) {
+            throw new IllegalArgumentException("fromIdentifier must not come after toIdentifier");
+        }
+
+        Long eventId = bulkAssignDto.getFundraisingEventId();
+        if (!fundraisingEventRepository.existsById(eventId)) {
+            throw new IllegalArgumentException("Fundraising event not found with id: " + eventId);
+        }
+        FundraisingEvent fundraisingEvent = fundraisingEventRepository.getReferenceById(eventId);
+
+        List<String> rejected;
+        int assigned;
+        if (byList) {
+            Set<String> requested = new HashSet<>(identifiers);
+            requested.remove(null);
+            collectionBoxRepository.lockAllByIdentifierIn(requested);
+            rejected = collectionBoxRepository.findNonEmptyIdentifiers(requested);
+            assigned = collectionBoxRepository.assignEmptyBoxes(fundraisingEvent, requested);
+            collectionBoxCache.invalidateAllAfterCompletion(requested::contains);
+        } else {
+            collectionBoxRepository.lockAllByIdentifierBetween(from, to);
+            rejected = collectionBoxRepository.findNonEmptyIdentifiersBetween(from, to);
+            assigned = collectionBoxRepository.assignEmptyBoxesBetween(fundraisingEvent, from, to);
+            collectionBoxCache.invalidateAllAfterCompletion(identifier -> identifier.compareTo(from) >= 0 && identifier.compareTo(to) <= 0);
+        }
+
+        return BulkAssignCollectionBoxesResponseDto.builder()
+                .fundraisingEventId(eventId)
+                .assigned(assigned)
+                .rejectedNotEmpty(rejected)
+                .build();
+    }
+
+    private CollectionBoxRegistrationResultDto failure(int index, String identifier, String message) {
+        return CollectionBoxRegistrationResultDto.builder()
+                .index(index)
+                .identifier(identifier)
+                .success(false)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.CollectionBoxCacheStatsDto;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.CollectionBoxState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+@Component
+public class CollectionBoxCache {
+
+    private final CollectionBoxRepository collectionBoxRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final Segment[] segments;
+    private final int maxEntriesPerSegment;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public CollectionBoxCache(CollectionBoxRepository collectionBoxRepository,
+                              CurrencyRegistry currencyRegistry,
+                              @Value("${charity.boxes.cache.max-entries:100000}") int maxEntries,
+                              @Value("${charity.boxes.cache.stripes:64}") int stripeCount) {
+        this.collectionBoxRepository = collectionBoxRepository;
+        this.currencyRegistry = currencyRegistry;
+        this.segments = new Segment[Integer.highestOneBit(Math.max(1, stripeCount))];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        this.maxEntriesPerSegment = Math.max(1, maxEntries / segments.length);
+    }
+
+    public Optional<BoxState> get(String identifier) {
+        Segment segment = segmentFor(identifier);
+        BoxState cached = segment.get(identifier);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+
+        misses.increment();
+        long version = segment.version();
+        Optional<BoxState> loaded = collectionBoxRepository.findStateByIdentifier(identifier).map(this::toBoxState);
+        loaded.ifPresent(state -> segment.putIfUnchanged(identifier, state, version));
+        return loaded;
+    }
+
+    // Runs after rollback too, since the entry may have been reloaded while the transaction held uncommitted changes
+    public void invalidateAfterCompletion(String identifier) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(identifier);
+                }
+            });
+        } else {
+            invalidate(identifier);
+        }
+    }
+
+    public void invalidateAllAfterCompletion(Predicate<String> identifiers) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateAll(identifiers);
+                }
+            });
+        } else {
+            invalidateAll(identifiers);
+        }
+    }
+
+    public CollectionBoxCacheStatsDto stats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        return CollectionBoxCacheStatsDto.builder()
+                .size(size)
+                .maxEntries(maxEntriesPerSegment * segments.length)
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRatio(requests == 0 ? 0 : (double) hitCount / requests)
+                .evictions(evictions.sum())
+                .invalidations(invalidations.sum())
+                .build();
+    }
+
+    private void invalidate(String identifier) {
+        segmentFor(identifier).invalidate(identifier);
+        invalidations.increment();
+    }
+
+    private void invalidateAll(Predicate<String> identifiers) {
+        for (Segment segment : segments) {
+            invalidations.add(segment.invalidateAll(identifiers));
+        }
+    }
+
+    private BoxState toBoxState(CollectionBoxState state) {
+        int eventCurrencyOrdinal = state.eventCurrencyId() != null ? currencyRegistry.ordinalOf(state.eventCurrencyId()) : -1;
+        return new BoxState(state.id(), state.fundraisingEventId(), eventCurrencyOrdinal, state.isEmpty());
+    }
+
+    private Segment segmentFor(String identifier) {
+        int hash = identifier.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    public record BoxState(Long id, Long fundraisingEventId, int eventCurrencyOrdinal, boolean empty) {
+
+        public boolean isAssigned() {
+            return fundraisingEventId != null;
+        }
+    }
+
+    private final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, BoxState> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long version;
+
+        BoxState get(String identifier) {
+            lock.lock();
+            try {
+                return entries.get(identifier);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long version() {
+            lock.lock();
+            try {
+                return version;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // A load that raced with an invalidation may have read the old row, so it is dropped instead of cached
+        void putIfUnchanged(String identifier, BoxState state, long loadedAtVersion) {
+            lock.lock();
+            try {
+                if (version != loadedAtVersion) {
+                    return;
+                }
+                entries.put(identifier, state);
+                Iterator<Map.Entry<String, BoxState>> iterator = entries.entrySet().iterator();
+                while (entries.size() > maxEntriesPerSegment) {
+                    iterator.next();
+                    iterator.remove();
+                    evictions.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void invalidate(String identifier) {
+            lock.lock();
+            try {
+                entries.remove(identifier);
+                version++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int invalidateAll(Predicate<String> identifiers) {
+            lock.lock();
+            try {
+                int removed = 0;
+                Iterator<String> iterator = entries.keySet().iterator();
+                while (iterator.hasNext()) {
+                    if (identifiers.test(iterator.next())) {
+                        iterator.remove();
+                        removed++;
+                    }
+                }
+                version++;
+                return removed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.CollectionBox;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// Created by Hibernate while the entity manager factory is built, so the filter is looked up lazily
+@Component
+public class CollectionBoxChangeListener {
+
+    private final ObjectProvider<CollectionBoxIdentifierFilter> identifierFilter;
+
+    public CollectionBoxChangeListener(ObjectProvider<CollectionBoxIdentifierFilter> identifierFilter) {
+        this.identifierFilter = identifierFilter;
+    }
+
+    @PostPersist
+    public void collectionBoxAdded(CollectionBox collectionBox) {
+        identifierFilter.getObject().add(collectionBox.getIdentifier());
+    }
+
+    @PostRemove
+    public void collectionBoxRemoved(CollectionBox collectionBox) {
+        identifierFilter.getObject().removeAfterCommit(collectionBox.getIdentifier());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.CollectionBoxInfoDto;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.CollectionBoxSummary;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+@Service
+public class CollectionBoxExportService {
+
+    private static final String CSV_HEADER = "id,identifier,empty,assigned";
+
+    private final CollectionBoxRepository collectionBoxRepository;
+    private final ObjectWriter boxWriter;
+    private final int flushRows;
+
+    public CollectionBoxExportService(CollectionBoxRepository collectionBoxRepository,
+                                      ObjectMapper objectMapper,
+                                      @Value("${charity.boxes.export.flush-rows:1000}") int flushRows) {
+        this.collectionBoxRepository = collectionBoxRepository;
+        this.boxWriter = objectMapper.writerFor(CollectionBoxInfoDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.flushRows = Math.max(1, flushRows);
+    }
+
+    // Rows come off a forward-only cursor as projections and are written as they are read,
+    // so neither the result list nor managed entities grow with the number of boxes
+    @Transactional(readOnly = true)
+    public long exportCollectionBoxes(Format format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        try (Stream<CollectionBoxSummary> summaries = collectionBoxRepository.streamAllSummaries()) {
+            Iterator<CollectionBoxSummary> iterator = summaries.iterator();
+            while (iterator.hasNext()) {
+                CollectionBoxSummary summary = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, summary);
+                } else {
+                    boxWriter.writeValue(writer, toInfo(summary));
+                }
+                writer.write('\n');
+
+                if (++rows % flushRows == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        return rows;
+    }
+
+    private CollectionBoxInfoDto toInfo(CollectionBoxSummary summary) {
+        return CollectionBoxInfoDto.builder()
+                .id(summary.id())
+                .identifier(summary.identifier())
+                .isEmpty(summary.isEmpty())
+                .isAssigned(summary.fundraisingEventId() != null)
+                .build();
+    }
+
+    private void writeCsv(Writer writer, CollectionBoxSummary summary) throws IOException {
+        writer.write(String.valueOf(summary.id()));
+        writer.write(',');
+        writer.write(csvField(summary.identifier()));
+        writer.write(',');
+        writer.write(String.valueOf(summary.isEmpty()));
+        writer.write(',');
+        writer.write(String.valueOf(summary.fundraisingEventId() != null));
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON_VALUE),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + name);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Counting Bloom filter over registered identifiers: a negative answer is definite, so only
+// positives need a database check. Four-bit counters let unregistered identifiers be removed again.
+@Component
+public class CollectionBoxIdentifierFilter implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectionBoxIdentifierFilter.class);
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+    private final CollectionBoxRepository collectionBoxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLongArray counters;
+    private final long counterCount;
+    private final int hashCount;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+
+    public CollectionBoxIdentifierFilter(CollectionBoxRepository collectionBoxRepository,
+                                         TransactionTemplate transactionTemplate,
+                                         @Value("${charity.boxes.identifier-filter.expected-identifiers:1000000}") int expectedIdentifiers,
+                                         @Value("${charity.boxes.identifier-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.collectionBoxRepository = collectionBoxRepository;
+        this.transactionTemplate = transactionTemplate;
+        int expected = Math.max(1, expectedIdentifiers);
+        double rate = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long optimalCounters = (long) Math.ceil(-expected * Math.log(rate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalCounters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+        this.counters = new AtomicLongArray(words);
+        this.counterCount = (long) words * COUNTERS_PER_WORD;
+        this.hashCount = Math.max(1, (int) Math.round((double) counterCount / expected * Math.log(2)));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        LongAdder loaded = new LongAdder();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> identifiers = collectionBoxRepository.streamAllIdentifiers()) {
+                identifiers.forEach(identifier -> {
+                    add(identifier);
+                    loaded.increment();
+                });
+            }
+        });
+        logger.info("Loaded {} collection box identifiers into the identifier filter ({} counters, {} hashes)",
+                loaded.sum(), counterCount, hashCount);
+    }
+
+    public boolean mightContain(String identifier) {
+        probes.increment();
+        long hash = hash(identifier);
+        long step = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            if (counterAt(position(hash, step, i)) == 0) {
+                negatives.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Called before the insert commits: a rolled back registration only leaves a false positive behind
+    public void add(String identifier) {
+        long hash = hash(identifier);
+        long step = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            update(position(hash, step, i), 1);
+        }
+    }
+
+    public void removeAfterCommit(String identifier) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(identifier);
+                }
+            });
+        } else {
+            remove(identifier);
+        }
+    }
+
+    public long probes() {
+        return probes.sum();
+    }
+
+    public long negatives() {
+        return negatives.sum();
+    }
+
+    private void remove(String identifier) {
+        long hash = hash(identifier);
+        long step = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            update(position(hash, step, i), -1);
+        }
+    }
+
+    // Saturated counters are never decremented, since their true count is no longer known
+    private void update(long position, int delta) {
+        int word = (int) (position / COUNTERS_PER_WORD);
+        int shift = (int) (position % COUNTERS_PER_WORD) * COUNTER_BITS;
+        while (true) {
+            long current = counters.get(word);
+            long counter = (current >>> shift) & COUNTER_MAX;
+            if (counter == COUNTER_MAX || (delta < 0 && counter == 0)) {
+                return;
+            }
+            if (counters.compareAndSet(word, current, current + ((long) delta << shift))) {
+                return;
+            }
+        }
+    }
+
+    private long counterAt(long position) {
+        int shift = (int) (position % COUNTERS_PER_WORD) * COUNTER_BITS;
+        return (counters.get((int) (position / COUNTERS_PER_WORD)) >>> shift) & COUNTER_MAX;
+    }
+
+    private long position(long hash, long step, int i) {
+        return ((hash + i * step) & Long.MAX_VALUE) % counterCount;
+    }
+
+    private static long hash(String identifier) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < identifier.length(); i++) {
+            hash ^= identifier.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
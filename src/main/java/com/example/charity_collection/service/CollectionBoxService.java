@@ -2,45 +2,64 @@ package com.example.charity_collection.service;
 
 import com.example.charity_collection.dto.*;
 import com.example.charity_collection.model.CollectionBox;
-import com.example.charity_collection.model.CollectionBoxMoney;
+import com.example.charity_collection.model.CrossRate;
 import com.example.charity_collection.model.Currency;
-import com.example.charity_collection.model.ExchangeRate;
 import com.example.charity_collection.model.FundraisingEvent;
-import com.example.charity_collection.repository.CollectionBoxRepository;
-import com.example.charity_collection.repository.CurrencyRepository;
-import com.example.charity_collection.repository.ExchangeRateRepository;
-import com.example.charity_collection.repository.FundraisingEventRepository;
+import com.example.charity_collection.model.LedgerEntryType;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.*;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class CollectionBoxService {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final CollectionBoxRepository collectionBoxRepository;
+    private final CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+    private final DonationLedgerRepository donationLedgerRepository;
     private final FundraisingEventRepository fundraisingEventRepository;
-    private final CurrencyRepository currencyRepository;
-    private final ExchangeRateRepository exchangeRateRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final ExchangeRateMatrix exchangeRateMatrix;
+    private final DonationWriteBehindBuffer donationWriteBehindBuffer;
+    private final PendingDonationTotals pendingDonationTotals;
+    private final CollectionBoxCache collectionBoxCache;
+    private final CollectionBoxIdentifierFilter identifierFilter;
 
     public CollectionBoxService(CollectionBoxRepository collectionBoxRepository,
+                                CollectionBoxMoneyRepository collectionBoxMoneyRepository,
+                                DonationLedgerRepository donationLedgerRepository,
                                 FundraisingEventRepository fundraisingEventRepository,
-                                CurrencyRepository currencyRepository,
-                                ExchangeRateRepository exchangeRateRepository) {
+                                CurrencyRegistry currencyRegistry,
+                                ExchangeRateMatrix exchangeRateMatrix,
+                                DonationWriteBehindBuffer donationWriteBehindBuffer,
+                                PendingDonationTotals pendingDonationTotals,
+                                CollectionBoxCache collectionBoxCache,
+                                CollectionBoxIdentifierFilter identifierFilter) {
         this.collectionBoxRepository = collectionBoxRepository;
+        this.collectionBoxMoneyRepository = collectionBoxMoneyRepository;
+        this.donationLedgerRepository = donationLedgerRepository;
         this.fundraisingEventRepository = fundraisingEventRepository;
-        this.currencyRepository = currencyRepository;
-        this.exchangeRateRepository = exchangeRateRepository;
+        this.currencyRegistry = currencyRegistry;
+        this.exchangeRateMatrix = exchangeRateMatrix;
+        this.donationWriteBehindBuffer = donationWriteBehindBuffer;
+        this.pendingDonationTotals = pendingDonationTotals;
+        this.collectionBoxCache = collectionBoxCache;
+        this.identifierFilter = identifierFilter;
     }
 
     @Transactional
     public CollectionBoxDto registerCollectionBox(CollectionBoxDto collectionBoxDto) {
 
-        if (collectionBoxRepository.findByIdentifier(collectionBoxDto.getIdentifier()).isPresent()) {
+        if (identifierFilter.mightContain(collectionBoxDto.getIdentifier())
+                && collectionBoxRepository.findByIdentifier(collectionBoxDto.getIdentifier()).isPresent()) {
             throw new IllegalArgumentException("Collection box with identifier " +
                     collectionBoxDto.getIdentifier() + " already exists");
         }
@@ -51,6 +70,7 @@ public class CollectionBoxService {
                 .build();
 
         CollectionBox savedBox = collectionBoxRepository.save(collectionBox);
+        collectionBoxCache.invalidateAfterCompletion(savedBox.getIdentifier());
 
         return CollectionBoxDto.builder()
                 .id(savedBox.getId())
@@ -59,31 +79,71 @@ public class CollectionBoxService {
                 .build();
     }
 
+    // Keyset pagination on id: each page seeks past the cursor, so deep pages cost the same as the first
     @Transactional(readOnly = true)
-    public List<CollectionBoxInfoDto> listAllCollectionBoxes() {
-        return collectionBoxRepository.findAll().stream()
-                .map(collectionBox -> CollectionBoxInfoDto.builder()
-                        .id(collectionBox.getId())
-                        .identifier(collectionBox.getIdentifier())
-                        .isEmpty(collectionBox.getIsEmpty())
-                        .isAssigned(collectionBox.getFundraisingEvent() != null)
+    public CollectionBoxPageDto listCollectionBoxes(Long after, Integer limit, Boolean assigned, Boolean empty, Long eventId) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Long afterId = after != null ? after : 0L;
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<CollectionBoxSummary> summaries;
+        if (eventId == null) {
+            summaries = collectionBoxRepository.findSummariesAfter(afterId, assigned, empty, fetchLimit);
+        } else if (Boolean.FALSE.equals(assigned)) {
+            summaries = List.of();
+        } else {
+            summaries = collectionBoxRepository.findSummariesByEventAfter(eventId, afterId, empty, fetchLimit);
+        }
+
+        boolean hasMore = summaries.size() > pageSize;
+        List<CollectionBoxInfoDto> collectionBoxes = summaries.stream()
+                .limit(pageSize)
+                .map(summary -> CollectionBoxInfoDto.builder()
+                        .id(summary.id())
+                        .identifier(summary.identifier())
+                        .isEmpty(summary.isEmpty())
+                        .isAssigned(summary.fundraisingEventId() != null)
                         .build())
                 .collect(Collectors.toList());
+
+        return CollectionBoxPageDto.builder()
+                .collectionBoxes(collectionBoxes)
+                .nextCursor(hasMore ? collectionBoxes.get(collectionBoxes.size() - 1).getId() : null)
+                .build();
     }
 
     @Transactional
     public MessageResponseDto unregisterCollectionBox(String identifier) {
-
-        CollectionBox collectionBox = collectionBoxRepository.findByIdentifier(identifier)
+        // The row lock keeps a concurrent donation from appending a ledger entry after the box is closed
+        CollectionBox collectionBox = collectionBoxRepository.findByIdentifierForUpdate(identifier)
                 .orElseThrow(() -> new IllegalArgumentException("Collection box not found with identifier: " + identifier));
 
+        if (!collectionBox.getIsEmpty()) {
+            donationWriteBehindBuffer.flushCollectionBox(collectionBox.getId());
+            List<CurrencyBalance> balances = collectionBoxMoneyRepository.findBalances(collectionBox.getId());
+            if (collectionBox.getFundraisingEvent() != null) {
+                pendingDonationTotals.remove(collectionBox.getFundraisingEvent(), balances);
+            }
+
+            // The ledger is append-only, so money left in the box is written off with closing entries and the box's
+            // history stays in place
+            donationLedgerRepository.appendEntries(balances.stream()
+                    .map(balance -> new MoneyIncrement(collectionBox.getId(), balance.currencyId(), balance.amount().negate()))
+                    .toList(), LedgerEntryType.CLOSING);
+        }
+
         collectionBoxRepository.delete(collectionBox);
+        collectionBoxCache.invalidateAfterCompletion(identifier);
         return new MessageResponseDto("Collection box with identifier " + identifier + " deleted successfully");
     }
 
     @Transactional
     public MessageResponseDto assignCollectionBoxToEvent(AssignCollectionBoxDto assignCollectionBoxDto) {
-        CollectionBox collectionBox = collectionBoxRepository.findByIdentifier(assignCollectionBoxDto.getCollectionBoxIdentifier())
+        // The row lock keeps a concurrent donation from marking the box non-empty between the check and the save
+        CollectionBox collectionBox = collectionBoxRepository.findByIdentifierForUpdate(assignCollectionBoxDto.getCollectionBoxIdentifier())
                 .orElseThrow(() -> new IllegalArgumentException("Collection box not found with identifier: " + assignCollectionBoxDto.getCollectionBoxIdentifier()));
 
         FundraisingEvent fundraisingEvent = fundraisingEventRepository.findById(assignCollectionBoxDto.getFundraisingEventId())
@@ -95,6 +155,7 @@ public class CollectionBoxService {
 
         collectionBox.setFundraisingEvent(fundraisingEvent);
         collectionBoxRepository.save(collectionBox);
+        collectionBoxCache.invalidateAfterCompletion(collectionBox.getIdentifier());
 
         return new MessageResponseDto("Collection box with identifier " + collectionBox.getIdentifier()
                 + " successfully assigned to event " + fundraisingEvent.getName());
@@ -102,35 +163,44 @@ public class CollectionBoxService {
 
     @Transactional
     public MessageResponseDto addMoneyToCollectionBox(AddMoneyDto addMoneyDto) {
-        CollectionBox collectionBox = collectionBoxRepository.findByIdentifier(addMoneyDto.getCollectionBoxIdentifier())
-                .orElseThrow(() -> new IllegalArgumentException("Collection box not found with identifier: " + addMoneyDto.getCollectionBoxIdentifier()));
+        String identifier = addMoneyDto.getCollectionBoxIdentifier();
+        CollectionBoxCache.BoxState collectionBox = collectionBoxCache.get(identifier)
+                .orElseThrow(() -> new IllegalArgumentException("Collection box not found with identifier: " + identifier));
 
-        if (collectionBox.getFundraisingEvent() == null) {
+        if (!collectionBox.isAssigned()) {
             throw new IllegalArgumentException("You can only add money to a box that is assigned to a fundraising event");
         }
 
-        Currency currency = currencyRepository.findByCode(addMoneyDto.getCurrencyCode())
+        Currency currency = currencyRegistry.findByCode(addMoneyDto.getCurrencyCode())
                 .orElseThrow(() -> new IllegalArgumentException("Currency not supported: " + addMoneyDto.getCurrencyCode()));
 
-        Optional<CollectionBoxMoney> existingMoney = collectionBox.getMoney().stream()
-                .filter(money -> money.getCurrency().getCode().equals(addMoneyDto.getCurrencyCode()))
-                .findFirst();
+        Money amount = Money.of(addMoneyDto.getAmount(), currency.getCode());
 
-        if (existingMoney.isPresent()) {
-            CollectionBoxMoney money = existingMoney.get();
-            money.setAmount(money.getAmount().add(addMoneyDto.getAmount()));
-        } else {
-            CollectionBoxMoney money = CollectionBoxMoney.builder()
-                    .collectionBox(collectionBox)
-                    .currency(currency)
-                    .amount(addMoneyDto.getAmount())
-                    .build();
+        if (collectionBox.empty()) {
+            collectionBoxCache.invalidateAfterCompletion(identifier);
+        }
 
-            collectionBox.getMoney().add(money);
+        // Updating the box row first takes its row lock, so ledger inserts never interleave with emptying, snapshotting
+        // or unregistering the box. The update only matches while the box still belongs to the cached event, so a box
+        // deleted or reassigned since it was cached is re-read under the lock before anything is credited to an event.
+        // Adds to one box therefore serialize on its row. That is kept on purpose: emptying, assigning, unregistering
+        // and write-behind staging all rely on this lock, and it is only held for the rest of this short transaction
+        if (collectionBoxRepository.markNotEmpty(collectionBox.id(), collectionBox.fundraisingEventId()) == 0) {
+            collectionBoxCache.invalidateAfterCompletion(identifier);
+            collectionBox = lockCurrentState(identifier);
+            if (collectionBoxRepository.markNotEmpty(collectionBox.id(), collectionBox.fundraisingEventId()) == 0) {
+                throw new IllegalStateException("Collection box " + identifier + " changed while it was locked");
+            }
         }
 
-        collectionBox.setIsEmpty(false);
-        collectionBoxRepository.save(collectionBox);
+        if (donationWriteBehindBuffer.isEnabled()) {
+            donationWriteBehindBuffer.add(collectionBox.id(), currency.getId(), amount);
+        } else {
+            donationLedgerRepository.appendEntry(collectionBox.id(), currency.getId(), amount.toBigDecimal(),
+                    LedgerEntryType.DONATION.name());
+        }
+        pendingDonationTotals.add(collectionBox.fundraisingEventId(), collectionBox.eventCurrencyOrdinal(),
+                currencyRegistry.ordinalOf(currency), amount);
 
         return new MessageResponseDto(
                 "Amount " + addMoneyDto.getAmount()
@@ -140,9 +210,22 @@ public class CollectionBoxService {
         );
     }
 
+    private CollectionBoxCache.BoxState lockCurrentState(String identifier) {
+        CollectionBox collectionBox = collectionBoxRepository.findByIdentifierForUpdate(identifier)
+                .orElseThrow(() -> new IllegalArgumentException("Collection box not found with identifier: " + identifier));
+
+        FundraisingEvent event = collectionBox.getFundraisingEvent();
+        if (event == null) {
+            throw new IllegalArgumentException("You can only add money to a box that is assigned to a fundraising event");
+        }
+
+        return new CollectionBoxCache.BoxState(collectionBox.getId(), event.getId(),
+                currencyRegistry.ordinalOf(event.getCurrency()), collectionBox.getIsEmpty());
+    }
+
     @Transactional
     public MessageResponseDto emptyCollectionBox(String identifier) {
-        CollectionBox collectionBox = collectionBoxRepository.findByIdentifier(identifier)
+        CollectionBox collectionBox = collectionBoxRepository.findByIdentifierForUpdate(identifier)
                 .orElseThrow(() -> new IllegalArgumentException("Collection box not found"));
 
         if (collectionBox.getIsEmpty()) {
@@ -153,44 +236,70 @@ public class CollectionBoxService {
             throw new IllegalArgumentException("Collection box is not assigned to an event");
         }
 
+        donationWriteBehindBuffer.flushCollectionBox(collectionBox.getId());
+
         FundraisingEvent event = collectionBox.getFundraisingEvent();
         Currency eventCurrency = event.getCurrency();
 
-        BigDecimal totalAmountInTheBox = BigDecimal.ZERO;
+        List<CurrencyBalance> balances = collectionBoxMoneyRepository.findBalances(collectionBox.getId());
+        ExchangeRateMatrix.Snapshot rates = exchangeRateMatrix.current();
+        if (!hasAllRates(rates, balances, eventCurrency)) {
+            rates = exchangeRateMatrix.refresh(rates.version());
+        }
+        int eventScale = Money.scaleOf(eventCurrency.getCode());
+        Money totalAmountInTheBox = Money.zero(eventScale);
 
-        for (CollectionBoxMoney money : collectionBox.getMoney()) {
-            BigDecimal amountForCurrency;
+        for (CurrencyBalance balance : balances) {
+            Currency currency = currencyRegistry.getCurrency(balance.currencyId());
 
-            BigDecimal exchangeRate = getExchangeRate(money.getCurrency(), eventCurrency);
-            amountForCurrency = money.getAmount().multiply(exchangeRate);
+            CrossRate exchangeRate = getExchangeRate(rates, currency, eventCurrency);
+            Money amountForCurrency = Money.of(balance.amount(), Money.scaleOf(currency.getCode())).convert(exchangeRate, eventScale);
 
-            totalAmountInTheBox = totalAmountInTheBox.add(amountForCurrency);
+            totalAmountInTheBox = totalAmountInTheBox.plus(amountForCurrency);
         }
 
-        event.setAccountBalance(event.getAccountBalance().add(totalAmountInTheBox));
+        event.setAccountBalance(event.getAccountBalance().add(totalAmountInTheBox.toBigDecimal()));
         fundraisingEventRepository.save(event);
 
-        collectionBox.getMoney().clear();
+        donationLedgerRepository.appendEntries(balances.stream()
+                .map(balance -> new MoneyIncrement(collectionBox.getId(), balance.currencyId(), balance.amount().negate()))
+                .toList(), LedgerEntryType.SETTLEMENT, rates.version());
+        collectionBoxMoneyRepository.snapshotLedger(collectionBox.getId());
+        pendingDonationTotals.remove(event, balances);
+
         collectionBox.setIsEmpty(true);
         collectionBoxRepository.save(collectionBox);
+        collectionBoxCache.invalidateAfterCompletion(identifier);
 
         return new MessageResponseDto(
                 "Collection box with identifier " + collectionBox.getIdentifier() +
-                " has been emptied. Amount " + totalAmountInTheBox.setScale(2, RoundingMode.HALF_UP) + " " +
+                " has been emptied. Amount " + totalAmountInTheBox.toBigDecimal().setScale(2, RoundingMode.HALF_UP) + " " +
                 eventCurrency.getCode() + " has been transfered to " + event.getName()
         );
 
     }
 
-    private BigDecimal getExchangeRate(Currency fromCurrency, Currency toCurrency) {
+    private boolean hasAllRates(ExchangeRateMatrix.Snapshot rates, List<CurrencyBalance> balances, Currency toCurrency) {
+        int toOrdinal = currencyRegistry.ordinalOf(toCurrency.getId());
+        for (CurrencyBalance balance : balances) {
+            if (!balance.currencyId().equals(toCurrency.getId())
+                    && rates.rate(currencyRegistry.ordinalOf(balance.currencyId()), toOrdinal).isMissing()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CrossRate getExchangeRate(ExchangeRateMatrix.Snapshot rates, Currency fromCurrency, Currency toCurrency) {
         if (fromCurrency.getCode().equals(toCurrency.getCode())) {
-            return BigDecimal.ONE;
+            return CrossRate.ONE;
         }
 
-        return exchangeRateRepository.findByFromCurrencyAndToCurrency(fromCurrency, toCurrency)
-                .map(ExchangeRate::getRate)
-                .orElseThrow(() -> new IllegalStateException(
-                        "Exchange rate not found for currency pair: " + fromCurrency.getCode() + " to " + toCurrency.getCode()
-                ));
+        CrossRate rate = rates.rate(currencyRegistry.ordinalOf(fromCurrency.getId()), currencyRegistry.ordinalOf(toCurrency.getId()));
+        if (rate.isMissing()) {
+            throw new IllegalStateException(
+                    "Exchange rate not found for currency pair: " + fromCurrency.getCode() + " to " + toCurrency.getCode());
+        }
+        return rate;
     }
 }
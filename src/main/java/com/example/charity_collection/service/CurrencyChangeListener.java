@@ -0,0 +1,28 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.Currency;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// Created by Hibernate while the entity manager factory is built, so the registry is looked up lazily
+@Component
+public class CurrencyChangeListener {
+
+    private final ObjectProvider<CurrencyRegistry> currencyRegistry;
+
+    public CurrencyChangeListener(ObjectProvider<CurrencyRegistry> currencyRegistry) {
+        this.currencyRegistry = currencyRegistry;
+    }
+
+    @PostPersist
+    public void currencyAdded(Currency currency) {
+        currencyRegistry.getObject().registerAfterCommit(currency);
+    }
+
+    @PostRemove
+    public void currencyRemoved(Currency currency) {
+        currencyRegistry.getObject().removeAfterCommit(currency);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.repository.CurrencyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class CurrencyRegistry implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrencyRegistry.class);
+    private static final int LETTERS = 26;
+    private static final int CODE_SPACE = LETTERS * LETTERS * LETTERS;
+
+    private final CurrencyRepository currencyRepository;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(new Currency[0], Map.of(), new int[CODE_SPACE], false);
+
+    public CurrencyRegistry(CurrencyRepository currencyRepository) {
+        this.currencyRepository = currencyRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Currency> currencies = currencyRepository.findAll();
+        registerAll(currencies, true);
+        logger.info("Loaded {} currencies into the currency registry", currencies.size());
+    }
+
+    public Optional<Currency> findByCode(String code) {
+        Snapshot current = snapshot;
+        int index = codeIndex(code);
+        if (index >= 0 && current.ordinalsByCode()[index] != 0) {
+            return Optional.of(current.currencies()[current.ordinalsByCode()[index] - 1]);
+        }
+        // Once loaded every currency is known, so an unknown ISO code needs no query
+        if (current.loaded() && index >= 0) {
+            return Optional.empty();
+        }
+
+        return currencyRepository.findByCode(code).map(currency -> getCurrencyAt(register(currency)));
+    }
+
+    public Map<String, Currency> findAllByCode(Collection<String> codes) {
+        Map<String, Currency> currencies = new HashMap<>();
+        List<String> missingCodes = new ArrayList<>();
+        for (String code : codes) {
+            Snapshot current = snapshot;
+            int index = codeIndex(code);
+            if (index >= 0 && current.ordinalsByCode()[index] != 0) {
+                currencies.put(code, current.currencies()[current.ordinalsByCode()[index] - 1]);
+            } else if (!current.loaded() || index < 0) {
+                missingCodes.add(code);
+            }
+        }
+
+        if (!missingCodes.isEmpty()) {
+            for (Currency currency : currencyRepository.findByCodeIn(missingCodes)) {
+                currencies.put(currency.getCode(), getCurrencyAt(register(currency)));
+            }
+        }
+        return currencies;
+    }
+
+    public Currency getCurrency(Long currencyId) {
+        return getCurrencyAt(ordinalOf(currencyId));
+    }
+
+    public Currency getCurrencyAt(int ordinal) {
+        return snapshot.currencies()[ordinal];
+    }
+
+    public int ordinalOf(Long currencyId) {
+        Integer ordinal = snapshot.ordinalsById().get(currencyId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+
+        return currencyRepository.findById(currencyId)
+                .map(this::register)
+                .orElseThrow(() -> new IllegalStateException("Currency not found with id: " + currencyId));
+    }
+
+    public int ordinalOf(Currency currency) {
+        Integer ordinal = snapshot.ordinalsById().get(currency.getId());
+        return ordinal != null ? ordinal : register(currency);
+    }
+
+    public int size() {
+        return snapshot.currencies().length;
+    }
+
+    public void registerAfterCommit(Currency currency) {
+        afterCommit(() -> registerAll(List.of(currency), false));
+    }
+
+    public void removeAfterCommit(Currency currency) {
+        afterCommit(() -> remove(currency));
+    }
+
+    private int register(Currency currency) {
+        registerAll(List.of(currency), false);
+        return snapshot.ordinalsById().get(currency.getId());
+    }
+
+    // Ordinals index the rate arrays and box contents, so existing currencies keep theirs
+    private void registerAll(Collection<Currency> currencies, boolean loaded) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot;
+            Currency[] registered = current.currencies();
+            Map<Long, Integer> ordinalsById = current.ordinalsById();
+            int[] ordinalsByCode = current.ordinalsByCode();
+            int size = registered.length;
+            boolean changed = false;
+
+            for (Currency currency : currencies) {
+                if (ordinalsById.containsKey(currency.getId())) {
+                    continue;
+                }
+                if (!changed) {
+                    registered = Arrays.copyOf(registered, registered.length + currencies.size());
+                    ordinalsById = new HashMap<>(ordinalsById);
+                    ordinalsByCode = ordinalsByCode.clone();
+                    changed = true;
+                }
+
+                int ordinal = size++;
+                registered[ordinal] = currency;
+                ordinalsById.put(currency.getId(), ordinal);
+                int index = codeIndex(currency.getCode());
+                if (index >= 0) {
+                    ordinalsByCode[index] = ordinal + 1;
+                }
+            }
+
+            if (changed || (loaded && !current.loaded())) {
+                snapshot = new Snapshot(Arrays.copyOf(registered, size), ordinalsById, ordinalsByCode,
+                        loaded || current.loaded());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A removed currency keeps its ordinal slot so arrays indexed by the other ordinals stay valid
+    private void remove(Currency currency) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot;
+            Integer ordinal = current.ordinalsById().get(currency.getId());
+            if (ordinal == null) {
+                return;
+            }
+
+            Map<Long, Integer> ordinalsById = new HashMap<>(current.ordinalsById());
+            ordinalsById.remove(currency.getId());
+            int[] ordinalsByCode = current.ordinalsByCode().clone();
+            int index = codeIndex(current.currencies()[ordinal].getCode());
+            if (index >= 0 && ordinalsByCode[index] == ordinal + 1) {
+                ordinalsByCode[index] = 0;
+            }
+            snapshot = new Snapshot(current.currencies(), ordinalsById, ordinalsByCode, current.loaded());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // ISO 4217 codes are three upper-case letters, so each one has its own slot in a 26^3 array
+    private static int codeIndex(String code) {
+        if (code == null || code.length() != 3) {
+            return -1;
+        }
+
+        int index = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = code.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS) {
+                return -1;
+            }
+            index = index * LETTERS + letter;
+        }
+        return index;
+    }
+
+    private record Snapshot(Currency[] currencies, Map<Long, Integer> ordinalsById, int[] ordinalsByCode, boolean loaded) {
+    }
+}
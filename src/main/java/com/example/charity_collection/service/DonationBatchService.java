@@ -0,0 +1,188 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.AddMoneyDto;
+import com.example.charity_collection.dto.BulkAddMoneyResponseDto;
+import com.example.charity_collection.dto.DonationResultDto;
+import com.example.charity_collection.model.BoxContents;
+import com.example.charity_collection.model.CollectionBox;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.LedgerEntryType;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.DonationLedgerRepository;
+import com.example.charity_collection.repository.MoneyIncrement;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class DonationBatchService {
+
+    private final CollectionBoxRepository collectionBoxRepository;
+    private final DonationLedgerRepository donationLedgerRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final Validator validator;
+    private final DonationWriteBehindBuffer donationWriteBehindBuffer;
+    private final PendingDonationTotals pendingDonationTotals;
+
+    public DonationBatchService(CollectionBoxRepository collectionBoxRepository,
+                                DonationLedgerRepository donationLedgerRepository,
+                                CurrencyRegistry currencyRegistry,
+                                Validator validator,
+                                DonationWriteBehindBuffer donationWriteBehindBuffer,
+                                PendingDonationTotals pendingDonationTotals) {
+        this.collectionBoxRepository = collectionBoxRepository;
+        this.donationLedgerRepository = donationLedgerRepository;
+        this.currencyRegistry = currencyRegistry;
+        this.validator = validator;
+        this.donationWriteBehindBuffer = donationWriteBehindBuffer;
+        this.pendingDonationTotals = pendingDonationTotals;
+    }
+
+    @Transactional
+    public BulkAddMoneyResponseDto addMoneyToCollectionBoxes(List<AddMoneyDto> donations) {
+        DonationResultDto[] results = new DonationResultDto[donations.size()];
+        List<Integer> validIndexes = new ArrayList<>(donations.size());
+
+        for (int i = 0; i < donations.size(); i++) {
+            String error = validate(donations.get(i));
+            if (error != null) {
+                results[i] = failure(i, donations.get(i), error);
+            } else {
+                validIndexes.add(i);
+            }
+        }
+
+        Set<String> identifiers = new HashSet<>();
+        Set<String> currencyCodes = new HashSet<>();
+        for (int i : validIndexes) {
+            identifiers.add(donations.get(i).getCollectionBoxIdentifier());
+            currencyCodes.add(donations.get(i).getCurrencyCode());
+        }
+
+        Map<String, Currency> currencies = currencyCodes.isEmpty() ? Map.of() : currencyRegistry.findAllByCode(currencyCodes);
+
+        Map<String, CollectionBox> boxes = identifiers.isEmpty() ? Map.of() : lockBoxes(identifiers);
+
+        Map<Long, BoxContents> mergedAmounts = new TreeMap<>();
+
+        for (int i : validIndexes) {
+            AddMoneyDto donation = donations.get(i);
+            CollectionBox collectionBox = boxes.get(donation.getCollectionBoxIdentifier());
+            Currency currency = currencies.get(donation.getCurrencyCode());
+
+            if (collectionBox == null) {
+                results[i] = failure(i, donation, "Collection box not found with identifier: " + donation.getCollectionBoxIdentifier());
+            } else if (collectionBox.getFundraisingEvent() == null) {
+                results[i] = failure(i, donation, "You can only add money to a box that is assigned to a fundraising event");
+            } else if (currency == null) {
+                results[i] = failure(i, donation, "Currency not supported: " + donation.getCurrencyCode());
+            } else {
+                String error = merge(mergedAmounts, collectionBox.getId(), currency, donation.getAmount());
+                results[i] = error != null ? failure(i, donation, error) : DonationResultDto.builder()
+                        .index(i)
+                        .collectionBoxIdentifier(donation.getCollectionBoxIdentifier())
+                        .success(true)
+                        .message("Amount " + donation.getAmount() + " " + donation.getCurrencyCode()
+                                + " added to collection box with identifier " + donation.getCollectionBoxIdentifier())
+                        .build();
+            }
+        }
+
+        if (!mergedAmounts.isEmpty()) {
+            // Every box receiving money is marked, whether or not it was empty, so the batch writes the same rows
+            // in both modes; the rows are already locked and were read under that lock, so none has gone missing
+            collectionBoxRepository.markAllNotEmpty(mergedAmounts.keySet());
+
+            if (donationWriteBehindBuffer.isEnabled()) {
+                bufferAmounts(mergedAmounts);
+            } else {
+                List<MoneyIncrement> increments = new ArrayList<>();
+                mergedAmounts.forEach((collectionBoxId, contents) -> contents.forEach((ordinal, minorUnits) ->
+                        increments.add(new MoneyIncrement(collectionBoxId, currencyRegistry.getCurrencyAt(ordinal).getId(),
+                                new Money(minorUnits, Money.DEFAULT_SCALE).toBigDecimal()))));
+
+                donationLedgerRepository.appendEntries(increments, LedgerEntryType.DONATION);
+            }
+
+            for (CollectionBox collectionBox : boxes.values()) {
+                BoxContents contents = mergedAmounts.get(collectionBox.getId());
+                if (contents != null) {
+                    pendingDonationTotals.addAll(collectionBox.getFundraisingEvent(), contents);
+                }
+            }
+        }
+
+        int succeeded = (int) Arrays.stream(results).filter(DonationResultDto::isSuccess).count();
+
+        return BulkAddMoneyResponseDto.builder()
+                .total(results.length)
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Locks the box rows in id order, so concurrent batches cannot deadlock, and only then reads them, so a box
+     * deleted or reassigned since the request arrived is seen as it is now and fails or follows its new event.
+     */
+    private Map<String, CollectionBox> lockBoxes(Set<String> identifiers) {
+        collectionBoxRepository.lockAllByIdentifierIn(identifiers);
+        return collectionBoxRepository.findAllWithEventByIdentifierIn(identifiers).stream()
+                .collect(Collectors.toMap(CollectionBox::getIdentifier, Function.identity()));
+    }
+
+    /**
+     * Adds the amount to the box's merged contents, returning why it was rejected or {@code null} when it was merged.
+     */
+    private String merge(Map<Long, BoxContents> mergedAmounts, Long collectionBoxId, Currency currency, BigDecimal amount) {
+        try {
+            long minorUnits = Money.of(amount, currency.getCode()).withScale(Money.DEFAULT_SCALE).minorUnits();
+            mergedAmounts.computeIfAbsent(collectionBoxId, id -> new BoxContents())
+                    .add(currencyRegistry.ordinalOf(currency), minorUnits);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        } catch (ArithmeticException e) {
+            return "Amount out of range: " + amount;
+        }
+    }
+
+    private void bufferAmounts(Map<Long, BoxContents> mergedAmounts) {
+        mergedAmounts.forEach((collectionBoxId, contents) -> contents.forEach((ordinal, minorUnits) ->
+                donationWriteBehindBuffer.add(collectionBoxId, currencyRegistry.getCurrencyAt(ordinal).getId(),
+                        new Money(minorUnits, Money.DEFAULT_SCALE))));
+    }
+
+    private String validate(AddMoneyDto donation) {
+        if (donation == null) {
+            return "Donation is required";
+        }
+
+        Set<ConstraintViolation<AddMoneyDto>> violations = validator.validate(donation);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return "Validation failed: " + violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private DonationResultDto failure(int index, AddMoneyDto donation, String message) {
+        return DonationResultDto.builder()
+                .index(index)
+                .collectionBoxIdentifier(donation != null ? donation.getCollectionBoxIdentifier() : null)
+                .success(false)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class DonationStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DonationStreamService.class);
+
+    private final DonationBatchService donationBatchService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader donationReader;
+    private final int chunkSize;
+    private final int maxLineLength;
+
+    public DonationStreamService(DonationBatchService donationBatchService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${charity.donations.stream.chunk-size:500}") int chunkSize,
+                                 @Value("${charity.donations.stream.max-line-length:4096}") int maxLineLength) {
+        this.donationBatchService = donationBatchService;
+        this.objectMapper = objectMapper;
+        this.donationReader = objectMapper.readerFor(AddMoneyDto.class);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxLineLength = Math.max(1, maxLineLength);
+    }
+
+    public void addMoneyFromStream(InputStream input, OutputStream output) throws IOException {
+        LineReader reader = new LineReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), maxLineLength);
+        Chunk chunk = new Chunk(1);
+        long totalSucceeded = 0;
+        long totalFailed = 0;
+        long lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (reader.tooLong()) {
+                // Kept as a null record so the chunk reports it on its own line
+                line = null;
+            } else if (line.isBlank()) {
+                continue;
+            }
+
+            chunk.add(lineNumber, line);
+
+            if (chunk.size() == chunkSize) {
+                DonationStreamProgressDto progress = apply(chunk, totalSucceeded, totalFailed);
+                totalSucceeded = progress.getTotalSucceeded();
+                totalFailed = progress.getTotalFailed();
+                write(output, progress);
+                chunk = new Chunk(chunk.number + 1);
+            }
+        }
+
+        int chunks = chunk.number - 1;
+        if (chunk.size() > 0) {
+            DonationStreamProgressDto progress = apply(chunk, totalSucceeded, totalFailed);
+            totalSucceeded = progress.getTotalSucceeded();
+            totalFailed = progress.getTotalFailed();
+            write(output, progress);
+            chunks = chunk.number;
+        }
+
+        write(output, DonationStreamProgressDto.builder()
+                .chunk(chunks)
+                .lastLine(lineNumber)
+                .totalSucceeded(totalSucceeded)
+                .totalFailed(totalFailed)
+                .complete(true)
+                .errors(List.of())
+                .build());
+    }
+
+    private DonationStreamProgressDto apply(Chunk chunk, long totalSucceeded, long totalFailed) {
+        List<AddMoneyDto> donations = new ArrayList<>(chunk.size());
+        List<Long> donationLines = new ArrayList<>(chunk.size());
+        List<DonationLineErrorDto> errors = new ArrayList<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            if (chunk.lines.get(i) == null) {
+                errors.add(error(chunk.lineNumbers.get(i), null, "Record exceeds the maximum length of " + maxLineLength + " characters"));
+                continue;
+            }
+            try {
+                donations.add(donationReader.readValue(chunk.lines.get(i)));
+                donationLines.add(chunk.lineNumbers.get(i));
+            } catch (JsonProcessingException e) {
+                errors.add(error(chunk.lineNumbers.get(i), null, "Invalid JSON: " + e.getOriginalMessage()));
+            }
+        }
+
+        int succeeded = 0;
+        if (!donations.isEmpty()) {
+            try {
+                BulkAddMoneyResponseDto response = donationBatchService.addMoneyToCollectionBoxes(donations);
+                for (DonationResultDto result : response.getResults()) {
+                    if (result.isSuccess()) {
+                        succeeded++;
+                    } else {
+                        errors.add(error(donationLines.get(result.getIndex()), result.getCollectionBoxIdentifier(), result.getMessage()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to apply donation chunk {}", chunk.number, e);
+                for (int i = 0; i < donations.size(); i++) {
+                    AddMoneyDto donation = donations.get(i);
+                    errors.add(error(donationLines.get(i), donation != null ? donation.getCollectionBoxIdentifier() : null,
+                            "Chunk could not be applied: " + e.getMessage()));
+                }
+            }
+        }
+
+        errors.sort((first, second) -> Long.compare(first.getLine(), second.getLine()));
+
+        return DonationStreamProgressDto.builder()
+                .chunk(chunk.number)
+                .firstLine(chunk.lineNumbers.get(0))
+                .lastLine(chunk.lineNumbers.get(chunk.size() - 1))
+                .succeeded(succeeded)
+                .failed(errors.size())
+                .totalSucceeded(totalSucceeded + succeeded)
+                .totalFailed(totalFailed + errors.size())
+                .complete(false)
+                .errors(errors)
+                .build();
+    }
+
+    private void write(OutputStream output, DonationStreamProgressDto progress) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(progress));
+        output.write('\n');
+        output.flush();
+    }
+
+    private DonationLineErrorDto error(long line, String collectionBoxIdentifier, String message) {
+        return DonationLineErrorDto.builder()
+                .line(line)
+                .collectionBoxIdentifier(collectionBoxIdentifier)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Reads newline-delimited records without ever buffering more than {@code maxLength} characters of one,
+     * so an oversized or unterminated record cannot exhaust the heap. The rest of an oversized record is
+     * skipped and {@link #tooLong()} reports it.
+     */
+    private static final class LineReader {
+
+        private final Reader reader;
+        private final int maxLength;
+        private final StringBuilder line = new StringBuilder();
+        private boolean tooLong;
+
+        private LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+
+            while (c != -1 && c != '\n') {
+                if (!tooLong) {
+                    if (line.length() < maxLength) {
+                        line.append((char) c);
+                    } else if (c != '\r') {
+                        tooLong = true;
+                    }
+                }
+                c = reader.read();
+            }
+
+            if (tooLong) {
+                return "";
+            }
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(length - 1);
+            }
+            return line.toString();
+        }
+
+        boolean tooLong() {
+            return tooLong;
+        }
+    }
+
+    private static final class Chunk {
+
+        private final int number;
+        private final List<Long> lineNumbers = new ArrayList<>();
+        private final List<String> lines = new ArrayList<>();
+
+        private Chunk(int number) {
+            this.number = number;
+        }
+
+        void add(long lineNumber, String line) {
+            lineNumbers.add(lineNumber);
+            lines.add(line);
+        }
+
+        int size() {
+            return lines.size();
+        }
+    }
+}
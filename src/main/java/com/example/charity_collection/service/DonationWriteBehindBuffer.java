@@ -0,0 +1,246 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.BoxContents;
+import com.example.charity_collection.model.LedgerEntryType;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.DonationLedgerRepository;
+import com.example.charity_collection.repository.MoneyIncrement;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class DonationWriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DonationWriteBehindBuffer.class);
+
+    private final boolean enabled;
+    private final Stripe[] stripes;
+    private final CollectionBoxRepository collectionBoxRepository;
+    private final DonationLedgerRepository donationLedgerRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    public DonationWriteBehindBuffer(@Value("${charity.donations.write-behind.enabled:false}") boolean enabled,
+                                     @Value("${charity.donations.write-behind.stripes:64}") int stripeCount,
+                                     CollectionBoxRepository collectionBoxRepository,
+                                     DonationLedgerRepository donationLedgerRepository,
+                                     CurrencyRegistry currencyRegistry,
+                                     TransactionTemplate transactionTemplate) {
+        this.enabled = enabled;
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripeCount))];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.collectionBoxRepository = collectionBoxRepository;
+        this.donationLedgerRepository = donationLedgerRepository;
+        this.currencyRegistry = currencyRegistry;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stages the delta right away, while the caller still holds the box row lock, so emptying or unregistering
+     * the box, which takes that lock before draining it, always sees the delta. A rolled back caller takes the
+     * delta back out; if a flush already wrote it, the negative delta is written by the next flush.
+     */
+    public void add(Long collectionBoxId, Long currencyId, Money amount) {
+        int ordinal = currencyRegistry.ordinalOf(currencyId);
+        long minorUnits = amount.withScale(Money.DEFAULT_SCALE).minorUnits();
+        Stripe stripe = stripeFor(collectionBoxId);
+
+        stripe.add(collectionBoxId, ordinal, minorUnits);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        stripe.add(collectionBoxId, ordinal, Math.negateExact(minorUnits));
+                    }
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${charity.donations.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+
+        for (Stripe stripe : stripes) {
+            Set<Long> pendingIds = stripe.pendingIds();
+            if (pendingIds.isEmpty()) {
+                continue;
+            }
+
+            Map<Long, BoxContents> drained = new HashMap<>();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    // The boxes are locked before their deltas are drained, so an empty or unregister, which drains
+                    // under the same lock, never settles a box while its deltas are held here
+                    List<Long> lockedIds = collectionBoxRepository.lockAllByIdIn(pendingIds);
+                    drained.putAll(stripe.drain(lockedIds));
+                    discardDeleted(stripe, pendingIds, lockedIds);
+                    write(drained);
+                });
+            } catch (RuntimeException e) {
+                logger.error("Failed to flush buffered donations, they will be retried on the next flush", e);
+                drained.forEach(stripe::addAll);
+            }
+        }
+    }
+
+    public void flushCollectionBox(Long collectionBoxId) {
+        if (!enabled) {
+            return;
+        }
+
+        Stripe stripe = stripeFor(collectionBoxId);
+        BoxContents contents = stripe.drain(collectionBoxId);
+        if (contents == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        stripe.addAll(collectionBoxId, contents);
+                    }
+                }
+            });
+        }
+
+        write(Map.of(collectionBoxId, contents));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Flushing buffered donations before shutdown");
+        flush();
+    }
+
+    private void write(Map<Long, BoxContents> drained) {
+        Map<Long, BoxContents> ordered = new TreeMap<>(drained);
+        Set<Long> collectionBoxIds = new TreeSet<>();
+        List<MoneyIncrement> increments = new ArrayList<>();
+
+        // A delta taken back out before it was flushed nets to zero and leaves nothing to write
+        ordered.forEach((collectionBoxId, contents) -> contents.forEach((ordinal, minorUnits) -> {
+            if (minorUnits != 0) {
+                collectionBoxIds.add(collectionBoxId);
+                increments.add(new MoneyIncrement(collectionBoxId, currencyRegistry.getCurrencyAt(ordinal).getId(),
+                        new Money(minorUnits, Money.DEFAULT_SCALE).toBigDecimal()));
+            }
+        }));
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        collectionBoxRepository.markAllNotEmpty(collectionBoxIds);
+        donationLedgerRepository.appendEntries(increments, LedgerEntryType.DONATION);
+    }
+
+    private void discardDeleted(Stripe stripe, Set<Long> pendingIds, List<Long> lockedIds) {
+        if (lockedIds.size() == pendingIds.size()) {
+            return;
+        }
+        Set<Long> deletedIds = new TreeSet<>(pendingIds);
+        lockedIds.forEach(deletedIds::remove);
+        for (Long collectionBoxId : deletedIds) {
+            if (stripe.drain(collectionBoxId) != null) {
+                logger.warn("Discarded buffered donations of deleted collection box {}", collectionBoxId);
+            }
+        }
+    }
+
+    private Stripe stripeFor(Long collectionBoxId) {
+        int hash = Long.hashCode(collectionBoxId);
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, BoxContents> pending = new HashMap<>();
+
+        void add(Long collectionBoxId, int ordinal, long minorUnits) {
+            lock.lock();
+            try {
+                BoxContents contents = pending.computeIfAbsent(collectionBoxId, id -> new BoxContents());
+                contents.add(ordinal, minorUnits);
+                // A rollback that takes the box back to zero leaves nothing worth locking the box for on flush
+                if (minorUnits < 0 && isZero(contents)) {
+                    pending.remove(collectionBoxId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static boolean isZero(BoxContents contents) {
+            boolean[] zero = {true};
+            contents.forEach((ordinal, minorUnits) -> zero[0] &= minorUnits == 0);
+            return zero[0];
+        }
+
+        void addAll(Long collectionBoxId, BoxContents contents) {
+            lock.lock();
+            try {
+                pending.computeIfAbsent(collectionBoxId, id -> new BoxContents()).addAll(contents);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Set<Long> pendingIds() {
+            lock.lock();
+            try {
+                return new TreeSet<>(pending.keySet());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Map<Long, BoxContents> drain(Collection<Long> collectionBoxIds) {
+            lock.lock();
+            try {
+                Map<Long, BoxContents> drained = new HashMap<>();
+                for (Long collectionBoxId : collectionBoxIds) {
+                    BoxContents contents = pending.remove(collectionBoxId);
+                    if (contents != null) {
+                        drained.put(collectionBoxId, contents);
+                    }
+                }
+                return drained;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        BoxContents drain(Long collectionBoxId) {
+            lock.lock();
+            try {
+                return pending.remove(collectionBoxId);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
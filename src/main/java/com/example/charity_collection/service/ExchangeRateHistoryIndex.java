@@ -0,0 +1,125 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.CrossRate;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.ExchangeRateHistoryRepository;
+import com.example.charity_collection.repository.HistoricalRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class ExchangeRateHistoryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateHistoryIndex.class);
+    private static final String BASE_CURRENCY_CODE = "PLN";
+
+    private final ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(new int[1], new int[0], new long[0]);
+
+    public ExchangeRateHistoryIndex(ExchangeRateHistoryRepository exchangeRateHistoryRepository, CurrencyRegistry currencyRegistry) {
+        this.exchangeRateHistoryRepository = exchangeRateHistoryRepository;
+        this.currencyRegistry = currencyRegistry;
+    }
+
+    public CrossRate rateAsOf(Currency fromCurrency, Currency toCurrency, LocalDate date) {
+        if (fromCurrency.getCode().equals(toCurrency.getCode())) {
+            return CrossRate.ONE;
+        }
+
+        Snapshot current = snapshot;
+        long epochDay = date.toEpochDay();
+        long fromPlnRate = plnRateAsOf(current, fromCurrency, epochDay);
+        long toPlnRate = plnRateAsOf(current, toCurrency, epochDay);
+        if (fromPlnRate == 0 || toPlnRate == 0) {
+            return CrossRate.MISSING;
+        }
+
+        return new CrossRate(fromPlnRate, toPlnRate);
+    }
+
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshNow();
+                }
+            });
+        } else {
+            refreshNow();
+        }
+    }
+
+    private void refreshNow() {
+        lock.lock();
+        try {
+            List<HistoricalRate> rates = exchangeRateHistoryRepository.findAllRates();
+
+            int[] ordinals = new int[rates.size()];
+            for (int i = 0; i < rates.size(); i++) {
+                ordinals[i] = currencyRegistry.ordinalOf(rates.get(i).currencyId());
+            }
+
+            int[] offsets = new int[currencyRegistry.size() + 1];
+            for (int ordinal : ordinals) {
+                offsets[ordinal + 1]++;
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+
+            int[] next = offsets.clone();
+            int[] days = new int[rates.size()];
+            long[] plnRates = new long[rates.size()];
+            for (int i = 0; i < rates.size(); i++) {
+                int position = next[ordinals[i]]++;
+                days[position] = (int) rates.get(i).effectiveDate().toEpochDay();
+                plnRates[position] = Money.rateUnits(rates.get(i).plnRate());
+            }
+
+            snapshot = new Snapshot(offsets, days, plnRates);
+            logger.info("Loaded exchange rate history index with {} rates", rates.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long plnRateAsOf(Snapshot current, Currency currency, long epochDay) {
+        if (BASE_CURRENCY_CODE.equals(currency.getCode())) {
+            return Money.RATE_ONE;
+        }
+
+        int ordinal = currencyRegistry.ordinalOf(currency);
+        if (ordinal + 1 >= current.offsets().length) {
+            return 0;
+        }
+
+        int low = current.offsets()[ordinal];
+        int high = current.offsets()[ordinal + 1] - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (current.days()[middle] <= epochDay) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return found < 0 ? 0 : current.plnRates()[found];
+    }
+
+    private record Snapshot(int[] offsets, int[] days, long[] plnRates) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.CrossRate;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.ExchangeRate;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.ExchangeRateRepository;
+import com.example.charity_collection.repository.RateUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class ExchangeRateMatrix {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateMatrix.class);
+    private static final String BASE_CURRENCY_CODE = "PLN";
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final ExchangeRateSnapshotStore exchangeRateSnapshotStore;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(0, new long[0]);
+
+    public ExchangeRateMatrix(ExchangeRateRepository exchangeRateRepository, CurrencyRegistry currencyRegistry,
+                              ExchangeRateSnapshotStore exchangeRateSnapshotStore) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.currencyRegistry = currencyRegistry;
+        this.exchangeRateSnapshotStore = exchangeRateSnapshotStore;
+    }
+
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    public Snapshot refresh(long seenVersion) {
+        lock.lock();
+        try {
+            if (snapshot.version() != seenVersion) {
+                return snapshot;
+            }
+            return reload();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshNow();
+                }
+            });
+        } else {
+            refreshNow();
+        }
+    }
+
+    public List<RateUpdate> restore() {
+        lock.lock();
+        try {
+            if (snapshot.version() != 0) {
+                return List.of();
+            }
+
+            Optional<ExchangeRateSnapshotStore.StoredRates> stored = exchangeRateSnapshotStore.read();
+            if (stored.isEmpty()) {
+                return List.of();
+            }
+
+            String[] codes = stored.get().codes();
+            long[] storedRates = stored.get().plnRates();
+            Currency[] currencies = new Currency[codes.length];
+            Currency baseCurrency = null;
+            for (int i = 0; i < codes.length; i++) {
+                currencies[i] = currencyRegistry.findByCode(codes[i]).orElse(null);
+                if (currencies[i] != null) {
+                    currencyRegistry.ordinalOf(currencies[i]);
+                    if (BASE_CURRENCY_CODE.equals(codes[i])) {
+                        baseCurrency = currencies[i];
+                    }
+                }
+            }
+            if (baseCurrency == null) {
+                return List.of();
+            }
+
+            long[] plnRates = new long[currencyRegistry.size()];
+            List<RateUpdate> restoredRates = new ArrayList<>();
+            for (int i = 0; i < codes.length; i++) {
+                if (currencies[i] == null || storedRates[i] == 0) {
+                    continue;
+                }
+                plnRates[currencyRegistry.ordinalOf(currencies[i])] = storedRates[i];
+                if (currencies[i] != baseCurrency) {
+                    restoredRates.add(new RateUpdate(currencies[i].getId(), baseCurrency.getId(),
+                            BigDecimal.valueOf(storedRates[i], Money.RATE_SCALE)));
+                }
+            }
+
+            snapshot = new Snapshot(stored.get().version(), plnRates);
+            logger.info("Restored exchange rate matrix version {} with {} rates from snapshot", snapshot.version(), restoredRates.size());
+            return restoredRates;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshNow() {
+        lock.lock();
+        try {
+            reload();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Snapshot reload() {
+        List<ExchangeRate> exchangeRates = exchangeRateRepository.findAll().stream()
+                .filter(exchangeRate -> BASE_CURRENCY_CODE.equals(exchangeRate.getToCurrency().getCode()))
+                .toList();
+
+        int[] ordinals = new int[exchangeRates.size()];
+        int baseOrdinal = -1;
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            ordinals[i] = currencyRegistry.ordinalOf(exchangeRates.get(i).getFromCurrency());
+            baseOrdinal = currencyRegistry.ordinalOf(exchangeRates.get(i).getToCurrency());
+        }
+
+        int size = currencyRegistry.size();
+        long[] plnRates = new long[size];
+        for (int i = 0; i < exchangeRates.size(); i++) {
+            plnRates[ordinals[i]] = Money.rateUnits(exchangeRates.get(i).getRate());
+        }
+        if (baseOrdinal >= 0) {
+            plnRates[baseOrdinal] = Money.RATE_ONE;
+        }
+
+        Snapshot reloaded = new Snapshot(Math.max(snapshot.version() + 1, System.currentTimeMillis()), plnRates);
+        snapshot = reloaded;
+        logger.info("Loaded exchange rate matrix version {} with {} rates", reloaded.version(), exchangeRates.size());
+
+        if (!exchangeRates.isEmpty() && exchangeRateSnapshotStore.isEnabled()) {
+            String[] codes = new String[size];
+            for (int i = 0; i < size; i++) {
+                codes[i] = currencyRegistry.getCurrencyAt(i).getCode();
+            }
+            exchangeRateSnapshotStore.write(reloaded.version(), codes, plnRates);
+        }
+        return reloaded;
+    }
+
+    public record Snapshot(long version, long[] plnRates) {
+
+        public CrossRate rate(int fromOrdinal, int toOrdinal) {
+            long fromRate = plnRate(fromOrdinal);
+            long toRate = plnRate(toOrdinal);
+            if (fromRate == 0 || toRate == 0) {
+                return CrossRate.MISSING;
+            }
+            return fromOrdinal == toOrdinal ? CrossRate.ONE : new CrossRate(fromRate, toRate);
+        }
+
+        public long plnRate(int ordinal) {
+            return ordinal < plnRates.length ? plnRates[ordinal] : 0;
+        }
+    }
+}
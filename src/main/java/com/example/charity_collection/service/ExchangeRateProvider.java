@@ -0,0 +1,9 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.NbpApiDto;
+import reactor.core.publisher.Mono;
+
+public interface ExchangeRateProvider {
+
+    Mono<NbpApiDto> fetchLatestTable();
+}
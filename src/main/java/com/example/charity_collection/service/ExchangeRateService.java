@@ -1,129 +1,363 @@
 package com.example.charity_collection.service;
 
+import com.example.charity_collection.dto.ExchangeRateDto;
+import com.example.charity_collection.dto.ExchangeRateUpdateJobDto;
 import com.example.charity_collection.dto.NbpApiDto;
+import com.example.charity_collection.model.CrossRate;
 import com.example.charity_collection.model.Currency;
-import com.example.charity_collection.model.ExchangeRate;
+import com.example.charity_collection.model.Money;
 import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateHistoryRepository;
 import com.example.charity_collection.repository.ExchangeRateRepository;
+import com.example.charity_collection.repository.HistoricalRate;
+import com.example.charity_collection.repository.RateUpdate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Optional;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class ExchangeRateService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExchangeRateService.class);
-    private static final String NBP_API_URL = "https://api.nbp.pl/api/exchangerates/tables/A?format=json";
+    private static final int MAX_RECENT_JOBS = 100;
 
-    private final RestTemplate restTemplate;
+    private final ExchangeRateProvider exchangeRateProvider;
     private final CurrencyRepository currencyRepository;
     private final ExchangeRateRepository exchangeRateRepository;
+    private final ExchangeRateMatrix exchangeRateMatrix;
+    private final ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+    private final ExchangeRateHistoryIndex exchangeRateHistoryIndex;
+    private final CurrencyRegistry currencyRegistry;
+    private final PendingDonationTotals pendingDonationTotals;
+    private final TransactionTemplate transactionTemplate;
+    private final Scheduler exchangeRateScheduler;
+    private final boolean updateOnStartup;
+    private final boolean importCurrencies;
+    private final AtomicReference<ExchangeRateUpdateJob> runningJob = new AtomicReference<>();
+    private final ReentrantLock recentJobsLock = new ReentrantLock();
+    private final LinkedHashMap<String, ExchangeRateUpdateJob> recentJobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ExchangeRateUpdateJob> eldest) {
+            return size() > MAX_RECENT_JOBS;
+        }
+    };
+    private volatile TableVersion appliedTable;
 
     public ExchangeRateService(CurrencyRepository currencyRepository,
                                ExchangeRateRepository exchangeRateRepository,
-                               RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+                               ExchangeRateMatrix exchangeRateMatrix,
+                               ExchangeRateHistoryRepository exchangeRateHistoryRepository,
+                               ExchangeRateHistoryIndex exchangeRateHistoryIndex,
+                               CurrencyRegistry currencyRegistry,
+                               PendingDonationTotals pendingDonationTotals,
+                               ExchangeRateProvider exchangeRateProvider,
+                               TransactionTemplate transactionTemplate,
+                               @Qualifier("exchangeRateScheduler") Scheduler exchangeRateScheduler,
+                               @Value("${charity.rates.update-on-startup:true}") boolean updateOnStartup,
+                               @Value("${charity.rates.import-currencies:false}") boolean importCurrencies) {
+        this.exchangeRateProvider = exchangeRateProvider;
         this.currencyRepository = currencyRepository;
         this.exchangeRateRepository = exchangeRateRepository;
+        this.exchangeRateMatrix = exchangeRateMatrix;
+        this.exchangeRateHistoryRepository = exchangeRateHistoryRepository;
+        this.exchangeRateHistoryIndex = exchangeRateHistoryIndex;
+        this.currencyRegistry = currencyRegistry;
+        this.pendingDonationTotals = pendingDonationTotals;
+        this.transactionTemplate = transactionTemplate;
+        this.exchangeRateScheduler = exchangeRateScheduler;
+        this.updateOnStartup = updateOnStartup;
+        this.importCurrencies = importCurrencies;
     }
 
     @EventListener(ApplicationReadyEvent.class)
     public void onApplicationReady() {
-        logger.info("Initializing exchange rates on application startup");
-        updateExchangeRates();
+        List<RateUpdate> restoredRates = exchangeRateMatrix.restore();
+
+        if (updateOnStartup) {
+            logger.info("Initializing exchange rates on application startup");
+            seedRestoredRates(restoredRates).then(updateExchangeRates()).subscribe();
+        } else if (restoredRates.isEmpty()) {
+            refreshRateIndexes();
+        } else {
+            seedRestoredRates(restoredRates).then(Mono.fromRunnable(this::refreshRateIndexes)).subscribe();
+        }
     }
 
     @Scheduled(cron = "0 0 14 * * ?")
-    @Transactional
-    public void updateExchangeRates() {
-        logger.info("Starting daily exchange rates update");
+    public Mono<Void> updateExchangeRates() {
+        return Mono.defer(() -> startUpdate().completion());
+    }
 
+    public ExchangeRateUpdateJobDto startUpdateJob() {
+        return toDto(startUpdate());
+    }
+
+    public ExchangeRateUpdateJobDto getUpdateJob(String jobId) {
+        ExchangeRateUpdateJob job;
+        recentJobsLock.lock();
         try {
-            NbpApiDto[] response = restTemplate.getForObject(NBP_API_URL, NbpApiDto[].class);
+            job = recentJobs.get(jobId);
+        } finally {
+            recentJobsLock.unlock();
+        }
+        if (job == null) {
+            throw new IllegalArgumentException("Exchange rate update job not found: " + jobId);
+        }
+        return toDto(job);
+    }
 
-            if (response.length > 0) {
-                NbpApiDto apiData = response[0];
+    private ExchangeRateUpdateJob startUpdate() {
+        while (true) {
+            ExchangeRateUpdateJob running = runningJob.get();
+            if (running != null) {
+                logger.info("Exchange rate update {} is already running, joining it", running.getId());
+                return running;
+            }
 
-                Currency pln = currencyRepository.findByCode("PLN")
-                        .orElseThrow(() -> new IllegalStateException("PLN currency not found in database"));
+            ExchangeRateUpdateJob job = new ExchangeRateUpdateJob(UUID.randomUUID().toString(), Instant.now());
+            if (runningJob.compareAndSet(null, job)) {
+                recentJobsLock.lock();
+                try {
+                    recentJobs.put(job.getId(), job);
+                } finally {
+                    recentJobsLock.unlock();
+                }
+                runUpdate(job).subscribe();
+                return job;
+            }
+        }
+    }
 
-                for (Currency currency : currencyRepository.findAll()) {
-                    if ("PLN".equals(currency.getCode())) {
-                        continue;
-                    }
+    private Mono<Void> runUpdate(ExchangeRateUpdateJob job) {
+        logger.info("Starting exchange rates update {}", job.getId());
 
-                    Optional<NbpApiDto.RateDto> rateDto = apiData.getRates().stream()
-                            .filter(rate -> rate.getCode().equals(currency.getCode()))
-                            .findFirst();
-
-                    if (rateDto.isPresent()) {
-                        BigDecimal currencyToPlnRate = new BigDecimal(rateDto.get().getMid());
-                        saveOrUpdateExchangeRate(pln, currency, BigDecimal.ONE.divide(currencyToPlnRate, 6, RoundingMode.HALF_UP));
-                        saveOrUpdateExchangeRate(currency, pln, currencyToPlnRate);
-                        updateCrossRates(currency, currencyToPlnRate);
-                    } else {
-                        logger.warn("Rate for currency " + currency.getCode() + " not found in NBP API response");
-                    }
-                }
+        return exchangeRateProvider.fetchLatestTable()
+                .publishOn(exchangeRateScheduler)
+                .map(table -> applyIfNewTable(table, job))
+                .switchIfEmpty(Mono.fromCallable(() -> {
+                    logger.error("Invalid response format from NBP API");
+                    job.failed("Invalid response format from NBP API");
+                    return true;
+                }))
+                .onErrorResume(e -> {
+                    logger.error("Failed to update exchange rates", e);
+                    job.failed(e.getMessage());
+                    return Mono.just(true);
+                })
+                .flatMap(refresh -> refresh ? Mono.fromRunnable(() -> {
+                    job.moveTo(ExchangeRateUpdateJob.Stage.REFRESHING);
+                    refreshRateIndexes();
+                }) : Mono.empty())
+                .then()
+                .onErrorResume(e -> {
+                    logger.error("Failed to refresh exchange rate indexes", e);
+                    job.failed(e.getMessage());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> {
+                    runningJob.compareAndSet(job, null);
+                    job.finish();
+                    logger.info("Exchange rates update {} finished with status {} in {} ms",
+                            job.getId(), job.getStatus(), job.getDuration().toMillis());
+                });
+    }
 
-                logger.info("Exchange rates successfully updated");
-            } else {
-                logger.error("Invalid response format from NBP API");
-            }
-        } catch (RestClientException e) {
-            logger.error("Failed to fetch exchange rates", e);
-        } catch (Exception e) {
-            logger.error("Error occured", e);
+    public ExchangeRateDto getExchangeRate(String fromCode, String toCode, LocalDate date) {
+        Currency fromCurrency = currencyRegistry.findByCode(fromCode)
+                .orElseThrow(() -> new IllegalArgumentException("Currency not found: " + fromCode));
+        Currency toCurrency = currencyRegistry.findByCode(toCode)
+                .orElseThrow(() -> new IllegalArgumentException("Currency not found: " + toCode));
+
+        CrossRate rate = exchangeRateHistoryIndex.rateAsOf(fromCurrency, toCurrency, date);
+        if (rate.isMissing()) {
+            throw new IllegalArgumentException("Exchange rate not found for currency pair: " + fromCode + " to " + toCode + " as of " + date);
         }
+
+        return ExchangeRateDto.builder()
+                .fromCurrency(fromCode)
+                .toCurrency(toCode)
+                .date(date)
+                .rate(rate.toBigDecimal(Money.RATE_SCALE))
+                .build();
     }
 
+    private boolean applyIfNewTable(NbpApiDto table, ExchangeRateUpdateJob job) {
+        TableVersion version = new TableVersion(table.getNo(), table.getEffectiveDate());
+        if (version.equals(appliedTable)) {
+            logger.info("Exchange rate table {} from {} is already applied, skipping update", table.getNo(), table.getEffectiveDate());
+            job.skipped();
+            return false;
+        }
 
-    private void saveOrUpdateExchangeRate(Currency fromCurrency, Currency toCurrency, BigDecimal rate) {
+        job.moveTo(ExchangeRateUpdateJob.Stage.APPLYING);
+        job.applied(transactionTemplate.execute(status -> applyTable(table)));
+        if (table.getNo() != null && table.getEffectiveDate() != null) {
+            appliedTable = version;
+        }
+        return true;
+    }
 
-        ExchangeRate exchangeRate = exchangeRateRepository
-                .findByFromCurrencyAndToCurrency(fromCurrency, toCurrency)
-                .orElse(new ExchangeRate());
+    private int applyTable(NbpApiDto table) {
+        List<Currency> currencies = new ArrayList<>(currencyRepository.findAll());
+        if (importCurrencies) {
+            currencies.addAll(importMissingCurrencies(table, currencies));
+        }
+        Map<Long, PublishedRate> publishedRates = publishedPlnRates(table, currencies);
 
-        exchangeRate.setFromCurrency(fromCurrency);
-        exchangeRate.setToCurrency(toCurrency);
-        exchangeRate.setRate(rate);
+        List<RateUpdate> changedRates = calculateChangedRates(currencies, publishedRates);
+        exchangeRateRepository.upsertRates(changedRates);
+        recordHistory(table, publishedRates);
 
-        exchangeRateRepository.save(exchangeRate);
+        logger.info("Exchange rates successfully updated, {} rates changed", changedRates.size());
+        return changedRates.size();
     }
 
-    private void updateCrossRates(Currency baseCurrency, BigDecimal plnRate) {
+    private Mono<Void> seedRestoredRates(List<RateUpdate> restoredRates) {
+        if (restoredRates.isEmpty()) {
+            return Mono.empty();
+        }
 
-        for(Currency targetCurrency : currencyRepository.findAll()) {
-            if(baseCurrency.equals(targetCurrency) || "PLN".equals(targetCurrency.getCode())) {
-                continue;
+        return Mono.<Void>fromRunnable(() -> transactionTemplate.executeWithoutResult(status -> {
+                    if (exchangeRateRepository.count() == 0) {
+                        exchangeRateRepository.upsertRates(restoredRates);
+                        logger.info("Stored {} exchange rates restored from snapshot", restoredRates.size());
+                    }
+                }))
+                .subscribeOn(exchangeRateScheduler)
+                .onErrorResume(e -> {
+                    logger.error("Failed to store exchange rates restored from snapshot", e);
+                    return Mono.empty();
+                });
+    }
+
+    private void refreshRateIndexes() {
+        exchangeRateMatrix.refreshAfterCommit();
+        exchangeRateHistoryIndex.refreshAfterCommit();
+        pendingDonationTotals.revalue();
+    }
+
+    private List<Currency> importMissingCurrencies(NbpApiDto apiData, List<Currency> currencies) {
+        Set<String> knownCodes = new HashSet<>();
+        for (Currency currency : currencies) {
+            knownCodes.add(currency.getCode());
+        }
+
+        List<Currency> missingCurrencies = new ArrayList<>();
+        for (NbpApiDto.RateDto rate : apiData.getRates()) {
+            if (rate.getCode() != null && rate.getCode().length() == 3 && knownCodes.add(rate.getCode())) {
+                Currency currency = new Currency();
+                currency.setCode(rate.getCode());
+                currency.setName(rate.getCurrency() != null ? rate.getCurrency() : rate.getCode());
+                missingCurrencies.add(currency);
             }
+        }
+        if (missingCurrencies.isEmpty()) {
+            return List.of();
+        }
 
-            Optional<ExchangeRate> targetToPlnRate = exchangeRateRepository.findByFromCurrencyAndToCurrency(
-                    targetCurrency,
-                    currencyRepository.findByCode("PLN").orElseThrow()
-            );
+        List<Currency> imported = currencyRepository.saveAll(missingCurrencies);
+        logger.info("Imported {} currencies from NBP table {}", imported.size(), apiData.getNo());
+        return imported;
+    }
 
-            if(targetToPlnRate.isPresent()) {
-                BigDecimal crossRate = plnRate.divide(targetToPlnRate.get().getRate(), 6, RoundingMode.HALF_UP);
-                saveOrUpdateExchangeRate(baseCurrency, targetCurrency, crossRate);
+    private Map<Long, PublishedRate> publishedPlnRates(NbpApiDto apiData, List<Currency> currencies) {
+        Map<String, NbpApiDto.RateDto> rates = new HashMap<>();
+        for (NbpApiDto.RateDto rate : apiData.getRates()) {
+            rates.put(rate.getCode(), rate);
+        }
 
-                BigDecimal reversedCrossRate = BigDecimal.ONE.divide(crossRate, 6, RoundingMode.HALF_UP);
-                saveOrUpdateExchangeRate(targetCurrency, baseCurrency, reversedCrossRate);
+        Map<Long, PublishedRate> publishedRates = new LinkedHashMap<>();
+        for (Currency currency : currencies) {
+            NbpApiDto.RateDto rate = rates.get(currency.getCode());
+            if (rate != null && rate.getMid() != null) {
+                publishedRates.put(currency.getId(), new PublishedRate(new BigDecimal(rate.getMid()), rate.getEffectiveDate()));
             }
         }
+        return publishedRates;
     }
 
-}
+    private void recordHistory(NbpApiDto apiData, Map<Long, PublishedRate> publishedRates) {
+        if (apiData.getEffectiveDate() == null) {
+            logger.warn("NBP table {} has no effective date, skipping rate history", apiData.getNo());
+            return;
+        }
+
+        LocalDate tableDate = LocalDate.parse(apiData.getEffectiveDate());
+        List<HistoricalRate> historicalRates = new ArrayList<>();
+        for (Map.Entry<Long, PublishedRate> rate : publishedRates.entrySet()) {
+            LocalDate effectiveDate = rate.getValue().effectiveDate() != null ? LocalDate.parse(rate.getValue().effectiveDate()) : tableDate;
+            historicalRates.add(new HistoricalRate(rate.getKey(), effectiveDate, rate.getValue().mid().setScale(Money.RATE_SCALE, RoundingMode.HALF_UP)));
+        }
+        exchangeRateHistoryRepository.recordRates(historicalRates);
+    }
 
+    private List<RateUpdate> calculateChangedRates(List<Currency> currencies, Map<Long, PublishedRate> publishedRates) {
+        Currency pln = currencies.stream()
+                .filter(currency -> "PLN".equals(currency.getCode()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("PLN currency not found in database"));
 
+        Map<Long, BigDecimal> storedRates = new HashMap<>();
+        for (RateUpdate rate : exchangeRateRepository.findAllRates()) {
+            if (rate.toCurrencyId().equals(pln.getId())) {
+                storedRates.put(rate.fromCurrencyId(), rate.rate());
+            }
+        }
 
+        List<RateUpdate> changedRates = new ArrayList<>();
+        for (Currency currency : currencies) {
+            if (currency.getId().equals(pln.getId())) {
+                continue;
+            }
+
+            PublishedRate published = publishedRates.get(currency.getId());
+            if (published == null) {
+                logger.warn("Rate for currency " + currency.getCode() + " not found in NBP API response");
+                continue;
+            }
+
+            BigDecimal rate = published.mid().setScale(Money.RATE_SCALE, RoundingMode.HALF_UP);
+            BigDecimal storedRate = storedRates.get(currency.getId());
+            if (storedRate == null || storedRate.compareTo(rate) != 0) {
+                changedRates.add(new RateUpdate(currency.getId(), pln.getId(), rate));
+            }
+        }
+
+        return changedRates;
+    }
+
+    private ExchangeRateUpdateJobDto toDto(ExchangeRateUpdateJob job) {
+        return ExchangeRateUpdateJobDto.builder()
+                .id(job.getId())
+                .status(job.getStatus().name())
+                .stage(job.getStage().name())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .durationMillis(job.getDuration().toMillis())
+                .ratesChanged(job.getRatesChanged())
+                .error(job.getError())
+                .build();
+    }
+
+    private record TableVersion(String no, String effectiveDate) {
+    }
+
+    private record PublishedRate(BigDecimal mid, String effectiveDate) {
+    }
+}
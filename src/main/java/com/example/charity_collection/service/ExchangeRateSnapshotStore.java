@@ -0,0 +1,108 @@
+package com.example.charity_collection.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+@Component
+public class ExchangeRateSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateSnapshotStore.class);
+    private static final int MAGIC = 0x43524D58;
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_BYTES = Integer.BYTES * 3 + Long.BYTES;
+
+    private final Path file;
+
+    public ExchangeRateSnapshotStore(@Value("${charity.rates.snapshot.file:}") String file) {
+        this.file = file.isBlank() ? null : Path.of(file);
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    public Optional<StoredRates> read() {
+        if (file == null || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                logger.warn("Ignoring exchange rate snapshot {} with unknown format", file);
+                return Optional.empty();
+            }
+
+            long version = buffer.getLong();
+            int size = buffer.getInt();
+            String[] codes = new String[size];
+            for (int i = 0; i < size; i++) {
+                byte[] code = new byte[buffer.get()];
+                buffer.get(code);
+                codes[i] = new String(code, StandardCharsets.US_ASCII);
+            }
+
+            long[] plnRates = new long[size];
+            buffer.asLongBuffer().get(plnRates);
+            return Optional.of(new StoredRates(version, codes, plnRates));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to read exchange rate snapshot {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    public void write(long version, String[] codes, long[] plnRates) {
+        if (file == null) {
+            return;
+        }
+
+        int codeBytes = 0;
+        for (String code : codes) {
+            codeBytes += 1 + code.length();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + codeBytes + plnRates.length * Long.BYTES);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(version).putInt(codes.length);
+        for (String code : codes) {
+            byte[] bytes = code.getBytes(StandardCharsets.US_ASCII);
+            buffer.put((byte) bytes.length).put(bytes);
+        }
+        buffer.asLongBuffer().put(plnRates);
+        buffer.position(buffer.capacity()).flip();
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(true);
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write exchange rate snapshot {}", file, e);
+        }
+    }
+
+    public record StoredRates(long version, String[] codes, long[] plnRates) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.charity_collection.service;
+
+import lombok.Getter;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class ExchangeRateUpdateJob {
+
+    public enum Status {
+        RUNNING, SUCCEEDED, UNCHANGED, FAILED
+    }
+
+    public enum Stage {
+        FETCHING, APPLYING, REFRESHING, DONE
+    }
+
+    @Getter
+    private final String id;
+    @Getter
+    private final Instant startedAt;
+    private final Sinks.Empty<Void> completion = Sinks.empty();
+    @Getter
+    private volatile Status status = Status.RUNNING;
+    @Getter
+    private volatile Stage stage = Stage.FETCHING;
+    @Getter
+    private volatile Instant finishedAt;
+    @Getter
+    private volatile int ratesChanged;
+    private volatile boolean unchanged;
+    @Getter
+    private volatile String error;
+
+    ExchangeRateUpdateJob(String id, Instant startedAt) {
+        this.id = id;
+        this.startedAt = startedAt;
+    }
+
+    public Duration getDuration() {
+        Instant finished = finishedAt;
+        return Duration.between(startedAt, finished != null ? finished : Instant.now());
+    }
+
+    Mono<Void> completion() {
+        return completion.asMono();
+    }
+
+    void moveTo(Stage stage) {
+        this.stage = stage;
+    }
+
+    void applied(int ratesChanged) {
+        this.ratesChanged = ratesChanged;
+    }
+
+    void skipped() {
+        this.unchanged = true;
+    }
+
+    void failed(String error) {
+        if (this.error == null) {
+            this.error = error;
+        }
+    }
+
+    void finish() {
+        finishedAt = Instant.now();
+        stage = Stage.DONE;
+        status = error != null ? Status.FAILED : unchanged ? Status.UNCHANGED : Status.SUCCEEDED;
+        completion.tryEmitEmpty();
+    }
+}
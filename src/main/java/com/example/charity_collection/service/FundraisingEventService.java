@@ -3,7 +3,6 @@ package com.example.charity_collection.service;
 import com.example.charity_collection.dto.FundraisingEventDto;
 import com.example.charity_collection.model.Currency;
 import com.example.charity_collection.model.FundraisingEvent;
-import com.example.charity_collection.repository.CurrencyRepository;
 import com.example.charity_collection.repository.FundraisingEventRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,11 +13,11 @@ import java.math.BigDecimal;
 public class FundraisingEventService {
 
     private final FundraisingEventRepository fundraisingEventRepository;
-    private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
 
-    public FundraisingEventService(FundraisingEventRepository fundraisingEventRepository, CurrencyRepository currencyRepository) {
+    public FundraisingEventService(FundraisingEventRepository fundraisingEventRepository, CurrencyRegistry currencyRegistry) {
         this.fundraisingEventRepository = fundraisingEventRepository;
-        this.currencyRepository = currencyRepository;
+        this.currencyRegistry = currencyRegistry;
     }
 
     @Transactional
@@ -28,7 +27,7 @@ public class FundraisingEventService {
             throw new IllegalArgumentException("Start date must be before end date");
         }
 
-        Currency currency = currencyRepository.findByCode(eventDto.getCurrencyCode())
+        Currency currency = currencyRegistry.findByCode(eventDto.getCurrencyCode())
                 .orElseThrow(() -> new IllegalArgumentException("Currency not supported: " + eventDto.getCurrencyCode()));
 
         FundraisingEvent event = FundraisingEvent.builder()
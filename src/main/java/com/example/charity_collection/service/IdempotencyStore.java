@@ -0,0 +1,176 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.MessageResponseDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Component
+public class IdempotencyStore {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Segment[] segments;
+    private final int maxKeysPerSegment;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    @Autowired
+    public IdempotencyStore(@Value("${charity.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${charity.idempotency.max-keys:1000000}") int maxKeys,
+                            @Value("${charity.idempotency.stripes:64}") int stripeCount) {
+        this(ttl, maxKeys, stripeCount, Clock.systemUTC());
+    }
+
+    IdempotencyStore(Duration ttl, int maxKeys, int stripeCount, Clock clock) {
+        this.segments = new Segment[Integer.highestOneBit(Math.max(1, stripeCount))];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+        this.maxKeysPerSegment = Math.max(1, maxKeys / segments.length);
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public MessageResponseDto execute(String scope, String idempotencyKey, String fingerprint,
+                                      Supplier<MessageResponseDto> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must contain between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = scope + ":" + idempotencyKey;
+        Segment segment = segmentFor(key);
+        long now = clock.millis();
+        Entry entry = new Entry(Fingerprint.of(fingerprint), now + ttlMillis);
+        Entry existing = segment.putIfAbsent(key, entry, now);
+
+        if (existing != null) {
+            if (!existing.fingerprint.equals(entry.fingerprint)) {
+                throw new IllegalArgumentException("Idempotency-Key " + idempotencyKey + " was already used for a different request");
+            }
+            return await(existing.response);
+        }
+
+        try {
+            MessageResponseDto response = action.get();
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            segment.remove(key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private MessageResponseDto await(CompletableFuture<MessageResponseDto> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    // The first 128 bits of the request's SHA-256, so a stored key costs the same whatever the request looks like
+    private record Fingerprint(long high, long low) {
+
+        static Fingerprint of(String request) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+                ByteBuffer buffer = ByteBuffer.wrap(digest);
+                return new Fingerprint(buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Fingerprint fingerprint;
+        private final long expiresAt;
+        private final CompletableFuture<MessageResponseDto> response = new CompletableFuture<>();
+
+        private Entry(Fingerprint fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isRetained(long now) {
+            return expiresAt > now || !response.isDone();
+        }
+    }
+
+    private final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        Entry putIfAbsent(String key, Entry entry, long now) {
+            lock.lock();
+            try {
+                Entry existing = entries.get(key);
+                if (existing != null && existing.isRetained(now)) {
+                    return existing;
+                }
+
+                entries.remove(key);
+                if (!evict(now)) {
+                    throw new IllegalStateException("Too many requests with an Idempotency-Key are in progress, retry later");
+                }
+                entries.put(key, entry);
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(String key, Entry entry) {
+            lock.lock();
+            try {
+                entries.remove(key, entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Only completed entries are evicted: dropping one still in progress would let a retry run the action again
+        private boolean evict(long now) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                if (!eldest.response.isDone()) {
+                    continue;
+                }
+                if (eldest.expiresAt > now && entries.size() < maxKeysPerSegment) {
+                    return true;
+                }
+                iterator.remove();
+            }
+            return entries.size() < maxKeysPerSegment;
+        }
+    }
+}
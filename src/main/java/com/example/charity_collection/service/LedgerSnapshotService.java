@@ -0,0 +1,49 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.repository.CollectionBoxMoneyRepository;
+import com.example.charity_collection.repository.DonationLedgerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class LedgerSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerSnapshotService.class);
+
+    private final int minEntries;
+    private final DonationLedgerRepository donationLedgerRepository;
+    private final CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public LedgerSnapshotService(@Value("${charity.ledger.snapshot.min-entries:100}") int minEntries,
+                                 DonationLedgerRepository donationLedgerRepository,
+                                 CollectionBoxMoneyRepository collectionBoxMoneyRepository,
+                                 TransactionTemplate transactionTemplate) {
+        this.minEntries = Math.max(1, minEntries);
+        this.donationLedgerRepository = donationLedgerRepository;
+        this.collectionBoxMoneyRepository = collectionBoxMoneyRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${charity.ledger.snapshot.interval-ms:60000}")
+    public void snapshotCollectionBoxes() {
+        int snapshotted = 0;
+
+        for (Long collectionBoxId : donationLedgerRepository.findCollectionBoxIdsWithUnsnapshottedEntries(minEntries)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> collectionBoxMoneyRepository.snapshotLedger(collectionBoxId));
+                snapshotted++;
+            } catch (RuntimeException e) {
+                logger.error("Failed to snapshot ledger of collection box {}", collectionBoxId, e);
+            }
+        }
+
+        if (snapshotted > 0) {
+            logger.info("Snapshotted donation ledger of {} collection boxes", snapshotted);
+        }
+    }
+}
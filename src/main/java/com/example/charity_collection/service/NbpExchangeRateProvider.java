@@ -0,0 +1,189 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.NbpApiDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeoutException;
+
+@Component
+@ConditionalOnProperty(name = "charity.rates.provider", havingValue = "nbp", matchIfMissing = true)
+public class NbpExchangeRateProvider implements ExchangeRateProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(NbpExchangeRateProvider.class);
+    private static final double RETRY_JITTER = 0.5;
+
+    private final WebClient webClient;
+    private final String url;
+    private final List<String> tables;
+    private final Duration readTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final CircuitBreaker circuitBreaker;
+    private final Set<String> currencyCodes;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Autowired
+    public NbpExchangeRateProvider(@Qualifier("nbpWebClient") WebClient webClient,
+                                   @Value("${charity.rates.nbp.url:https://api.nbp.pl/api/exchangerates/tables/{table}?format=json}") String url,
+                                   @Value("${charity.rates.nbp.tables:A,B}") List<String> tables,
+                                   @Value("${charity.rates.nbp.read-timeout:5s}") Duration readTimeout,
+                                   @Value("${charity.rates.nbp.max-retries:3}") int maxRetries,
+                                   @Value("${charity.rates.nbp.retry-backoff:500ms}") Duration retryBackoff,
+                                   @Value("${charity.rates.nbp.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                   @Value("${charity.rates.nbp.circuit-breaker.open-duration:5m}") Duration openDuration,
+                                   @Value("${charity.rates.currencies:}") Set<String> currencyCodes) {
+        this(webClient, url, tables, readTimeout, maxRetries, retryBackoff, new CircuitBreaker(failureThreshold, openDuration), currencyCodes);
+    }
+
+    NbpExchangeRateProvider(WebClient webClient, String url, List<String> tables, Duration readTimeout, int maxRetries,
+                            Duration retryBackoff, CircuitBreaker circuitBreaker, Set<String> currencyCodes) {
+        this.webClient = webClient;
+        this.url = url;
+        this.tables = List.copyOf(tables);
+        this.readTimeout = readTimeout;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.circuitBreaker = circuitBreaker;
+        this.currencyCodes = Set.copyOf(currencyCodes);
+    }
+
+    @Override
+    public Mono<NbpApiDto> fetchLatestTable() {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new IllegalStateException("NBP API circuit breaker is open, skipping request"));
+            }
+
+            return Flux.fromIterable(tables)
+                    .concatMap(this::fetchTable)
+                    .collectList()
+                    .flatMap(fetched -> Mono.justOrEmpty(merge(fetched)))
+                    .doOnSuccess(response -> circuitBreaker.recordSuccess())
+                    .doOnError(e -> circuitBreaker.recordFailure())
+                    .doOnCancel(circuitBreaker::recordFailure);
+        });
+    }
+
+    private Mono<NbpApiDto> fetchTable(String table) {
+        return webClient.get()
+                .uri(url, table)
+                .retrieve()
+                .bodyToMono(DataBuffer.class)
+                .flatMap(body -> Mono.justOrEmpty(readFirstTable(body)))
+                .timeout(readTimeout)
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .jitter(RETRY_JITTER)
+                        .filter(this::isTransient)
+                        .doBeforeRetry(signal -> logger.warn("Retrying NBP API request for table {}, attempt {}: {}",
+                                table, signal.totalRetries() + 1, signal.failure().getMessage()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    // Table B is published weekly and table A daily, so each rate keeps the effective date of its own table
+    private Optional<NbpApiDto> merge(List<NbpApiDto> fetched) {
+        if (fetched.isEmpty()) {
+            return Optional.empty();
+        }
+        if (fetched.size() == 1) {
+            return Optional.of(fetched.get(0));
+        }
+
+        NbpApiDto merged = new NbpApiDto();
+        List<String> names = new ArrayList<>();
+        List<String> numbers = new ArrayList<>();
+        Map<String, NbpApiDto.RateDto> rates = new LinkedHashMap<>();
+        for (NbpApiDto table : fetched) {
+            names.add(table.getTable());
+            numbers.add(table.getNo());
+            for (NbpApiDto.RateDto rate : table.getRates()) {
+                rate.setEffectiveDate(table.getEffectiveDate());
+                rates.putIfAbsent(rate.getCode(), rate);
+            }
+        }
+
+        merged.setTable(String.join(",", names));
+        merged.setNo(String.join(",", numbers));
+        merged.setEffectiveDate(fetched.get(0).getEffectiveDate());
+        merged.setRates(new ArrayList<>(rates.values()));
+        return Optional.of(merged);
+    }
+
+    private Optional<NbpApiDto> readFirstTable(DataBuffer body) {
+        try (InputStream input = body.asInputStream(true); JsonParser parser = jsonFactory.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY || parser.nextToken() != JsonToken.START_OBJECT) {
+                return Optional.empty();
+            }
+
+            NbpApiDto table = new NbpApiDto();
+            List<NbpApiDto.RateDto> rates = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "table" -> table.setTable(parser.getValueAsString());
+                    case "no" -> table.setNo(parser.getValueAsString());
+                    case "effectiveDate" -> table.setEffectiveDate(parser.getValueAsString());
+                    case "rates" -> readRates(parser, rates);
+                    default -> parser.skipChildren();
+                }
+            }
+            table.setRates(rates);
+            return Optional.of(table);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse NBP exchange rate table", e);
+        }
+    }
+
+    private void readRates(JsonParser parser, List<NbpApiDto.RateDto> rates) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            NbpApiDto.RateDto rate = new NbpApiDto.RateDto();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "currency" -> rate.setCurrency(parser.getValueAsString());
+                    case "code" -> rate.setCode(parser.getValueAsString());
+                    // The literal text keeps every published digit of the rate
+                    case "mid" -> rate.setMid(parser.getText());
+                    default -> parser.skipChildren();
+                }
+            }
+            if (currencyCodes.isEmpty() || currencyCodes.contains(rate.getCode())) {
+                rates.add(rate);
+            }
+        }
+    }
+
+    private boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+}
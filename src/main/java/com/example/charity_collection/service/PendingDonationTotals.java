@@ -0,0 +1,196 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.BoxContents;
+import com.example.charity_collection.model.CrossRate;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.CollectionBoxMoneyRepository;
+import com.example.charity_collection.repository.CurrencyBalance;
+import com.example.charity_collection.repository.EventCurrencyBalance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class PendingDonationTotals implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingDonationTotals.class);
+
+    private final CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final ExchangeRateMatrix exchangeRateMatrix;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, EventTotals> totals = new HashMap<>();
+    private ExchangeRateMatrix.Snapshot rates;
+
+    public PendingDonationTotals(CollectionBoxMoneyRepository collectionBoxMoneyRepository,
+                                 CurrencyRegistry currencyRegistry,
+                                 ExchangeRateMatrix exchangeRateMatrix) {
+        this.collectionBoxMoneyRepository = collectionBoxMoneyRepository;
+        this.currencyRegistry = currencyRegistry;
+        this.exchangeRateMatrix = exchangeRateMatrix;
+        this.rates = exchangeRateMatrix.current();
+    }
+
+    // Runs before the web server starts, so no donation can commit between loading the totals and updating them
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<EventCurrencyBalance> balances = collectionBoxMoneyRepository.findPendingBalancesByEvent();
+
+        lock.lock();
+        try {
+            totals.clear();
+            for (EventCurrencyBalance balance : balances) {
+                EventTotals eventTotals = totals.computeIfAbsent(balance.fundraisingEventId(),
+                        id -> newEventTotals(currencyRegistry.ordinalOf(balance.eventCurrencyId())));
+                eventTotals.add(currencyRegistry.ordinalOf(balance.currencyId()), minorUnits(balance.amount()), rates);
+            }
+            logger.info("Loaded pending donation totals for {} fundraising events", totals.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void add(Long fundraisingEventId, int eventCurrencyOrdinal, int ordinal, Money amount) {
+        BoxContents contents = new BoxContents(ordinal + 1);
+        contents.add(ordinal, amount.withScale(Money.DEFAULT_SCALE).minorUnits());
+        afterCommit(() -> apply(fundraisingEventId, eventCurrencyOrdinal, contents));
+    }
+
+    public void addAll(FundraisingEvent event, BoxContents contents) {
+        int eventCurrencyOrdinal = currencyRegistry.ordinalOf(event.getCurrency().getId());
+        afterCommit(() -> apply(event.getId(), eventCurrencyOrdinal, contents));
+    }
+
+    public void remove(FundraisingEvent event, List<CurrencyBalance> balances) {
+        BoxContents contents = new BoxContents(currencyRegistry.size());
+        for (CurrencyBalance balance : balances) {
+            contents.add(currencyRegistry.ordinalOf(balance.currencyId()), Math.negateExact(minorUnits(balance.amount())));
+        }
+        int eventCurrencyOrdinal = currencyRegistry.ordinalOf(event.getCurrency().getId());
+        afterCommit(() -> apply(event.getId(), eventCurrencyOrdinal, contents));
+    }
+
+    public void revalue() {
+        ExchangeRateMatrix.Snapshot current = exchangeRateMatrix.current();
+
+        lock.lock();
+        try {
+            if (current.version() == rates.version()) {
+                return;
+            }
+            rates = current;
+            for (EventTotals eventTotals : totals.values()) {
+                eventTotals.revalue(rates);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public PendingTotal pendingTotal(FundraisingEvent event) {
+        revalue();
+
+        lock.lock();
+        try {
+            EventTotals eventTotals = totals.get(event.getId());
+            if (eventTotals == null) {
+                return new PendingTotal(Money.zero(Money.scaleOf(event.getCurrency().getCode())), List.of());
+            }
+
+            List<String> unconvertedCurrencies = new ArrayList<>();
+            eventTotals.unconverted.stream()
+                    .forEach(ordinal -> unconvertedCurrencies.add(currencyRegistry.getCurrencyAt(ordinal).getCode()));
+            return new PendingTotal(new Money(eventTotals.total, eventTotals.scale), unconvertedCurrencies);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(Long fundraisingEventId, int eventCurrencyOrdinal, BoxContents contents) {
+        lock.lock();
+        try {
+            EventTotals eventTotals = totals.computeIfAbsent(fundraisingEventId, id -> newEventTotals(eventCurrencyOrdinal));
+            contents.forEach((ordinal, minorUnits) -> eventTotals.add(ordinal, minorUnits, rates));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private EventTotals newEventTotals(int currencyOrdinal) {
+        return new EventTotals(currencyOrdinal, Money.scaleOf(currencyRegistry.getCurrencyAt(currencyOrdinal).getCode()));
+    }
+
+    private static long minorUnits(BigDecimal amount) {
+        return Money.of(amount, Money.DEFAULT_SCALE).minorUnits();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public record PendingTotal(Money amount, List<String> unconvertedCurrencies) {
+    }
+
+    private static final class EventTotals {
+
+        private final int currencyOrdinal;
+        private final int scale;
+        private final BoxContents amounts = new BoxContents();
+        private final BitSet unconverted = new BitSet();
+        private long[] converted = new long[Long.SIZE];
+        private long total;
+
+        EventTotals(int currencyOrdinal, int scale) {
+            this.currencyOrdinal = currencyOrdinal;
+            this.scale = scale;
+        }
+
+        void add(int ordinal, long minorUnits, ExchangeRateMatrix.Snapshot rates) {
+            amounts.add(ordinal, minorUnits);
+            convert(ordinal, rates);
+        }
+
+        void revalue(ExchangeRateMatrix.Snapshot rates) {
+            amounts.forEach((ordinal, minorUnits) -> convert(ordinal, rates));
+        }
+
+        private void convert(int ordinal, ExchangeRateMatrix.Snapshot rates) {
+            if (ordinal >= converted.length) {
+                converted = Arrays.copyOf(converted, Math.max(ordinal + 1, converted.length * 2));
+            }
+            total -= converted[ordinal];
+            converted[ordinal] = 0;
+            unconverted.clear(ordinal);
+
+            long minorUnits = amounts.amount(ordinal);
+            if (minorUnits == 0) {
+                return;
+            }
+
+            CrossRate rate = ordinal == currencyOrdinal ? CrossRate.ONE : rates.rate(ordinal, currencyOrdinal);
+            if (rate.isMissing()) {
+                unconverted.set(ordinal);
+                return;
+            }
+            converted[ordinal] = new Money(minorUnits, Money.DEFAULT_SCALE).convert(rate, scale).minorUnits();
+            total += converted[ordinal];
+        }
+    }
+}
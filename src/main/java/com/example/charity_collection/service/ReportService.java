@@ -1,6 +1,7 @@
 package com.example.charity_collection.service;
 
 import com.example.charity_collection.dto.FinancialReportDto;
+import com.example.charity_collection.dto.PendingFundsReportDto;
 import com.example.charity_collection.repository.FundraisingEventRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,9 +13,11 @@ import java.util.stream.Collectors;
 public class ReportService {
 
     private final FundraisingEventRepository fundraisingEventRepository;
+    private final PendingDonationTotals pendingDonationTotals;
 
-    public ReportService(FundraisingEventRepository fundraisingEventRepository) {
+    public ReportService(FundraisingEventRepository fundraisingEventRepository, PendingDonationTotals pendingDonationTotals) {
         this.fundraisingEventRepository = fundraisingEventRepository;
+        this.pendingDonationTotals = pendingDonationTotals;
     }
 
     @Transactional(readOnly = true)
@@ -27,4 +30,19 @@ public class ReportService {
                         .build())
                 .collect(Collectors.toList());
     }
+
+    @Transactional(readOnly = true)
+    public List<PendingFundsReportDto> generatePendingFundsReport() {
+        return fundraisingEventRepository.findAll().stream()
+                .map(event -> {
+                    PendingDonationTotals.PendingTotal pendingTotal = pendingDonationTotals.pendingTotal(event);
+                    return PendingFundsReportDto.builder()
+                            .eventName(event.getName())
+                            .amount(pendingTotal.amount().toBigDecimal())
+                            .currency(event.getCurrency().getCode())
+                            .unconvertedCurrencies(pendingTotal.unconvertedCurrencies())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.NbpApiDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+@Component
+@ConditionalOnProperty(name = "charity.rates.provider", havingValue = "stub")
+public class StubExchangeRateProvider implements ExchangeRateProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubExchangeRateProvider.class);
+
+    private final Duration delay;
+    private volatile NbpApiDto table;
+
+    public StubExchangeRateProvider(ObjectMapper objectMapper,
+                                    @Value("${charity.rates.stub.file:classpath:rates/nbp-stub-table.json}") Resource file,
+                                    @Value("${charity.rates.stub.delay:0ms}") Duration delay) {
+        this.delay = delay;
+        try (InputStream input = file.getInputStream()) {
+            this.table = objectMapper.readValue(input, NbpApiDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read stub exchange rate table from " + file, e);
+        }
+        logger.info("Serving exchange rates from stub table {} with {} rates", table.getNo(), table.getRates().size());
+    }
+
+    @Override
+    public Mono<NbpApiDto> fetchLatestTable() {
+        Mono<NbpApiDto> response = Mono.fromSupplier(() -> table);
+        return delay.isZero() ? response : response.delayElement(delay);
+    }
+
+    public void setTable(NbpApiDto table) {
+        this.table = table;
+    }
+}
@@ -1,4 +1,4 @@
-INSERT INTO currency (id, code, name) VALUES (1, 'EUR', 'Euro');
-INSERT INTO currency (id, code, name) VALUES (2, 'GBP', 'British Pound');
-INSERT INTO currency (id, code, name) VALUES (3, 'USD', 'US Dollar');
-INSERT INTO currency (id, code, name) VALUES (4, 'PLN', 'Polish Zloty');
\ No newline at end of file
+INSERT INTO currency (code, name) VALUES ('EUR', 'Euro');
+INSERT INTO currency (code, name) VALUES ('GBP', 'British Pound');
+INSERT INTO currency (code, name) VALUES ('USD', 'US Dollar');
+INSERT INTO currency (code, name) VALUES ('PLN', 'Polish Zloty');
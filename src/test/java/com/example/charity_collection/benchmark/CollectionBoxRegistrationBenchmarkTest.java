@@ -0,0 +1,82 @@
+package com.example.charity_collection.benchmark;
+
+import com.example.charity_collection.dto.BulkRegisterCollectionBoxesResponseDto;
+import com.example.charity_collection.dto.CollectionBoxDto;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.service.CollectionBoxBatchService;
+import com.example.charity_collection.service.CollectionBoxService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CollectionBoxRegistrationBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectionBoxRegistrationBenchmarkTest.class);
+
+    private static final int BOXES = Integer.getInteger("benchmark.boxes", 100_000);
+    private static final int SINGLE_BOXES = Integer.getInteger("benchmark.single-boxes", 10_000);
+    private static final int BATCH = 10_000;
+
+    @Autowired
+    private CollectionBoxService collectionBoxService;
+
+    @Autowired
+    private CollectionBoxBatchService collectionBoxBatchService;
+
+    @Autowired
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Test
+    void compareSingleAndBulkRegistration() {
+        long started = System.nanoTime();
+        for (int i = 0; i < SINGLE_BOXES; i++) {
+            collectionBoxService.registerCollectionBox(CollectionBoxDto.builder().identifier("SINGLE-" + i).build());
+        }
+        long single = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        int succeeded = 0;
+        for (int from = 0; from < BOXES; from += BATCH) {
+            succeeded += register("BULK-", from, Math.min(from + BATCH, BOXES)).getSucceeded();
+        }
+        long bulk = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        int rejected = 0;
+        for (int from = 0; from < BOXES; from += BATCH) {
+            rejected += register("BULK-", from, Math.min(from + BATCH, BOXES)).getFailed();
+        }
+        long duplicates = System.nanoTime() - started;
+
+        logger.info(String.format("One at a time: %,d boxes in %,.0f ms (%,.0f boxes/s)",
+                SINGLE_BOXES, single / 1e6, SINGLE_BOXES / (single / 1e9)));
+        logger.info(String.format("Bulk:          %,d boxes in %,.0f ms (%,.0f boxes/s)",
+                BOXES, bulk / 1e6, BOXES / (bulk / 1e9)));
+        logger.info(String.format("Bulk repeat:   %,d duplicates rejected in %,.0f ms (%,.0f boxes/s)",
+                BOXES, duplicates / 1e6, BOXES / (duplicates / 1e9)));
+
+        assertThat(succeeded).isEqualTo(BOXES);
+        assertThat(rejected).isEqualTo(BOXES);
+        assertThat(collectionBoxRepository.count()).isEqualTo((long) SINGLE_BOXES + BOXES);
+    }
+
+    private BulkRegisterCollectionBoxesResponseDto register(String prefix, int from, int to) {
+        List<String> identifiers = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            identifiers.add(prefix + i);
+        }
+        return collectionBoxBatchService.registerCollectionBoxes(identifiers);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.charity_collection.benchmark;
+
+import com.example.charity_collection.dto.NbpApiDto;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateHistoryRepository;
+import com.example.charity_collection.repository.ExchangeRateRepository;
+import com.example.charity_collection.service.ExchangeRateService;
+import com.example.charity_collection.service.StubExchangeRateProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ExchangeRateUpdateBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateUpdateBenchmarkTest.class);
+
+    private static final int[] CURRENCY_COUNTS = {4, 35, 150};
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+
+    @Autowired
+    private StubExchangeRateProvider stubExchangeRateProvider;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void measureExchangeRateUpdateForGrowingCurrencyTables() {
+        for (int currencies : CURRENCY_COUNTS) {
+            List<String> codes = seed(currencies);
+
+            long initial = timeUpdate(table(codes));
+
+            long changed = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                changed += timeUpdate(table(codes));
+            }
+
+            NbpApiDto unchangedTable = table(codes);
+            timeUpdate(unchangedTable);
+            long unchanged = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                unchanged += timeUpdate(unchangedTable);
+            }
+
+            logger.info(String.format("%3d currencies: initial %8.1f ms, all rates changed %8.1f ms, no rates changed %8.1f ms",
+                    currencies, initial / 1e6, changed / 1e6 / ROUNDS, unchanged / 1e6 / ROUNDS));
+
+            assertThat(exchangeRateRepository.count()).isEqualTo((long) currencies - 1);
+        }
+    }
+
+    private List<String> seed(int count) {
+        exchangeRateRepository.deleteAll();
+        exchangeRateHistoryRepository.deleteAll();
+        currencyRepository.deleteAll();
+
+        List<String> codes = new ArrayList<>();
+        currencyRepository.save(currency("PLN"));
+        for (int i = 0; codes.size() < count - 1; i++) {
+            String code = "" + (char) ('A' + i / 676) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+            if (!code.equals("PLN")) {
+                codes.add(code);
+                currencyRepository.save(currency(code));
+            }
+        }
+        return codes;
+    }
+
+    private long timeUpdate(NbpApiDto table) {
+        stubExchangeRateProvider.setTable(table);
+
+        long started = System.nanoTime();
+        exchangeRateService.updateExchangeRates().block();
+        return System.nanoTime() - started;
+    }
+
+    private NbpApiDto table(List<String> codes) {
+        List<NbpApiDto.RateDto> rates = new ArrayList<>();
+        for (String code : codes) {
+            NbpApiDto.RateDto rate = new NbpApiDto.RateDto();
+            rate.setCode(code);
+            rate.setMid(BigDecimal.valueOf(0.1 + random.nextDouble() * 5).setScale(4, RoundingMode.HALF_UP).toPlainString());
+            rates.add(rate);
+        }
+
+        NbpApiDto table = new NbpApiDto();
+        table.setTable("A");
+        table.setRates(rates);
+        return table;
+    }
+
+    private Currency currency(String code) {
+        Currency currency = new Currency();
+        currency.setCode(code);
+        currency.setName(code);
+        return currency;
+    }
+}
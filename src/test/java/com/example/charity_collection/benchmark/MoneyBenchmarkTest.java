@@ -0,0 +1,102 @@
+package com.example.charity_collection.benchmark;
+
+import com.example.charity_collection.model.CrossRate;
+import com.example.charity_collection.model.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class MoneyBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MoneyBenchmarkTest.class);
+
+    private static final int OPERATIONS = Integer.getInteger("benchmark.operations", 5_000_000);
+    private static final int WARM_UP_ROUNDS = 3;
+
+    private static final BigDecimal[] AMOUNTS = {
+            new BigDecimal("12.50"), new BigDecimal("0.99"), new BigDecimal("250.00"), new BigDecimal("7.35")
+    };
+    private static final BigDecimal[] RATES = {
+            new BigDecimal("4.312500"), new BigDecimal("4.021100"), new BigDecimal("5.034900"), BigDecimal.ONE
+    };
+
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareBigDecimalAndMoneyOnAddAndEmptyPaths() {
+        Money[] amounts = new Money[AMOUNTS.length];
+        CrossRate[] rates = new CrossRate[RATES.length];
+        for (int i = 0; i < AMOUNTS.length; i++) {
+            amounts[i] = Money.of(AMOUNTS[i], Money.DEFAULT_SCALE);
+            rates[i] = CrossRate.of(RATES[i]);
+        }
+
+        Result bigDecimalAdd = measure("add (BigDecimal)", () -> {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < OPERATIONS; i++) {
+                total = total.add(AMOUNTS[i & 3]);
+            }
+            return total.unscaledValue().longValue();
+        });
+        Result moneyAdd = measure("add (Money)", () -> {
+            Money total = Money.zero(Money.DEFAULT_SCALE);
+            for (int i = 0; i < OPERATIONS; i++) {
+                total = total.plus(amounts[i & 3]);
+            }
+            return total.minorUnits();
+        });
+
+        Result bigDecimalEmpty = measure("empty (BigDecimal)", () -> {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < OPERATIONS; i++) {
+                total = total.add(AMOUNTS[i & 3].multiply(RATES[i & 3]));
+            }
+            return total.unscaledValue().longValue();
+        });
+        Result moneyEmpty = measure("empty (Money)", () -> {
+            Money total = Money.zero(Money.DEFAULT_SCALE);
+            for (int i = 0; i < OPERATIONS; i++) {
+                total = total.plus(amounts[i & 3].convert(rates[i & 3], Money.DEFAULT_SCALE));
+            }
+            return total.minorUnits();
+        });
+
+        for (Result result : new Result[]{bigDecimalAdd, moneyAdd, bigDecimalEmpty, moneyEmpty}) {
+            logger.info("{}", result);
+        }
+
+        assertThat(moneyAdd.nanosPerOperation()).isPositive();
+    }
+
+    private Result measure(String name, LongSupplier workload) {
+        long blackhole = 0;
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            blackhole += workload.getAsLong();
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long started = System.nanoTime();
+        blackhole += workload.getAsLong();
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        return new Result(name, (double) elapsed / OPERATIONS, (double) allocated / OPERATIONS, blackhole);
+    }
+
+    private record Result(String name, double nanosPerOperation, double bytesPerOperation, long blackhole) {
+
+        @Override
+        public String toString() {
+            return String.format("%-20s %8.2f ns/op %8.2f B/op", name, nanosPerOperation, bytesPerOperation);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.charity_collection.benchmark;
+
+import com.example.charity_collection.CharityCollectionApplication;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.service.CurrencyRegistry;
+import com.example.charity_collection.service.ExchangeRateMatrix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class StartupSnapshotBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupSnapshotBenchmarkTest.class);
+
+    private static final long FETCH_DELAY_MS = Long.getLong("benchmark.fetch-delay-ms", 2000);
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void compareTimeToFirstConversionWithAndWithoutSnapshot() throws Exception {
+        Path snapshot = directory.resolve("exchange-rates.snapshot");
+
+        boot(snapshot);
+        Files.delete(snapshot);
+
+        Result withoutSnapshot = boot(snapshot);
+        assertThat(snapshot).exists();
+        Result withSnapshot = boot(snapshot);
+
+        logger.info("Remote fetch takes {} ms", FETCH_DELAY_MS);
+        logger.info("Without snapshot: {}", withoutSnapshot);
+        logger.info("With snapshot:    {}", withSnapshot);
+
+        assertThat(withSnapshot.firstRateMillis()).isLessThan(withoutSnapshot.firstRateMillis());
+    }
+
+    private Result boot(Path snapshot) throws InterruptedException {
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CharityCollectionApplication.class)
+                .profiles("test")
+                .run("--spring.main.web-application-type=none",
+                        "--charity.rates.update-on-startup=true",
+                        "--charity.rates.stub.delay=" + FETCH_DELAY_MS + "ms",
+                        "--charity.rates.snapshot.file=" + snapshot)) {
+            long ready = System.nanoTime();
+
+            CurrencyRegistry currencyRegistry = context.getBean(CurrencyRegistry.class);
+            ExchangeRateMatrix exchangeRateMatrix = context.getBean(ExchangeRateMatrix.class);
+            Currency eur = currencyRegistry.findByCode("EUR").orElseThrow();
+            Currency pln = currencyRegistry.findByCode("PLN").orElseThrow();
+
+            while (exchangeRateMatrix.current().rate(currencyRegistry.ordinalOf(eur), currencyRegistry.ordinalOf(pln)).isMissing()
+                    || !Files.exists(snapshot)) {
+                assertThat(System.nanoTime() - started).isLessThan(TIMEOUT_NANOS);
+                Thread.sleep(1);
+            }
+            long firstRate = System.nanoTime();
+
+            return new Result(TimeUnit.NANOSECONDS.toMillis(ready - started), TimeUnit.NANOSECONDS.toMillis(firstRate - started));
+        }
+    }
+
+    private record Result(long readyMillis, long firstRateMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("application ready after %d ms, first conversion possible after %d ms (%d ms after ready)",
+                    readyMillis, firstRateMillis, firstRateMillis - readyMillis);
+        }
+    }
+}
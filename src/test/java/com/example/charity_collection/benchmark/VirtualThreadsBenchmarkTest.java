@@ -0,0 +1,148 @@
+package com.example.charity_collection.benchmark;
+
+import com.example.charity_collection.CharityCollectionApplication;
+import com.example.charity_collection.model.CollectionBox;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.FundraisingEventRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class VirtualThreadsBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsBenchmarkTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 10_000);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests-per-client", 5);
+
+    @Test
+    void compareRequestHandlingOnPlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        logger.info("Platform threads: {}", platform);
+        logger.info("Virtual threads:  {}", virtual);
+
+        assertThat(platform.succeeded() + virtual.succeeded()).isPositive();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(CharityCollectionApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.max-connections=" + (CLIENTS * 2),
+                        "--server.tomcat.accept-count=" + CLIENTS)) {
+
+            seed(context);
+            URI[] endpoints = {
+                    URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/collection-boxes"),
+                    URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/reports/financial")
+            };
+
+            warmUp(endpoints);
+            return load(endpoints);
+        }
+    }
+
+    private void seed(ServletWebServerApplicationContext context) {
+        CurrencyRepository currencyRepository = context.getBean(CurrencyRepository.class);
+        FundraisingEvent event = context.getBean(FundraisingEventRepository.class).save(FundraisingEvent.builder()
+                .name("Benchmark Event")
+                .accountBalance(BigDecimal.ZERO)
+                .currency(currencyRepository.findByCode("PLN").orElseThrow())
+                .build());
+
+        CollectionBoxRepository collectionBoxRepository = context.getBean(CollectionBoxRepository.class);
+        for (int i = 0; i < 50; i++) {
+            collectionBoxRepository.save(CollectionBox.builder()
+                    .identifier("BENCH" + i)
+                    .isEmpty(true)
+                    .fundraisingEvent(event)
+                    .build());
+        }
+    }
+
+    private void warmUp(URI[] endpoints) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        for (int i = 0; i < 500; i++) {
+            client.send(HttpRequest.newBuilder(endpoints[i % endpoints.length]).build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private Result load(URI[] endpoints) throws InterruptedException {
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        long began;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int clientId = c;
+                clients.submit(() -> {
+                    start.await();
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        HttpRequest request = HttpRequest.newBuilder(endpoints[(clientId + r) % endpoints.length])
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failed.incrementAndGet();
+                                continue;
+                            }
+                            latencies[next.getAndIncrement()] = System.nanoTime() - sent;
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            began = System.nanoTime();
+            start.countDown();
+        }
+        long elapsed = System.nanoTime() - began;
+
+        long[] succeeded = Arrays.copyOf(latencies, next.get());
+        Arrays.sort(succeeded);
+        long p99 = succeeded.length == 0 ? 0 : succeeded[(int) Math.ceil(succeeded.length * 0.99) - 1];
+
+        return new Result(succeeded.length, failed.get(),
+                succeeded.length / (elapsed / 1_000_000_000.0),
+                TimeUnit.NANOSECONDS.toMillis(p99));
+    }
+
+    private record Result(int succeeded, int failed, double requestsPerSecond, long p99Millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%d ok, %d failed, %.0f req/s, p99 %d ms", succeeded, failed, requestsPerSecond, p99Millis);
+        }
+    }
+}
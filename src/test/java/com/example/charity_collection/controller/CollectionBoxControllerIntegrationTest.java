@@ -3,6 +3,7 @@ package com.example.charity_collection.controller;
 import com.example.charity_collection.dto.*;
 import com.example.charity_collection.model.*;
 import com.example.charity_collection.repository.*;
+import com.example.charity_collection.service.ExchangeRateMatrix;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +16,10 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,6 +39,12 @@ public class CollectionBoxControllerIntegrationTest {
     @Autowired
     private CollectionBoxRepository collectionBoxRepository;
 
+    @Autowired
+    private CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+
+    @Autowired
+    private DonationLedgerRepository donationLedgerRepository;
+
     @Autowired
     private FundraisingEventRepository fundraisingEventRepository;
 
@@ -44,6 +54,12 @@ public class CollectionBoxControllerIntegrationTest {
     @Autowired
     private ExchangeRateRepository exchangeRateRepository;
 
+    @Autowired
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
+    @Autowired
+    private ExchangeRateMatrix exchangeRateMatrix;
+
     private FundraisingEvent savedEvent;
     private Currency usdCurrency;
     private Currency eurCurrency;
@@ -53,6 +69,7 @@ public class CollectionBoxControllerIntegrationTest {
         collectionBoxRepository.deleteAll();
         fundraisingEventRepository.deleteAll();
         exchangeRateRepository.deleteAll();
+        exchangeRateHistoryRepository.deleteAll();
         currencyRepository.deleteAll();
 
         usdCurrency = new Currency();
@@ -65,17 +82,22 @@ public class CollectionBoxControllerIntegrationTest {
         eurCurrency.setName("Euro");
         eurCurrency = currencyRepository.save(eurCurrency);
 
-        ExchangeRate usdToEur = new ExchangeRate();
-        usdToEur.setFromCurrency(usdCurrency);
-        usdToEur.setToCurrency(eurCurrency);
-        usdToEur.setRate(new BigDecimal("0.85"));
-        exchangeRateRepository.save(usdToEur);
+        Currency plnCurrency = new Currency();
+        plnCurrency.setCode("PLN");
+        plnCurrency.setName("Polish Zloty");
+        plnCurrency = currencyRepository.save(plnCurrency);
+
+        ExchangeRate usdToPln = new ExchangeRate();
+        usdToPln.setFromCurrency(usdCurrency);
+        usdToPln.setToCurrency(plnCurrency);
+        usdToPln.setRate(new BigDecimal("4.00"));
+        exchangeRateRepository.save(usdToPln);
 
-        ExchangeRate eurToUsd = new ExchangeRate();
-        eurToUsd.setFromCurrency(eurCurrency);
-        eurToUsd.setToCurrency(usdCurrency);
-        eurToUsd.setRate(new BigDecimal("1.18"));
-        exchangeRateRepository.save(eurToUsd);
+        ExchangeRate eurToPln = new ExchangeRate();
+        eurToPln.setFromCurrency(eurCurrency);
+        eurToPln.setToCurrency(plnCurrency);
+        eurToPln.setRate(new BigDecimal("4.72"));
+        exchangeRateRepository.save(eurToPln);
 
         FundraisingEvent event = FundraisingEvent.builder()
                 .name("Test Fundraising Event")
@@ -116,13 +138,129 @@ public class CollectionBoxControllerIntegrationTest {
 
         mockMvc.perform(get("/api/collection-boxes"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].identifier").value("BOX001"))
-                .andExpect(jsonPath("$[0].empty").value(true))
-                .andExpect(jsonPath("$[0].assigned").value(false))
-                .andExpect(jsonPath("$[1].identifier").value("BOX002"))
-                .andExpect(jsonPath("$[1].empty").value(false))
-                .andExpect(jsonPath("$[1].assigned").value(true));
+                .andExpect(jsonPath("$.collectionBoxes", hasSize(2)))
+                .andExpect(jsonPath("$.collectionBoxes[0].identifier").value("BOX001"))
+                .andExpect(jsonPath("$.collectionBoxes[0].empty").value(true))
+                .andExpect(jsonPath("$.collectionBoxes[0].assigned").value(false))
+                .andExpect(jsonPath("$.collectionBoxes[1].identifier").value("BOX002"))
+                .andExpect(jsonPath("$.collectionBoxes[1].empty").value(false))
+                .andExpect(jsonPath("$.collectionBoxes[1].assigned").value(true))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void listCollectionBoxes_ShouldPageByCursorAndFilter() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            collectionBoxRepository.save(CollectionBox.builder()
+                    .identifier("BOX00" + i)
+                    .isEmpty(i != 4)
+                    .fundraisingEvent(i % 2 == 0 ? savedEvent : null)
+                    .build());
+        }
+
+        String firstPage = mockMvc.perform(get("/api/collection-boxes").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.collectionBoxes[*].identifier", contains("BOX001", "BOX002")))
+                .andExpect(jsonPath("$.nextCursor").isNumber())
+                .andReturn().getResponse().getContentAsString();
+        long cursor = objectMapper.readValue(firstPage, CollectionBoxPageDto.class).getNextCursor();
+
+        mockMvc.perform(get("/api/collection-boxes").param("limit", "2").param("after", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.collectionBoxes[*].identifier", contains("BOX003", "BOX004")));
+
+        mockMvc.perform(get("/api/collection-boxes").param("eventId", String.valueOf(savedEvent.getId())).param("empty", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.collectionBoxes[*].identifier", contains("BOX002")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/collection-boxes").param("assigned", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.collectionBoxes[*].identifier", contains("BOX001", "BOX003", "BOX005")));
+
+        mockMvc.perform(get("/api/collection-boxes").param("limit", "5000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportCollectionBoxes_ShouldStreamEveryBoxAsNdjsonOrCsv() throws Exception {
+        collectionBoxRepository.save(CollectionBox.builder()
+                .identifier("BOX001")
+                .isEmpty(true)
+                .build());
+        collectionBoxRepository.save(CollectionBox.builder()
+                .identifier("BOX002")
+                .isEmpty(false)
+                .fundraisingEvent(savedEvent)
+                .build());
+
+        String ndjson = mockMvc.perform(get("/api/collection-boxes/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<CollectionBoxInfoDto> exported = ndjson.lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, CollectionBoxInfoDto.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+        assertThat(exported).extracting(CollectionBoxInfoDto::getIdentifier).containsExactly("BOX001", "BOX002");
+        assertThat(exported.get(1).isAssigned()).isTrue();
+
+        mockMvc.perform(get("/api/collection-boxes/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string(allOf(
+                        startsWith("id,identifier,empty,assigned\n"),
+                        containsString(",BOX001,true,false\n"),
+                        containsString(",BOX002,false,true\n"))));
+
+        mockMvc.perform(get("/api/collection-boxes/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void registerCollectionBoxes_ShouldInsertNewBoxesAndReportDuplicates() throws Exception {
+        collectionBoxRepository.save(CollectionBox.builder()
+                .identifier("BOX001")
+                .isEmpty(true)
+                .build());
+
+        BulkRegisterCollectionBoxesDto requestDto = BulkRegisterCollectionBoxesDto.builder()
+                .identifiers(List.of("BOX001", "BOX002", "BOX003", "BOX002"))
+                .build();
+
+        mockMvc.perform(post("/api/collection-boxes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[0].message", containsString("already exists")))
+                .andExpect(jsonPath("$.results[1].id").isNumber())
+                .andExpect(jsonPath("$.results[3].message", containsString("Duplicate identifier")));
+
+        assertThat(collectionBoxRepository.findByIdentifier("BOX003").orElseThrow().getIsEmpty()).isTrue();
+
+        mockMvc.perform(post("/api/collection-boxes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(CollectionBoxDto.builder().identifier("BOX003").build())))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("already exists")));
+
+        mockMvc.perform(delete("/api/collection-boxes/delete/BOX002"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/collection-boxes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BulkRegisterCollectionBoxesDto.builder()
+                                .identifiers(List.of("BOX002"))
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1));
     }
 
     @Test
@@ -139,6 +277,37 @@ public class CollectionBoxControllerIntegrationTest {
 
     }
 
+    @Test
+    void unregisterCollectionBox_WithMoney_ShouldKeepItsLedgerEntriesAndCloseThem() throws Exception {
+        CollectionBox box = CollectionBox.builder()
+                .identifier("BOX123")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build();
+        CollectionBox savedBox = collectionBoxRepository.save(box);
+
+        AddMoneyDto requestDto = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .amount(new BigDecimal("100.00"))
+                .currencyCode("USD")
+                .build();
+
+        mockMvc.perform(post("/api/collection-boxes/add")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk());
+        assertThat(donationLedgerRepository.findByCollectionBoxIdOrderById(savedBox.getId())).hasSize(1);
+
+        mockMvc.perform(delete("/api/collection-boxes/delete/BOX123"))
+                .andExpect(status().isOk());
+
+        assertThat(collectionBoxRepository.findById(savedBox.getId())).isEmpty();
+        assertThat(donationLedgerRepository.findByCollectionBoxIdOrderById(savedBox.getId()))
+                .extracting(DonationLedgerEntry::getEntryType, DonationLedgerEntry::getAmount)
+                .containsExactly(tuple(LedgerEntryType.DONATION, new BigDecimal("100.00")),
+                        tuple(LedgerEntryType.CLOSING, new BigDecimal("-100.00")));
+    }
+
     @Test
     void unregisterCollectionBox_WithNonExistingIdentifier_ShouldReturnBadRequest() throws Exception {
         mockMvc.perform(delete("/api/collection-boxes/delete/NONEXISTENT"))
@@ -166,6 +335,47 @@ public class CollectionBoxControllerIntegrationTest {
                 .andExpect(jsonPath("$.message", containsString("successfully assigned to event")));
     }
 
+    @Test
+    void assignCollectionBoxesToEvent_ShouldAssignEmptyBoxesAndRejectNonEmptyOnes() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            collectionBoxRepository.save(CollectionBox.builder()
+                    .identifier("BOX00" + i)
+                    .isEmpty(i != 3)
+                    .build());
+        }
+
+        mockMvc.perform(post("/api/collection-boxes/assign/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BulkAssignCollectionBoxesDto.builder()
+                                .fromIdentifier("BOX002")
+                                .toIdentifier("BOX004")
+                                .fundraisingEventId(savedEvent.getId())
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assigned").value(2))
+                .andExpect(jsonPath("$.rejectedNotEmpty", contains("BOX003")));
+
+        mockMvc.perform(post("/api/collection-boxes/assign/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BulkAssignCollectionBoxesDto.builder()
+                                .collectionBoxIdentifiers(List.of("BOX001", "MISSING"))
+                                .fundraisingEventId(savedEvent.getId())
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assigned").value(1))
+                .andExpect(jsonPath("$.rejectedNotEmpty", hasSize(0)));
+
+        assertThat(collectionBoxRepository.findAll())
+                .allSatisfy(box -> assertThat(box.getFundraisingEvent() != null).isEqualTo(!box.getIdentifier().equals("BOX003")));
+
+        mockMvc.perform(post("/api/collection-boxes/assign/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BulkAssignCollectionBoxesDto.builder()
+                                .fundraisingEventId(savedEvent.getId())
+                                .build())))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void assignCollectionBoxToEvent_WithNonEmptyBox_ShouldReturnBadRequest() throws Exception {
         CollectionBox box = CollectionBox.builder()
@@ -209,6 +419,59 @@ public class CollectionBoxControllerIntegrationTest {
 
     }
 
+    @Test
+    void addMoneyToCollectionBox_WithTooManyDecimalPlaces_ShouldReturnBadRequest() throws Exception {
+        CollectionBox box = CollectionBox.builder()
+                .identifier("BOX123")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build();
+        CollectionBox savedBox = collectionBoxRepository.save(box);
+
+        AddMoneyDto requestDto = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .amount(new BigDecimal("10.005"))
+                .currencyCode("USD")
+                .build();
+
+        mockMvc.perform(post("/api/collection-boxes/add")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("more decimal places than USD allows")));
+
+        assertThat(donationLedgerRepository.findByCollectionBoxIdOrderById(savedBox.getId())).isEmpty();
+        assertThat(collectionBoxRepository.findById(savedBox.getId()).orElseThrow().getIsEmpty()).isTrue();
+    }
+
+    @Test
+    void addMoneyToCollectionBox_WithRepeatedIdempotencyKey_ShouldAddMoneyOnce() throws Exception {
+        CollectionBox box = CollectionBox.builder()
+                .identifier("BOX123")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build();
+        collectionBoxRepository.save(box);
+
+        // The retry writes the same amount without trailing zeros
+        for (String amount : List.of("100.00", "100")) {
+            AddMoneyDto requestDto = AddMoneyDto.builder()
+                    .collectionBoxIdentifier("BOX123")
+                    .amount(new BigDecimal(amount))
+                    .currencyCode("USD")
+                    .build();
+
+            mockMvc.perform(post("/api/collection-boxes/add")
+                            .header("Idempotency-Key", "terminal-7-42")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(requestDto)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.message", containsString("added to collection box")));
+        }
+
+        assertThat(balancesOf("BOX123")).containsExactly("USD 100.00");
+    }
+
     @Test
     void addMoneyToCollectionBox_WithNonAssignedBox_ShouldReturnBadRequest() throws Exception {
         CollectionBox box = CollectionBox.builder()
@@ -230,6 +493,46 @@ public class CollectionBoxControllerIntegrationTest {
                 .andExpect(content().string(containsString("add money to a box that is assigned")));
     }
 
+    @Test
+    void addMoneyToCollectionBox_AfterAssigning_ShouldSeeAssignmentAndServeRepeatsFromCache() throws Exception {
+        mockMvc.perform(post("/api/collection-boxes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(CollectionBoxDto.builder().identifier("BOX123").build())))
+                .andExpect(status().isCreated());
+
+        AddMoneyDto donation = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .amount(new BigDecimal("10.00"))
+                .currencyCode("USD")
+                .build();
+        mockMvc.perform(post("/api/collection-boxes/add")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(donation)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/collection-boxes/assign")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(AssignCollectionBoxDto.builder()
+                                .collectionBoxIdentifier("BOX123")
+                                .fundraisingEventId(savedEvent.getId())
+                                .build())))
+                .andExpect(status().isOk());
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/collection-boxes/add")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(donation)))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/collection-boxes/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.misses").value(3))
+                .andExpect(jsonPath("$.hits").value(1))
+                .andExpect(jsonPath("$.invalidations").value(3));
+        assertThat(donationLedgerRepository.count()).isEqualTo(3);
+    }
+
     @Test
     void emptyCollectionBox_ShouldEmptyBoxAndTransferMoney() throws Exception {
         CollectionBox box = CollectionBox.builder()
@@ -251,6 +554,47 @@ public class CollectionBoxControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message", containsString("has been emptied")));
 
+        assertThat(balancesOf("BOX123")).isEmpty();
+        assertThat(donationLedgerRepository.findByCollectionBoxIdOrderById(savedBox.getId()))
+                .extracting(entry -> entry.getEntryType() + " " + entry.getAmount())
+                .containsExactly("SETTLEMENT -200.00");
+    }
+
+    @Test
+    void pendingFundsReport_ShouldFollowDonationsAndEmptying() throws Exception {
+        exchangeRateMatrix.refreshAfterCommit();
+
+        CollectionBox box = CollectionBox.builder()
+                .identifier("BOX123")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build();
+        collectionBoxRepository.save(box);
+
+        for (AddMoneyDto requestDto : List.of(
+                AddMoneyDto.builder().collectionBoxIdentifier("BOX123").amount(new BigDecimal("10.00")).currencyCode("EUR").build(),
+                AddMoneyDto.builder().collectionBoxIdentifier("BOX123").amount(new BigDecimal("5.00")).currencyCode("USD").build())) {
+            mockMvc.perform(post("/api/collection-boxes/add")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(requestDto)))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/reports/pending"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName").value("Test Fundraising Event"))
+                .andExpect(jsonPath("$[0].amount").value(16.80))
+                .andExpect(jsonPath("$[0].currency").value("USD"))
+                .andExpect(jsonPath("$[0].unconvertedCurrencies", hasSize(0)));
+
+        mockMvc.perform(post("/api/collection-boxes/empty/BOX123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", containsString("Amount 16.80 USD")));
+
+        mockMvc.perform(get("/api/reports/pending"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].amount").value(0.00));
     }
 
     @Test
@@ -266,4 +610,92 @@ public class CollectionBoxControllerIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string(containsString("has no money inside")));
     }
+
+    @Test
+    void addMoneyToCollectionBoxes_ShouldApplyValidDonationsAndReportFailures() throws Exception {
+        CollectionBox box = CollectionBox.builder()
+                .identifier("BOX123")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build();
+        collectionBoxRepository.save(box);
+
+        BulkAddMoneyDto requestDto = BulkAddMoneyDto.builder()
+                .donations(List.of(
+                        AddMoneyDto.builder().collectionBoxIdentifier("BOX123").amount(new BigDecimal("10.00")).currencyCode("USD").build(),
+                        AddMoneyDto.builder().collectionBoxIdentifier("BOX123").amount(new BigDecimal("15.50")).currencyCode("USD").build(),
+                        AddMoneyDto.builder().collectionBoxIdentifier("BOX123").amount(new BigDecimal("5.00")).currencyCode("EUR").build(),
+                        AddMoneyDto.builder().collectionBoxIdentifier("NONEXISTENT").amount(new BigDecimal("5.00")).currencyCode("USD").build()))
+                .build();
+
+        mockMvc.perform(post("/api/collection-boxes/add/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.succeeded").value(3))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[3].success").value(false))
+                .andExpect(jsonPath("$.results[3].message", containsString("not found")));
+
+        assertThat(collectionBoxRepository.findByIdentifier("BOX123").orElseThrow().getIsEmpty()).isFalse();
+        assertThat(balancesOf("BOX123")).containsExactlyInAnyOrder("USD 25.50", "EUR 5.00");
+    }
+
+    @Test
+    void addMoneyToCollectionBoxesFromStream_ShouldApplyRecordsAndStreamProgress() throws Exception {
+        CollectionBox box = CollectionBox.builder()
+                .identifier("BOX123")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build();
+        collectionBoxRepository.save(box);
+
+        String upload = String.join("\n",
+                objectMapper.writeValueAsString(AddMoneyDto.builder().collectionBoxIdentifier("BOX123").amount(new BigDecimal("10.00")).currencyCode("USD").build()),
+                objectMapper.writeValueAsString(AddMoneyDto.builder().collectionBoxIdentifier("BOX123").amount(new BigDecimal("-1.00")).currencyCode("USD").build()),
+                objectMapper.writeValueAsString(AddMoneyDto.builder().collectionBoxIdentifier("BOX123").amount(new BigDecimal("2.50")).currencyCode("EUR").build()));
+
+        String response = mockMvc.perform(post("/api/collection-boxes/add/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(upload))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<DonationStreamProgressDto> progress = response.lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, DonationStreamProgressDto.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+
+        DonationStreamProgressDto summary = progress.get(progress.size() - 1);
+        assertThat(summary.isComplete()).isTrue();
+        assertThat(summary.getTotalSucceeded()).isEqualTo(2);
+        assertThat(summary.getTotalFailed()).isEqualTo(1);
+        assertThat(progress.get(0).getErrors())
+                .extracting(DonationLineErrorDto::getLine)
+                .containsExactly(2L);
+        assertThat(balancesOf("BOX123")).containsExactlyInAnyOrder("USD 10.00", "EUR 2.50");
+    }
+
+    @Test
+    void addMoneyToCollectionBoxes_WithEmptyBatch_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/collection-boxes/add/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"donations\": []}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("At least one donation is required")));
+    }
+
+    private List<String> balancesOf(String identifier) {
+        Long collectionBoxId = collectionBoxRepository.findByIdentifier(identifier).orElseThrow().getId();
+        return collectionBoxMoneyRepository.findBalances(collectionBoxId).stream()
+                .map(balance -> currencyRepository.findById(balance.currencyId()).orElseThrow().getCode() + " " + balance.amount())
+                .toList();
+    }
 }
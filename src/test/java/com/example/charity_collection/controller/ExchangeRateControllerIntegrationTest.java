@@ -0,0 +1,147 @@
+package com.example.charity_collection.controller;
+
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateHistoryRepository;
+import com.example.charity_collection.repository.ExchangeRateRepository;
+import com.example.charity_collection.repository.HistoricalRate;
+import com.example.charity_collection.service.ExchangeRateHistoryIndex;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ExchangeRateControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
+    @Autowired
+    private ExchangeRateHistoryIndex exchangeRateHistoryIndex;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateRepository.deleteAll();
+        exchangeRateHistoryRepository.deleteAll();
+        currencyRepository.deleteAll();
+
+        Currency plnCurrency = new Currency();
+        plnCurrency.setCode("PLN");
+        plnCurrency.setName("Polish Zloty");
+        currencyRepository.save(plnCurrency);
+
+        Currency eurCurrency = new Currency();
+        eurCurrency.setCode("EUR");
+        eurCurrency.setName("Euro");
+        eurCurrency = currencyRepository.save(eurCurrency);
+
+        Currency usdCurrency = new Currency();
+        usdCurrency.setCode("USD");
+        usdCurrency.setName("US Dollar");
+        usdCurrency = currencyRepository.save(usdCurrency);
+
+        exchangeRateHistoryRepository.recordRates(List.of(
+                new HistoricalRate(eurCurrency.getId(), LocalDate.of(2025, 5, 7), new BigDecimal("4.3000")),
+                new HistoricalRate(eurCurrency.getId(), LocalDate.of(2025, 5, 9), new BigDecimal("4.2500")),
+                new HistoricalRate(usdCurrency.getId(), LocalDate.of(2025, 5, 9), new BigDecimal("4.0000"))));
+        exchangeRateHistoryIndex.refreshAfterCommit();
+    }
+
+    @Test
+    void getExchangeRate_ShouldReturnRateValidOnGivenDate() throws Exception {
+        mockMvc.perform(get("/api/exchange-rates/EUR/PLN").param("date", "2025-05-08"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromCurrency").value("EUR"))
+                .andExpect(jsonPath("$.toCurrency").value("PLN"))
+                .andExpect(jsonPath("$.date").value("2025-05-08"))
+                .andExpect(jsonPath("$.rate").value(4.3));
+    }
+
+    @Test
+    void getExchangeRate_ShouldReturnCrossRateDerivedFromPlnRates() throws Exception {
+        mockMvc.perform(get("/api/exchange-rates/EUR/USD").param("date", "2025-05-09"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(1.0625));
+    }
+
+    @Test
+    void updateExchangeRates_ShouldStartJobAndReportItsProgress() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/exchange-rates/update"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").exists())
+                .andReturn();
+        String jobId = JsonPath.read(result.getResponse().getContentAsString(), "$.id");
+        assertThat(result.getResponse().getHeader("Location")).isEqualTo("/api/exchange-rates/update/" + jobId);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String status;
+        do {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+            status = JsonPath.read(mockMvc.perform(get("/api/exchange-rates/update/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), "$.status");
+        } while (status.equals("RUNNING"));
+
+        mockMvc.perform(get("/api/exchange-rates/update/{jobId}", jobId))
+                .andExpect(jsonPath("$.status").value("SUCCEEDED"))
+                .andExpect(jsonPath("$.stage").value("DONE"))
+                .andExpect(jsonPath("$.ratesChanged").value(2))
+                .andExpect(jsonPath("$.durationMillis").isNumber())
+                .andExpect(jsonPath("$.error").doesNotExist());
+
+        mockMvc.perform(get("/api/exchange-rates/USD/PLN").param("date", "2025-05-09"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(3.7895));
+        assertThat(exchangeRateRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void getUpdateJob_WithUnknownId_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/exchange-rates/update/{jobId}", "missing"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Exchange rate update job not found: missing"));
+    }
+
+    @Test
+    void getExchangeRate_BeforeFirstRate_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/exchange-rates/USD/PLN").param("date", "2025-05-08"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Exchange rate not found for currency pair: USD to PLN as of 2025-05-08"));
+    }
+
+    @Test
+    void getExchangeRate_WithUnknownCurrency_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/exchange-rates/XYZ/PLN"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Currency not found: XYZ"));
+    }
+}
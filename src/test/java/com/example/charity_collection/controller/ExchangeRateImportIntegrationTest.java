@@ -0,0 +1,101 @@
+package com.example.charity_collection.controller;
+
+import com.example.charity_collection.dto.NbpApiDto;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateRepository;
+import com.example.charity_collection.service.StubExchangeRateProvider;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs a currency-importing update against the schema and seed data the application starts with,
+ * rather than against currencies saved by the test.
+ */
+@SpringBootTest(properties = "charity.rates.import-currencies=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ExchangeRateImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private StubExchangeRateProvider stubExchangeRateProvider;
+
+    @Test
+    void updateExchangeRates_WithTablesAAndB_ShouldImportMissingCurrenciesNextToTheSeededOnes() throws Exception {
+        assertThat(currencyRepository.findByCode("EUR")).isPresent();
+        assertThat(currencyRepository.findByCode("CHF")).isEmpty();
+
+        NbpApiDto table = new NbpApiDto();
+        table.setTable("A,B");
+        table.setNo("089/A/NBP/2025,019/B/NBP/2025");
+        table.setEffectiveDate("2025-05-09");
+        table.setRates(List.of(
+                rate("euro", "EUR", "4.2567", "2025-05-09"),
+                rate("funt szterling", "GBP", "5.0184", "2025-05-09"),
+                rate("dolar amerykański", "USD", "3.7895", "2025-05-09"),
+                rate("frank szwajcarski", "CHF", "4.5612", "2025-05-09"),
+                rate("rupia indonezyjska", "IDR", "0.00022901", "2025-05-07"),
+                rate("dong wietnamski", "VND", "0.00014565", "2025-05-07")));
+        stubExchangeRateProvider.setTable(table);
+
+        String jobId = JsonPath.read(mockMvc.perform(post("/api/exchange-rates/update"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String status;
+        do {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+            status = JsonPath.read(mockMvc.perform(get("/api/exchange-rates/update/{jobId}", jobId))
+                    .andReturn().getResponse().getContentAsString(), "$.status");
+        } while (status.equals("RUNNING"));
+
+        mockMvc.perform(get("/api/exchange-rates/update/{jobId}", jobId))
+                .andExpect(jsonPath("$.status").value("SUCCEEDED"))
+                .andExpect(jsonPath("$.error").doesNotExist());
+
+        assertThat(currencyRepository.findAll()).extracting(Currency::getCode)
+                .containsExactlyInAnyOrder("EUR", "GBP", "USD", "PLN", "CHF", "IDR", "VND");
+        assertThat(exchangeRateRepository.count()).isEqualTo(6);
+
+        mockMvc.perform(get("/api/exchange-rates/CHF/PLN").param("date", "2025-05-09"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(4.5612));
+        mockMvc.perform(get("/api/exchange-rates/IDR/PLN").param("date", "2025-05-09"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rate").value(0.00022901));
+    }
+
+    private NbpApiDto.RateDto rate(String name, String code, String mid, String effectiveDate) {
+        NbpApiDto.RateDto rate = new NbpApiDto.RateDto();
+        rate.setCurrency(name);
+        rate.setCode(code);
+        rate.setMid(mid);
+        rate.setEffectiveDate(effectiveDate);
+        return rate;
+    }
+}
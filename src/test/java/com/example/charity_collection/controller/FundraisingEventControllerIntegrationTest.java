@@ -3,6 +3,7 @@ package com.example.charity_collection.controller;
 import com.example.charity_collection.dto.FundraisingEventDto;
 import com.example.charity_collection.model.Currency;
 import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateHistoryRepository;
 import com.example.charity_collection.repository.ExchangeRateRepository;
 import com.example.charity_collection.repository.FundraisingEventRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -40,6 +41,9 @@ public class FundraisingEventControllerIntegrationTest {
     @Autowired
     private ExchangeRateRepository exchangeRateRepository;
 
+    @Autowired
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
     @Autowired
     private CurrencyRepository currencyRepository;
 
@@ -50,6 +54,7 @@ public class FundraisingEventControllerIntegrationTest {
     void setUp() {
         fundraisingEventRepository.deleteAll();
         exchangeRateRepository.deleteAll();
+        exchangeRateHistoryRepository.deleteAll();
         currencyRepository.deleteAll();
 
         usdCurrency = new Currency();
@@ -3,6 +3,7 @@ package com.example.charity_collection.controller;
 import com.example.charity_collection.model.Currency;
 import com.example.charity_collection.model.FundraisingEvent;
 import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateHistoryRepository;
 import com.example.charity_collection.repository.ExchangeRateRepository;
 import com.example.charity_collection.repository.FundraisingEventRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +41,9 @@ public class ReportControllerIntegrationTest {
     @Autowired
     private ExchangeRateRepository exchangeRateRepository;
 
+    @Autowired
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
     private Currency usdCurrency;
     private Currency eurCurrency;
 
@@ -47,6 +51,7 @@ public class ReportControllerIntegrationTest {
     void setUp() {
         fundraisingEventRepository.deleteAll();
         exchangeRateRepository.deleteAll();
+        exchangeRateHistoryRepository.deleteAll();
         currencyRepository.deleteAll();
 
         usdCurrency = new Currency();
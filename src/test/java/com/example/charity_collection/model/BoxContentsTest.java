@@ -0,0 +1,87 @@
+package com.example.charity_collection.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoxContentsTest {
+
+    @Test
+    void add_AccumulatesPerOrdinal() {
+        BoxContents contents = new BoxContents();
+
+        contents.add(3, 150);
+        contents.add(3, 225);
+        contents.add(0, 500);
+
+        assertEquals(375, contents.amount(3));
+        assertEquals(500, contents.amount(0));
+        assertEquals(0, contents.amount(1));
+        assertTrue(contents.contains(3));
+        assertFalse(contents.contains(1));
+    }
+
+    @Test
+    void add_ZeroSumStaysPresent() {
+        BoxContents contents = new BoxContents();
+
+        contents.add(2, 100);
+        contents.add(2, -100);
+
+        assertTrue(contents.contains(2));
+        assertFalse(contents.isEmpty());
+    }
+
+    @Test
+    void add_GrowsBeyondInitialCapacity() {
+        BoxContents contents = new BoxContents(1);
+
+        contents.add(0, 1);
+        contents.add(130, 2);
+
+        assertEquals(1, contents.amount(0));
+        assertEquals(2, contents.amount(130));
+        assertFalse(contents.contains(129));
+        assertEquals(0, contents.amount(1000));
+    }
+
+    @Test
+    void add_DetectsOverflowWithoutChangingTheAmount() {
+        BoxContents contents = new BoxContents();
+        contents.add(1, Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> contents.add(1, 1));
+        assertEquals(Long.MAX_VALUE, contents.amount(1));
+    }
+
+    @Test
+    void forEach_VisitsPresentOrdinalsInOrder() {
+        BoxContents contents = new BoxContents();
+        contents.add(70, 7);
+        contents.add(5, 5);
+        contents.add(64, 6);
+
+        List<String> visited = new ArrayList<>();
+        contents.forEach((ordinal, minorUnits) -> visited.add(ordinal + "=" + minorUnits));
+
+        assertEquals(List.of("5=5", "64=6", "70=7"), visited);
+    }
+
+    @Test
+    void addAll_MergesOtherContents() {
+        BoxContents contents = new BoxContents();
+        contents.add(1, 100);
+        BoxContents other = new BoxContents();
+        other.add(1, 50);
+        other.add(66, 25);
+
+        contents.addAll(other);
+
+        assertEquals(150, contents.amount(1));
+        assertEquals(25, contents.amount(66));
+        assertTrue(new BoxContents().isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.charity_collection.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    void of_RoundsHalfUpToScale() {
+        assertEquals(new Money(1001, 2), Money.of(new BigDecimal("10.005"), 2));
+        assertEquals(new Money(-1001, 2), Money.of(new BigDecimal("-10.005"), 2));
+        assertEquals(new Money(1000, 2), Money.of(new BigDecimal("10.004"), 2));
+    }
+
+    @Test
+    void of_UsesCurrencyFractionDigits() {
+        assertEquals(new Money(1050, 2), Money.of(new BigDecimal("10.50"), "EUR"));
+        assertEquals(new Money(1050, 2), Money.of(new BigDecimal("10.5000"), "EUR"));
+        assertEquals(new Money(10, 0), Money.of(new BigDecimal("10.00"), "JPY"));
+        assertEquals(2, Money.scaleOf("XYZ"));
+    }
+
+    @Test
+    void of_MoreDecimalPlacesThanCurrencyAllows_ThrowsException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Money.of(new BigDecimal("10.005"), "EUR"));
+        assertEquals("Amount 10.005 has more decimal places than EUR allows (2)", exception.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("10.50"), "JPY"));
+    }
+
+    @Test
+    void of_OutOfRange_ThrowsException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Money.of(new BigDecimal("100000000000000000000"), 2));
+
+        assertEquals("Amount out of range: 100000000000000000000", exception.getMessage());
+    }
+
+    @Test
+    void plus_AddsAndDetectsOverflow() {
+        assertEquals(new Money(350, 2), new Money(100, 2).plus(new Money(250, 2)));
+        assertThrows(ArithmeticException.class, () -> new Money(Long.MAX_VALUE, 2).plus(new Money(1, 2)));
+        assertThrows(IllegalArgumentException.class, () -> new Money(1, 2).plus(new Money(1, 0)));
+    }
+
+    @Test
+    void convert_AppliesRateWithHalfUpRounding() {
+        CrossRate rate = CrossRate.of(new BigDecimal("4.5"));
+
+        assertEquals(new Money(22500, 2), new Money(5000, 2).convert(rate, 2));
+        assertEquals(new Money(5, 2), new Money(1, 2).convert(rate, 2));
+        assertEquals(new Money(-5, 2), new Money(-1, 2).convert(rate, 2));
+        assertEquals(new Money(4, 2), new Money(1, 2).convert(CrossRate.of(new BigDecimal("4.49")), 2));
+        assertEquals(new Money(45, 0), new Money(1000, 2).convert(rate, 0));
+        assertEquals(new Money(4500, 2), new Money(10, 0).convert(rate, 2));
+    }
+
+    @Test
+    void convert_LargeAmounts_MatchesBigDecimalArithmetic() {
+        Money amount = new Money(9_000_000_000_000_000L, 2);
+        BigDecimal rate = new BigDecimal("0.234567");
+
+        BigDecimal expected = amount.toBigDecimal().multiply(rate).setScale(2, java.math.RoundingMode.HALF_UP);
+
+        assertEquals(expected, amount.convert(CrossRate.of(rate), 2).toBigDecimal());
+        assertThrows(ArithmeticException.class,
+                () -> new Money(Long.MAX_VALUE / 2, 2).convert(CrossRate.of(new BigDecimal("4.5")), 2));
+    }
+
+    @Test
+    void convert_ThroughPln_RoundsOnlyTheResult() {
+        CrossRate vndToIdr = new CrossRate(Money.rateUnits(new BigDecimal("0.00014565")), Money.rateUnits(new BigDecimal("0.00022901")));
+        Money amount = new Money(10_000_000, 0);
+
+        BigDecimal expected = new BigDecimal("10000000").multiply(new BigDecimal("0.00014565"))
+                .divide(new BigDecimal("0.00022901"), 2, java.math.RoundingMode.HALF_UP);
+
+        assertEquals(new BigDecimal("6359984.28"), expected);
+        assertEquals(expected, amount.convert(vndToIdr, 2).toBigDecimal());
+        assertEquals(new Money(-635998428, 2), amount.negate().convert(vndToIdr, 2));
+    }
+
+    @Test
+    void convert_SameRateOnBothSides_OnlyRescales() {
+        CrossRate rate = new CrossRate(Money.rateUnits(new BigDecimal("4.2567")), Money.rateUnits(new BigDecimal("4.2567")));
+
+        assertEquals(new Money(Long.MAX_VALUE, 2), new Money(Long.MAX_VALUE, 2).convert(rate, 2));
+        assertEquals(new Money(500, 2), new Money(5, 0).convert(CrossRate.ONE, 2));
+    }
+
+    @Test
+    void withScale_RescalesExactlyOrWithHalfUpRounding() {
+        assertEquals(new Money(500, 2), new Money(5, 0).withScale(2));
+        assertEquals(new Money(6, 0), new Money(550, 2).withScale(0));
+    }
+
+    @Test
+    void crossRate_KeepsBothPlnRates() {
+        CrossRate rate = new CrossRate(Money.rateUnits(new BigDecimal("4.00")), Money.rateUnits(new BigDecimal("4.25")));
+
+        assertEquals(new BigDecimal("0.941176"), rate.toBigDecimal(6));
+        assertEquals(new BigDecimal("0.0002290100"), CrossRate.of(new BigDecimal("0.00022901")).toBigDecimal(Money.RATE_SCALE));
+        assertTrue(CrossRate.MISSING.isMissing());
+        assertTrue(new CrossRate(Money.RATE_ONE, 0).isMissing());
+    }
+
+    @Test
+    void toBigDecimal_KeepsScale() {
+        assertEquals(new BigDecimal("12.30"), new Money(1230, 2).toBigDecimal());
+        assertEquals("12.30", new Money(1230, 2).toString());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.BulkAssignCollectionBoxesDto;
+import com.example.charity_collection.dto.BulkAssignCollectionBoxesResponseDto;
+import com.example.charity_collection.dto.BulkRegisterCollectionBoxesResponseDto;
+import com.example.charity_collection.dto.CollectionBoxRegistrationResultDto;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.FundraisingEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CollectionBoxBatchServiceTest {
+
+    @Mock
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Mock
+    private FundraisingEventRepository fundraisingEventRepository;
+
+    @Mock
+    private CollectionBoxIdentifierFilter identifierFilter;
+
+    @Mock
+    private CollectionBoxCache collectionBoxCache;
+
+    private CollectionBoxBatchService collectionBoxBatchService;
+
+    @BeforeEach
+    void setUp() {
+        collectionBoxBatchService = new CollectionBoxBatchService(collectionBoxRepository, fundraisingEventRepository,
+                identifierFilter, collectionBoxCache, 2);
+    }
+
+    @Test
+    void registerCollectionBoxes_ChecksOnlyFilterPositivesAndInsertsInBatches() {
+        when(identifierFilter.mightContain(anyString())).thenAnswer(invocation -> invocation.<String>getArgument(0).startsWith("OLD"));
+        when(collectionBoxRepository.findExistingIdentifiers(List.of("OLD1", "OLD2"))).thenReturn(List.of("OLD1"));
+        when(collectionBoxRepository.insertEmptyBoxes(List.of("BOX1", "OLD2"))).thenReturn(List.of(10L, 11L));
+        when(collectionBoxRepository.insertEmptyBoxes(List.of("BOX2"))).thenReturn(List.of(12L));
+
+        BulkRegisterCollectionBoxesResponseDto response = collectionBoxBatchService.registerCollectionBoxes(
+                Arrays.asList("BOX1", "OLD1", "OLD2", "BOX1", " ", "BOX2"));
+
+        assertEquals(6, response.getTotal());
+        assertEquals(3, response.getSucceeded());
+        assertEquals(3, response.getFailed());
+
+        List<CollectionBoxRegistrationResultDto> results = response.getResults();
+        assertEquals(10L, results.get(0).getId());
+        assertEquals("Collection box with identifier OLD1 already exists", results.get(1).getMessage());
+        assertEquals(11L, results.get(2).getId());
+        assertEquals("Duplicate identifier in request: BOX1", results.get(3).getMessage());
+        assertEquals("An identifier is required", results.get(4).getMessage());
+        assertTrue(results.get(5).isSuccess());
+        assertEquals(12L, results.get(5).getId());
+
+        verify(collectionBoxRepository, times(1)).findExistingIdentifiers(anyCollection());
+        verify(identifierFilter).add("BOX1");
+        verify(identifierFilter).add("OLD2");
+        verify(identifierFilter).add("BOX2");
+    }
+
+    @Test
+    void registerCollectionBoxes_AllRuledOutByFilter_RunsNoLookup() {
+        when(identifierFilter.mightContain(anyString())).thenReturn(false);
+        when(collectionBoxRepository.insertEmptyBoxes(List.of("BOX1"))).thenReturn(List.of(1L));
+
+        BulkRegisterCollectionBoxesResponseDto response = collectionBoxBatchService.registerCollectionBoxes(List.of("BOX1"));
+
+        assertEquals(1, response.getSucceeded());
+        verify(collectionBoxRepository, never()).findExistingIdentifiers(anyCollection());
+    }
+
+    @Test
+    void assignCollectionBoxesToEvent_ByList_AssignsEmptyBoxesAndReportsOthers() {
+        FundraisingEvent fundraisingEvent = new FundraisingEvent();
+        when(fundraisingEventRepository.existsById(7L)).thenReturn(true);
+        when(fundraisingEventRepository.getReferenceById(7L)).thenReturn(fundraisingEvent);
+        when(collectionBoxRepository.findNonEmptyIdentifiers(Set.of("BOX1", "BOX2", "BOX3"))).thenReturn(List.of("BOX2"));
+        when(collectionBoxRepository.assignEmptyBoxes(fundraisingEvent, Set.of("BOX1", "BOX2", "BOX3"))).thenReturn(2);
+
+        BulkAssignCollectionBoxesResponseDto response = collectionBoxBatchService.assignCollectionBoxesToEvent(
+                BulkAssignCollectionBoxesDto.builder()
+                        .collectionBoxIdentifiers(List.of("BOX1", "BOX2", "BOX3", "BOX1"))
+                        .fundraisingEventId(7L)
+                        .build());
+
+        assertEquals(7L, response.getFundraisingEventId());
+        assertEquals(2, response.getAssigned());
+        assertEquals(List.of("BOX2"), response.getRejectedNotEmpty());
+        verify(collectionBoxCache).invalidateAllAfterCompletion(any());
+
+        InOrder inOrder = inOrder(collectionBoxRepository);
+        inOrder.verify(collectionBoxRepository).lockAllByIdentifierIn(Set.of("BOX1", "BOX2", "BOX3"));
+        inOrder.verify(collectionBoxRepository).findNonEmptyIdentifiers(Set.of("BOX1", "BOX2", "BOX3"));
+        inOrder.verify(collectionBoxRepository).assignEmptyBoxes(fundraisingEvent, Set.of("BOX1", "BOX2", "BOX3"));
+    }
+
+    @Test
+    void assignCollectionBoxesToEvent_ByRange_UsesRangeQueries() {
+        FundraisingEvent fundraisingEvent = new FundraisingEvent();
+        when(fundraisingEventRepository.existsById(7L)).thenReturn(true);
+        when(fundraisingEventRepository.getReferenceById(7L)).thenReturn(fundraisingEvent);
+        when(collectionBoxRepository.findNonEmptyIdentifiersBetween("BOX0001", "BOX5000")).thenReturn(List.of());
+        when(collectionBoxRepository.assignEmptyBoxesBetween(fundraisingEvent, "BOX0001", "BOX5000")).thenReturn(5000);
+
+        BulkAssignCollectionBoxesResponseDto response = collectionBoxBatchService.assignCollectionBoxesToEvent(
+                BulkAssignCollectionBoxesDto.builder()
+                        .fromIdentifier("BOX0001")
+                        .toIdentifier("BOX5000")
+                        .fundraisingEventId(7L)
+                        .build());
+
+        assertEquals(5000, response.getAssigned());
+        assertTrue(response.getRejectedNotEmpty().isEmpty());
+        verify(collectionBoxRepository, never()).assignEmptyBoxes(any(), anyCollection());
+
+        InOrder inOrder = inOrder(collectionBoxRepository);
+        inOrder.verify(collectionBoxRepository).lockAllByIdentifierBetween("BOX0001", "BOX5000");
+        inOrder.verify(collectionBoxRepository).findNonEmptyIdentifiersBetween("BOX0001", "BOX5000");
+        inOrder.verify(collectionBoxRepository).assignEmptyBoxesBetween(fundraisingEvent, "BOX0001", "BOX5000");
+    }
+
+    @Test
+    void assignCollectionBoxesToEvent_ListAndRange_ThrowsException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> collectionBoxBatchService.assignCollectionBoxesToEvent(BulkAssignCollectionBoxesDto.builder()
+                        .collectionBoxIdentifiers(List.of("BOX1"))
+                        .fromIdentifier("BOX1")
+                        .toIdentifier("BOX9")
+                        .fundraisingEventId(7L)
+                        .build()));
+
+        assertEquals("Either collectionBoxIdentifiers or both fromIdentifier and toIdentifier are required", exception.getMessage());
+        verifyNoInteractions(collectionBoxRepository, fundraisingEventRepository);
+    }
+
+    @Test
+    void assignCollectionBoxesToEvent_UnknownEvent_ThrowsException() {
+        when(fundraisingEventRepository.existsById(99L)).thenReturn(false);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> collectionBoxBatchService.assignCollectionBoxesToEvent(BulkAssignCollectionBoxesDto.builder()
+                        .collectionBoxIdentifiers(List.of("BOX1"))
+                        .fundraisingEventId(99L)
+                        .build()));
+
+        assertEquals("Fundraising event not found with id: 99", exception.getMessage());
+        verifyNoInteractions(collectionBoxRepository);
+    }
+}
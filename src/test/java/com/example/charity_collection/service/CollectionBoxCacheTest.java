@@ -0,0 +1,113 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.CollectionBoxCacheStatsDto;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.CollectionBoxState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CollectionBoxCacheTest {
+
+    @Mock
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Mock
+    private CurrencyRegistry currencyRegistry;
+
+    private CollectionBoxCache collectionBoxCache;
+
+    @BeforeEach
+    void setUp() {
+        collectionBoxCache = new CollectionBoxCache(collectionBoxRepository, currencyRegistry, 2, 1);
+    }
+
+    @Test
+    void get_LoadsOnceAndServesRepeatedLookupsFromMemory() {
+        when(collectionBoxRepository.findStateByIdentifier("BOX1")).thenReturn(Optional.of(new CollectionBoxState(1L, 10L, 3L, true)));
+        when(currencyRegistry.ordinalOf(3L)).thenReturn(2);
+
+        CollectionBoxCache.BoxState first = collectionBoxCache.get("BOX1").orElseThrow();
+        CollectionBoxCache.BoxState second = collectionBoxCache.get("BOX1").orElseThrow();
+
+        assertEquals(new CollectionBoxCache.BoxState(1L, 10L, 2, true), first);
+        assertSame(first, second);
+        verify(collectionBoxRepository, times(1)).findStateByIdentifier("BOX1");
+
+        CollectionBoxCacheStatsDto stats = collectionBoxCache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRatio());
+    }
+
+    @Test
+    void get_UnassignedOrMissingBox_IsNotMistakenForAssigned() {
+        when(collectionBoxRepository.findStateByIdentifier("BOX1")).thenReturn(Optional.of(new CollectionBoxState(1L, null, null, true)));
+        when(collectionBoxRepository.findStateByIdentifier("MISSING")).thenReturn(Optional.empty());
+
+        assertFalse(collectionBoxCache.get("BOX1").orElseThrow().isAssigned());
+        assertTrue(collectionBoxCache.get("MISSING").isEmpty());
+        assertTrue(collectionBoxCache.get("MISSING").isEmpty());
+
+        verify(collectionBoxRepository, times(2)).findStateByIdentifier("MISSING");
+        verifyNoInteractions(currencyRegistry);
+    }
+
+    @Test
+    void invalidateAfterCompletion_ForcesReload() {
+        when(collectionBoxRepository.findStateByIdentifier("BOX1"))
+                .thenReturn(Optional.of(new CollectionBoxState(1L, null, null, true)))
+                .thenReturn(Optional.of(new CollectionBoxState(1L, 10L, 3L, true)));
+
+        assertFalse(collectionBoxCache.get("BOX1").orElseThrow().isAssigned());
+        collectionBoxCache.invalidateAfterCompletion("BOX1");
+
+        assertTrue(collectionBoxCache.get("BOX1").orElseThrow().isAssigned());
+        assertEquals(1, collectionBoxCache.stats().getInvalidations());
+    }
+
+    @Test
+    void get_BeyondCapacity_EvictsLeastRecentlyUsed() {
+        when(collectionBoxRepository.findStateByIdentifier(anyString())).thenAnswer(invocation ->
+                Optional.of(new CollectionBoxState((long) invocation.<String>getArgument(0).hashCode(), null, null, true)));
+
+        collectionBoxCache.get("BOX1");
+        collectionBoxCache.get("BOX2");
+        collectionBoxCache.get("BOX1");
+        collectionBoxCache.get("BOX3");
+        collectionBoxCache.get("BOX1");
+        collectionBoxCache.get("BOX2");
+
+        verify(collectionBoxRepository, times(1)).findStateByIdentifier("BOX1");
+        verify(collectionBoxRepository, times(2)).findStateByIdentifier("BOX2");
+        CollectionBoxCacheStatsDto stats = collectionBoxCache.stats();
+        assertEquals(2, stats.getSize());
+        assertEquals(2, stats.getEvictions());
+    }
+
+    @Test
+    void invalidateAllAfterCompletion_DropsOnlyMatchingEntries() {
+        when(collectionBoxRepository.findStateByIdentifier(anyString())).thenAnswer(invocation ->
+                Optional.of(new CollectionBoxState((long) invocation.<String>getArgument(0).hashCode(), null, null, true)));
+        collectionBoxCache = new CollectionBoxCache(collectionBoxRepository, currencyRegistry, 10, 4);
+
+        collectionBoxCache.get("BOX1");
+        collectionBoxCache.get("BOX2");
+        collectionBoxCache.get("OTHER");
+        collectionBoxCache.invalidateAllAfterCompletion(identifier -> identifier.startsWith("BOX"));
+        collectionBoxCache.get("BOX1");
+        collectionBoxCache.get("OTHER");
+
+        verify(collectionBoxRepository, times(2)).findStateByIdentifier("BOX1");
+        verify(collectionBoxRepository, times(1)).findStateByIdentifier("OTHER");
+        assertEquals(2, collectionBoxCache.stats().getInvalidations());
+    }
+}
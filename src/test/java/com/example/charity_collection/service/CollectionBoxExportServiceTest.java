@@ -0,0 +1,77 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.CollectionBoxInfoDto;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.CollectionBoxSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CollectionBoxExportServiceTest {
+
+    @Mock
+    private CollectionBoxRepository collectionBoxRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CollectionBoxExportService collectionBoxExportService;
+
+    @BeforeEach
+    void setUp() {
+        collectionBoxExportService = new CollectionBoxExportService(collectionBoxRepository, objectMapper, 1);
+    }
+
+    @Test
+    void exportCollectionBoxes_Ndjson_WritesOneObjectPerRowAndClosesCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(collectionBoxRepository.streamAllSummaries()).thenReturn(Stream.of(
+                new CollectionBoxSummary(1L, "BOX001", true, null),
+                new CollectionBoxSummary(2L, "BOX002", false, 7L)).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = collectionBoxExportService.exportCollectionBoxes(CollectionBoxExportService.Format.NDJSON, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        assertEquals(new CollectionBoxInfoDto(1L, "BOX001", true, false), objectMapper.readValue(lines[0], CollectionBoxInfoDto.class));
+        assertEquals(new CollectionBoxInfoDto(2L, "BOX002", false, true), objectMapper.readValue(lines[1], CollectionBoxInfoDto.class));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void exportCollectionBoxes_Csv_WritesHeaderAndQuotesIdentifiers() throws Exception {
+        when(collectionBoxRepository.streamAllSummaries()).thenReturn(Stream.of(
+                new CollectionBoxSummary(1L, "BOX001", true, null),
+                new CollectionBoxSummary(2L, "HALL, \"A\"", false, 7L)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        collectionBoxExportService.exportCollectionBoxes(CollectionBoxExportService.Format.CSV, output);
+
+        assertEquals("id,identifier,empty,assigned\n" +
+                "1,BOX001,true,false\n" +
+                "2,\"HALL, \"\"A\"\"\",false,true\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void formatOf_UnknownFormat_ThrowsException() {
+        assertEquals(CollectionBoxExportService.Format.CSV, CollectionBoxExportService.Format.of("csv"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> CollectionBoxExportService.Format.of("xml"));
+
+        assertEquals("Unsupported export format: xml", exception.getMessage());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CollectionBoxIdentifierFilterTest {
+
+    @Mock
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CollectionBoxIdentifierFilter identifierFilter;
+
+    @BeforeEach
+    void setUp() {
+        identifierFilter = new CollectionBoxIdentifierFilter(collectionBoxRepository,
+                new TransactionTemplate(transactionManager), 10000, 0.01);
+    }
+
+    @Test
+    void afterSingletonsInstantiated_LoadsExistingIdentifiers() {
+        when(collectionBoxRepository.streamAllIdentifiers()).thenReturn(Stream.of("BOX001", "BOX002"));
+
+        identifierFilter.afterSingletonsInstantiated();
+
+        assertTrue(identifierFilter.mightContain("BOX001"));
+        assertTrue(identifierFilter.mightContain("BOX002"));
+        assertFalse(identifierFilter.mightContain("BOX003"));
+    }
+
+    @Test
+    void mightContain_HasNoFalseNegativesAndFewFalsePositives() {
+        IntStream.range(0, 10000).forEach(i -> identifierFilter.add("BOX" + i));
+
+        assertTrue(IntStream.range(0, 10000).allMatch(i -> identifierFilter.mightContain("BOX" + i)));
+
+        long falsePositives = IntStream.range(0, 10000).filter(i -> identifierFilter.mightContain("OTHER" + i)).count();
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertEquals(20000, identifierFilter.probes());
+        assertEquals(10000 - falsePositives, identifierFilter.negatives());
+    }
+
+    @Test
+    void removeAfterCommit_ForgetsIdentifierButKeepsOthers() {
+        identifierFilter.add("BOX001");
+        identifierFilter.add("BOX002");
+
+        identifierFilter.removeAfterCommit("BOX001");
+
+        assertFalse(identifierFilter.mightContain("BOX001"));
+        assertTrue(identifierFilter.mightContain("BOX002"));
+    }
+}
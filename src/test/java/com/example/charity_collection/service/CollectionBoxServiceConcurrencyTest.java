@@ -0,0 +1,388 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.AddMoneyDto;
+import com.example.charity_collection.dto.AssignCollectionBoxDto;
+import com.example.charity_collection.dto.BulkAddMoneyResponseDto;
+import com.example.charity_collection.dto.BulkAssignCollectionBoxesDto;
+import com.example.charity_collection.dto.BulkAssignCollectionBoxesResponseDto;
+import com.example.charity_collection.model.CollectionBox;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class CollectionBoxServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 100;
+
+    @Autowired
+    private CollectionBoxService collectionBoxService;
+
+    @Autowired
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Autowired
+    private CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+
+    @Autowired
+    private FundraisingEventRepository fundraisingEventRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
+    @Autowired
+    private DonationBatchService donationBatchService;
+
+    @Autowired
+    private CollectionBoxBatchService collectionBoxBatchService;
+
+    @Autowired
+    private DonationLedgerRepository donationLedgerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private FundraisingEvent savedEvent;
+
+    @BeforeEach
+    void setUp() {
+        collectionBoxRepository.deleteAll();
+        fundraisingEventRepository.deleteAll();
+        exchangeRateRepository.deleteAll();
+        exchangeRateHistoryRepository.deleteAll();
+        currencyRepository.deleteAll();
+
+        Currency usdCurrency = new Currency();
+        usdCurrency.setCode("USD");
+        usdCurrency.setName("US Dollar");
+        usdCurrency = currencyRepository.save(usdCurrency);
+
+        Currency eurCurrency = new Currency();
+        eurCurrency.setCode("EUR");
+        eurCurrency.setName("Euro");
+        currencyRepository.save(eurCurrency);
+
+        savedEvent = fundraisingEventRepository.save(FundraisingEvent.builder()
+                .name("Street Collection")
+                .accountBalance(BigDecimal.ZERO)
+                .currency(usdCurrency)
+                .build());
+
+        collectionBoxRepository.save(CollectionBox.builder()
+                .identifier("BOX001")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build());
+    }
+
+    @Test
+    void concurrentAdds_ShouldNeverLoseMoney() throws Exception {
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                collectionBoxService.addMoneyToCollectionBox(donation("0.01", "USD"));
+                collectionBoxService.addMoneyToCollectionBox(donation("0.05", "EUR"));
+            }
+        });
+
+        List<CurrencyBalance> balances = balancesOfBox();
+        assertThat(balances).hasSize(2);
+        assertThat(amountOf(balances, "USD")).isEqualByComparingTo(new BigDecimal("0.01").multiply(total()));
+        assertThat(amountOf(balances, "EUR")).isEqualByComparingTo(new BigDecimal("0.05").multiply(total()));
+        assertThat(collectionBoxRepository.findByIdentifier("BOX001").orElseThrow().getIsEmpty()).isFalse();
+    }
+
+    @Test
+    void concurrentAddsAndEmpties_ShouldNeverLoseMoney() throws Exception {
+        AtomicBoolean adding = new AtomicBoolean(true);
+
+        ExecutorService emptier = Executors.newSingleThreadExecutor();
+        Future<?> emptying = emptier.submit(() -> {
+            while (adding.get()) {
+                try {
+                    collectionBoxService.emptyCollectionBox("BOX001");
+                } catch (IllegalArgumentException e) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+
+        try {
+            runConcurrently(THREADS, thread -> {
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    collectionBoxService.addMoneyToCollectionBox(donation("1.00", "USD"));
+                }
+            });
+        } finally {
+            adding.set(false);
+            emptying.get(30, TimeUnit.SECONDS);
+            emptier.shutdown();
+        }
+
+        BigDecimal transferred = fundraisingEventRepository.findById(savedEvent.getId()).orElseThrow().getAccountBalance();
+        BigDecimal remaining = amountOf(balancesOfBox(), "USD");
+
+        assertThat(transferred.add(remaining)).isEqualByComparingTo(total());
+    }
+
+    @Test
+    void assignWhileAddIsUncommitted_ShouldSeeTheDonation() throws Exception {
+        FundraisingEvent otherEvent = fundraisingEventRepository.save(FundraisingEvent.builder()
+                .name("Station Collection")
+                .accountBalance(BigDecimal.ZERO)
+                .currency(savedEvent.getCurrency())
+                .build());
+        CountDownLatch added = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> adding = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                collectionBoxService.addMoneyToCollectionBox(donation("1.00", "USD"));
+                added.countDown();
+                try {
+                    commit.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(added.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Future<?> assigning = executor.submit(() -> collectionBoxService.assignCollectionBoxToEvent(AssignCollectionBoxDto.builder()
+                    .collectionBoxIdentifier("BOX001")
+                    .fundraisingEventId(otherEvent.getId())
+                    .build()));
+            Thread.sleep(200);
+            commit.countDown();
+            adding.get(10, TimeUnit.SECONDS);
+
+            assertThatThrownBy(() -> assigning.get(10, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Non-empty box");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        collectionBoxService.emptyCollectionBox("BOX001");
+        assertThat(fundraisingEventRepository.findById(savedEvent.getId()).orElseThrow().getAccountBalance())
+                .isEqualByComparingTo("1.00");
+    }
+
+    @Test
+    void bulkAssignWhileAddIsUncommitted_ShouldReportTheBoxAsNotEmpty() throws Exception {
+        FundraisingEvent otherEvent = fundraisingEventRepository.save(FundraisingEvent.builder()
+                .name("Station Collection")
+                .accountBalance(BigDecimal.ZERO)
+                .currency(savedEvent.getCurrency())
+                .build());
+        CountDownLatch added = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> adding = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                collectionBoxService.addMoneyToCollectionBox(donation("1.00", "USD"));
+                added.countDown();
+                try {
+                    commit.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(added.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Future<BulkAssignCollectionBoxesResponseDto> assigning = executor.submit(() ->
+                    collectionBoxBatchService.assignCollectionBoxesToEvent(BulkAssignCollectionBoxesDto.builder()
+                            .collectionBoxIdentifiers(List.of("BOX001"))
+                            .fundraisingEventId(otherEvent.getId())
+                            .build()));
+            Thread.sleep(200);
+            commit.countDown();
+            adding.get(10, TimeUnit.SECONDS);
+
+            BulkAssignCollectionBoxesResponseDto result = assigning.get(10, TimeUnit.SECONDS);
+            assertThat(result.getAssigned()).isZero();
+            assertThat(result.getRejectedNotEmpty()).containsExactly("BOX001");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void batchAddWhileUnregisterIsUncommitted_ShouldFailTheDeletedBox() throws Exception {
+        CountDownLatch deleted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> unregistering = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                collectionBoxService.unregisterCollectionBox("BOX001");
+                collectionBoxRepository.flush();
+                deleted.countDown();
+                try {
+                    commit.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(deleted.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Future<BulkAddMoneyResponseDto> adding = executor.submit(() ->
+                    donationBatchService.addMoneyToCollectionBoxes(List.of(donation("1.00", "USD"))));
+            Thread.sleep(200);
+            commit.countDown();
+            unregistering.get(10, TimeUnit.SECONDS);
+
+            BulkAddMoneyResponseDto result = adding.get(10, TimeUnit.SECONDS);
+            assertThat(result.getFailed()).isEqualTo(1);
+            assertThat(result.getResults().get(0).getMessage()).isEqualTo("Collection box not found with identifier: BOX001");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(donationLedgerRepository.count()).isZero();
+    }
+
+    @Test
+    void concurrentAddsAssignsAndEmpties_ShouldNeverStrandMoney() throws Exception {
+        collectionBoxRepository.deleteAll();
+        collectionBoxRepository.save(CollectionBox.builder()
+                .identifier("BOX001")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build());
+        FundraisingEvent otherEvent = fundraisingEventRepository.save(FundraisingEvent.builder()
+                .name("Station Collection")
+                .accountBalance(BigDecimal.ZERO)
+                .currency(savedEvent.getCurrency())
+                .build());
+        AtomicBoolean adding = new AtomicBoolean(true);
+
+        ExecutorService maintainer = Executors.newFixedThreadPool(2);
+        Future<?> assigning = maintainer.submit(() -> {
+            // Alternating events makes every successful assign write the box row
+            for (long round = 0; adding.get(); round++) {
+                try {
+                    collectionBoxService.assignCollectionBoxToEvent(AssignCollectionBoxDto.builder()
+                            .collectionBoxIdentifier("BOX001")
+                            .fundraisingEventId(round % 2 == 0 ? savedEvent.getId() : otherEvent.getId())
+                            .build());
+                } catch (IllegalArgumentException e) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        Future<?> emptying = maintainer.submit(() -> {
+            while (adding.get()) {
+                try {
+                    collectionBoxService.emptyCollectionBox("BOX001");
+                } catch (IllegalArgumentException e) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+
+        AtomicInteger added = new AtomicInteger();
+        try {
+            runConcurrently(THREADS, thread -> {
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    collectionBoxService.addMoneyToCollectionBox(donation("1.00", "USD"));
+                    added.incrementAndGet();
+                }
+            });
+        } finally {
+            adding.set(false);
+            assigning.get(30, TimeUnit.SECONDS);
+            emptying.get(30, TimeUnit.SECONDS);
+            maintainer.shutdown();
+        }
+
+        if (!collectionBoxRepository.findByIdentifier("BOX001").orElseThrow().getIsEmpty()) {
+            collectionBoxService.emptyCollectionBox("BOX001");
+        }
+
+        BigDecimal transferred = fundraisingEventRepository.findById(savedEvent.getId()).orElseThrow().getAccountBalance()
+                .add(fundraisingEventRepository.findById(otherEvent.getId()).orElseThrow().getAccountBalance());
+        assertThat(added.get()).isEqualTo(THREADS * ADDS_PER_THREAD);
+        assertThat(transferred).isEqualByComparingTo(BigDecimal.valueOf(added.get()));
+        assertThat(amountOf(balancesOfBox(), "USD")).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    private void runConcurrently(int threads, ThrowingConsumer<Integer> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.accept(thread);
+                return null;
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BigDecimal total() {
+        return BigDecimal.valueOf((long) THREADS * ADDS_PER_THREAD);
+    }
+
+    private List<CurrencyBalance> balancesOfBox() {
+        return collectionBoxMoneyRepository.findBalances(collectionBoxRepository.findByIdentifier("BOX001").orElseThrow().getId());
+    }
+
+    private BigDecimal amountOf(List<CurrencyBalance> balances, String currencyCode) {
+        Long currencyId = currencyRepository.findByCode(currencyCode).orElseThrow().getId();
+        return balances.stream()
+                .filter(balance -> balance.currencyId().equals(currencyId))
+                .map(CurrencyBalance::amount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private AddMoneyDto donation(String amount, String currencyCode) {
+        return AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX001")
+                .amount(new BigDecimal(amount))
+                .currencyCode(currencyCode)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface ThrowingConsumer<T> {
+        void accept(T value) throws Exception;
+    }
+}
@@ -2,26 +2,25 @@ package com.example.charity_collection.service;
 
 import com.example.charity_collection.dto.*;
 import com.example.charity_collection.model.*;
-import com.example.charity_collection.repository.CollectionBoxRepository;
-import com.example.charity_collection.repository.CurrencyRepository;
-import com.example.charity_collection.repository.ExchangeRateRepository;
-import com.example.charity_collection.repository.FundraisingEventRepository;
+import com.example.charity_collection.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,14 +29,32 @@ public class CollectionBoxServiceTest {
     @Mock
     private CollectionBoxRepository collectionBoxRepository;
 
+    @Mock
+    private CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+
+    @Mock
+    private DonationLedgerRepository donationLedgerRepository;
+
     @Mock
     private FundraisingEventRepository fundraisingEventRepository;
 
     @Mock
-    private CurrencyRepository currencyRepository;
+    private CurrencyRegistry currencyRegistry;
+
+    @Mock
+    private ExchangeRateMatrix exchangeRateMatrix;
 
     @Mock
-    private ExchangeRateRepository exchangeRateRepository;
+    private DonationWriteBehindBuffer donationWriteBehindBuffer;
+
+    @Mock
+    private PendingDonationTotals pendingDonationTotals;
+
+    @Mock
+    private CollectionBoxCache collectionBoxCache;
+
+    @Mock
+    private CollectionBoxIdentifierFilter identifierFilter;
 
     @InjectMocks
     private CollectionBoxService collectionBoxService;
@@ -46,7 +63,7 @@ public class CollectionBoxServiceTest {
     private FundraisingEvent fundraisingEvent;
     private Currency plnCurrency;
     private Currency eurCurrency;
-    private ExchangeRate exchangeRate;
+    private ExchangeRateMatrix.Snapshot rates;
 
     @BeforeEach
     void setUp() {
@@ -76,11 +93,7 @@ public class CollectionBoxServiceTest {
                 .money(new ArrayList<>())
                 .build();
 
-        exchangeRate = new ExchangeRate();
-        exchangeRate.setId(1L);
-        exchangeRate.setFromCurrency(eurCurrency);
-        exchangeRate.setToCurrency(plnCurrency);
-        exchangeRate.setRate(new BigDecimal("4.5"));
+        rates = new ExchangeRateMatrix.Snapshot(7L, new long[]{Money.RATE_ONE, Money.rateUnits(new BigDecimal("4.5"))});
     }
 
 
@@ -91,6 +104,7 @@ public class CollectionBoxServiceTest {
                 .isEmpty(true)
                 .build();
 
+        when(identifierFilter.mightContain("BOX123")).thenReturn(true);
         when(collectionBoxRepository.findByIdentifier(inputDto.getIdentifier())).thenReturn(Optional.empty());
         when(collectionBoxRepository.save(any(CollectionBox.class))).thenReturn(collectionBox);
 
@@ -102,6 +116,23 @@ public class CollectionBoxServiceTest {
         assertEquals(collectionBox.getIsEmpty(), result.getIsEmpty());
         verify(collectionBoxRepository).findByIdentifier(inputDto.getIdentifier());
         verify(collectionBoxRepository).save(any(CollectionBox.class));
+        verify(collectionBoxCache).invalidateAfterCompletion("BOX123");
+    }
+
+    @Test
+    void registerCollectionBox_IdentifierRuledOutByFilter_SkipsLookup() {
+        CollectionBoxDto inputDto = CollectionBoxDto.builder()
+                .identifier("BOX123")
+                .isEmpty(true)
+                .build();
+
+        when(identifierFilter.mightContain("BOX123")).thenReturn(false);
+        when(collectionBoxRepository.save(any(CollectionBox.class))).thenReturn(collectionBox);
+
+        CollectionBoxDto result = collectionBoxService.registerCollectionBox(inputDto);
+
+        assertEquals(collectionBox.getId(), result.getId());
+        verify(collectionBoxRepository, never()).findByIdentifier(anyString());
     }
 
     @Test
@@ -111,6 +142,7 @@ public class CollectionBoxServiceTest {
                 .isEmpty(true)
                 .build();
 
+        when(identifierFilter.mightContain("BOX123")).thenReturn(true);
         when(collectionBoxRepository.findByIdentifier(inputDto.getIdentifier())).thenReturn(Optional.of(collectionBox));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -123,63 +155,99 @@ public class CollectionBoxServiceTest {
     }
 
     @Test
-    void listAllCollectionBoxes() {
-        CollectionBox assignedBox = CollectionBox.builder()
-                .id(2L)
-                .identifier("BOX456")
-                .isEmpty(false)
-                .fundraisingEvent(fundraisingEvent)
-                .money(new ArrayList<>())
-                .build();
-
-        List<CollectionBox> boxes = Arrays.asList(collectionBox, assignedBox);
-        when(collectionBoxRepository.findAll()).thenReturn(boxes);
+    void listCollectionBoxes_ReturnsProjectedPageWithCursor() {
+        when(collectionBoxRepository.findSummariesAfter(0L, null, null, Limit.of(3))).thenReturn(List.of(
+                new CollectionBoxSummary(1L, "BOX123", true, null),
+                new CollectionBoxSummary(2L, "BOX456", false, 1L),
+                new CollectionBoxSummary(3L, "BOX789", true, null)));
 
-        List<CollectionBoxInfoDto> results = collectionBoxService.listAllCollectionBoxes();
+        CollectionBoxPageDto page = collectionBoxService.listCollectionBoxes(null, 2, null, null, null);
 
-        assertEquals(2, results.size());
+        assertEquals(2, page.getCollectionBoxes().size());
+        assertEquals(2L, page.getNextCursor());
 
-        CollectionBoxInfoDto firstBox = results.get(0);
-        assertEquals(collectionBox.getId(), firstBox.getId());
-        assertEquals(collectionBox.getIdentifier(), firstBox.getIdentifier());
-        assertEquals(collectionBox.getIsEmpty(), firstBox.isEmpty());
+        CollectionBoxInfoDto firstBox = page.getCollectionBoxes().get(0);
+        assertEquals(1L, firstBox.getId());
+        assertEquals("BOX123", firstBox.getIdentifier());
+        assertTrue(firstBox.isEmpty());
         assertFalse(firstBox.isAssigned());
 
-        CollectionBoxInfoDto secondBox = results.get(1);
-        assertEquals(assignedBox.getId(), secondBox.getId());
-        assertEquals(assignedBox.getIdentifier(), secondBox.getIdentifier());
-        assertEquals(assignedBox.getIsEmpty(), secondBox.isEmpty());
+        CollectionBoxInfoDto secondBox = page.getCollectionBoxes().get(1);
+        assertEquals("BOX456", secondBox.getIdentifier());
+        assertFalse(secondBox.isEmpty());
         assertTrue(secondBox.isAssigned());
 
-        verify(collectionBoxRepository).findAll();
+        verify(collectionBoxRepository, never()).findAll();
+    }
+
+    @Test
+    void listCollectionBoxes_LastPageByEvent_HasNoCursor() {
+        when(collectionBoxRepository.findSummariesByEventAfter(1L, 5L, false, Limit.of(101))).thenReturn(List.of(
+                new CollectionBoxSummary(6L, "BOX456", false, 1L)));
+
+        CollectionBoxPageDto page = collectionBoxService.listCollectionBoxes(5L, null, true, false, 1L);
+
+        assertEquals(1, page.getCollectionBoxes().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void listCollectionBoxes_InvalidPageSize_ThrowsException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> collectionBoxService.listCollectionBoxes(null, 0, null, null, null));
+
+        assertEquals("Page size must be between 1 and 1000", exception.getMessage());
+        verifyNoInteractions(collectionBoxRepository);
     }
 
     @Test
     void unregisterCollectionBox_Success() {
         String identifier = "BOX123";
-        when(collectionBoxRepository.findByIdentifier(identifier)).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.of(collectionBox));
         doNothing().when(collectionBoxRepository).delete(collectionBox);
 
         MessageResponseDto result = collectionBoxService.unregisterCollectionBox(identifier);
 
         assertNotNull(result);
         assertEquals("Collection box with identifier BOX123 deleted successfully", result.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(identifier);
+        verify(collectionBoxRepository).findByIdentifierForUpdate(identifier);
+        verify(collectionBoxRepository).delete(collectionBox);
+        verifyNoInteractions(pendingDonationTotals, donationLedgerRepository);
+        verify(collectionBoxCache).invalidateAfterCompletion(identifier);
+    }
+
+    @Test
+    void unregisterCollectionBox_WithMoney_RemovesPendingAmountsAndAppendsClosingEntries() {
+        String identifier = "BOX123";
+        collectionBox.setFundraisingEvent(fundraisingEvent);
+        collectionBox.setIsEmpty(false);
+        List<CurrencyBalance> balances = List.of(new CurrencyBalance(eurCurrency.getId(), new BigDecimal("50.00")));
+
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxMoneyRepository.findBalances(collectionBox.getId())).thenReturn(balances);
+
+        collectionBoxService.unregisterCollectionBox(identifier);
+
+        verify(donationWriteBehindBuffer).flushCollectionBox(collectionBox.getId());
+        verify(pendingDonationTotals).remove(fundraisingEvent, balances);
+        verify(donationLedgerRepository).appendEntries(
+                List.of(new MoneyIncrement(collectionBox.getId(), eurCurrency.getId(), new BigDecimal("-50.00"))), LedgerEntryType.CLOSING);
         verify(collectionBoxRepository).delete(collectionBox);
     }
 
     @Test
     void unregisterCollectionBox_NotFound() {
         String identifier = "NONEXISTENT";
-        when(collectionBoxRepository.findByIdentifier(identifier)).thenReturn(Optional.empty());
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             collectionBoxService.unregisterCollectionBox(identifier);
         });
 
         assertEquals("Collection box not found with identifier: NONEXISTENT", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(identifier);
+        verify(collectionBoxRepository).findByIdentifierForUpdate(identifier);
         verify(collectionBoxRepository, never()).delete(any(CollectionBox.class));
+        verifyNoInteractions(donationLedgerRepository);
     }
 
     @Test
@@ -189,7 +257,7 @@ public class CollectionBoxServiceTest {
                 .fundraisingEventId(1L)
                 .build();
 
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxRepository.findByIdentifierForUpdate(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
         when(fundraisingEventRepository.findById(dto.getFundraisingEventId())).thenReturn(Optional.of(fundraisingEvent));
         when(collectionBoxRepository.save(any(CollectionBox.class))).thenReturn(collectionBox);
 
@@ -198,9 +266,10 @@ public class CollectionBoxServiceTest {
         assertNotNull(result);
         assertEquals("Collection box with identifier BOX123 successfully assigned to event Test Event", result.getMessage());
         assertEquals(fundraisingEvent, collectionBox.getFundraisingEvent());
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
+        verify(collectionBoxRepository).findByIdentifierForUpdate(dto.getCollectionBoxIdentifier());
         verify(fundraisingEventRepository).findById(dto.getFundraisingEventId());
         verify(collectionBoxRepository).save(collectionBox);
+        verify(collectionBoxCache).invalidateAfterCompletion(dto.getCollectionBoxIdentifier());
     }
 
     @Test
@@ -210,14 +279,14 @@ public class CollectionBoxServiceTest {
                 .fundraisingEventId(1L)
                 .build();
 
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.empty());
+        when(collectionBoxRepository.findByIdentifierForUpdate(dto.getCollectionBoxIdentifier())).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             collectionBoxService.assignCollectionBoxToEvent(dto);
         });
 
         assertEquals("Collection box not found with identifier: NONEXISTENT", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
+        verify(collectionBoxRepository).findByIdentifierForUpdate(dto.getCollectionBoxIdentifier());
         verify(fundraisingEventRepository, never()).findById(anyLong());
         verify(collectionBoxRepository, never()).save(any(CollectionBox.class));
     }
@@ -229,7 +298,7 @@ public class CollectionBoxServiceTest {
                 .fundraisingEventId(999L)
                 .build();
 
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxRepository.findByIdentifierForUpdate(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
         when(fundraisingEventRepository.findById(dto.getFundraisingEventId())).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -237,7 +306,7 @@ public class CollectionBoxServiceTest {
         });
 
         assertEquals("Fundraising event not found with id: 999", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
+        verify(collectionBoxRepository).findByIdentifierForUpdate(dto.getCollectionBoxIdentifier());
         verify(fundraisingEventRepository).findById(dto.getFundraisingEventId());
         verify(collectionBoxRepository, never()).save(any(CollectionBox.class));
     }
@@ -251,7 +320,7 @@ public class CollectionBoxServiceTest {
 
         collectionBox.setIsEmpty(false);
 
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxRepository.findByIdentifierForUpdate(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
         when(fundraisingEventRepository.findById(dto.getFundraisingEventId())).thenReturn(Optional.of(fundraisingEvent));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -259,7 +328,7 @@ public class CollectionBoxServiceTest {
         });
 
         assertEquals("Non-empty box cannot be assigned to a fundraising event", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
+        verify(collectionBoxRepository).findByIdentifierForUpdate(dto.getCollectionBoxIdentifier());
         verify(fundraisingEventRepository).findById(dto.getFundraisingEventId());
         verify(collectionBoxRepository, never()).save(any(CollectionBox.class));
     }
@@ -273,11 +342,10 @@ public class CollectionBoxServiceTest {
                 .amount(new BigDecimal("100.00"))
                 .build();
 
-        collectionBox.setFundraisingEvent(fundraisingEvent);
-
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
-        when(currencyRepository.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
-        when(collectionBoxRepository.save(any(CollectionBox.class))).thenReturn(collectionBox);
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, true)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
+        when(currencyRegistry.ordinalOf(eurCurrency)).thenReturn(1);
+        when(collectionBoxRepository.markNotEmpty(collectionBox.getId(), fundraisingEvent.getId())).thenReturn(1);
 
         // Act
         MessageResponseDto result = collectionBoxService.addMoneyToCollectionBox(dto);
@@ -285,14 +353,15 @@ public class CollectionBoxServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals("Amount 100.00 EUR added to collection box with identifier BOX123", result.getMessage());
-        assertFalse(collectionBox.getIsEmpty());
-        assertEquals(1, collectionBox.getMoney().size());
-        assertEquals(eurCurrency, collectionBox.getMoney().get(0).getCurrency());
-        assertEquals(new BigDecimal("100.00"), collectionBox.getMoney().get(0).getAmount());
 
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
-        verify(currencyRepository).findByCode(dto.getCurrencyCode());
-        verify(collectionBoxRepository).save(collectionBox);
+        verify(collectionBoxCache).get(dto.getCollectionBoxIdentifier());
+        verify(collectionBoxRepository, never()).findByIdentifier(anyString());
+        verify(currencyRegistry).findByCode(dto.getCurrencyCode());
+        verify(collectionBoxRepository).markNotEmpty(collectionBox.getId(), fundraisingEvent.getId());
+        verify(donationLedgerRepository).appendEntry(collectionBox.getId(), eurCurrency.getId(), new BigDecimal("100.00"), "DONATION");
+        verify(pendingDonationTotals).add(fundraisingEvent.getId(), 0, 1, Money.of(new BigDecimal("100.00"), "EUR"));
+        verify(collectionBoxCache).invalidateAfterCompletion(dto.getCollectionBoxIdentifier());
+        verify(collectionBoxRepository, never()).save(any(CollectionBox.class));
     }
 
     @Test
@@ -303,34 +372,136 @@ public class CollectionBoxServiceTest {
                 .amount(new BigDecimal("50.00"))
                 .build();
 
-        collectionBox.setFundraisingEvent(fundraisingEvent);
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, false)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
+        when(collectionBoxRepository.markNotEmpty(collectionBox.getId(), fundraisingEvent.getId())).thenReturn(1);
 
-        CollectionBoxMoney existingMoney = CollectionBoxMoney.builder()
-                .id(1L)
-                .collectionBox(collectionBox)
+        MessageResponseDto result = collectionBoxService.addMoneyToCollectionBox(dto);
+
+        assertNotNull(result);
+        assertEquals("Amount 50.00 EUR added to collection box with identifier BOX123", result.getMessage());
+
+        verify(currencyRegistry).findByCode(dto.getCurrencyCode());
+        verify(collectionBoxRepository).markNotEmpty(collectionBox.getId(), fundraisingEvent.getId());
+        verify(donationLedgerRepository).appendEntry(collectionBox.getId(), eurCurrency.getId(), new BigDecimal("50.00"), "DONATION");
+        verify(collectionBoxCache, never()).invalidateAfterCompletion(anyString());
+    }
+
+    @Test
+    void addMoneyToCollectionBox_CachedBoxDeleted_ThrowsAndInvalidates() {
+        AddMoneyDto dto = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .currencyCode("EUR")
+                .amount(new BigDecimal("50.00"))
+                .build();
+
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, false)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
+        when(collectionBoxRepository.markNotEmpty(collectionBox.getId(), fundraisingEvent.getId())).thenReturn(0);
+        when(collectionBoxRepository.findByIdentifierForUpdate(dto.getCollectionBoxIdentifier())).thenReturn(Optional.empty());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> collectionBoxService.addMoneyToCollectionBox(dto));
+
+        assertEquals("Collection box not found with identifier: BOX123", exception.getMessage());
+        verify(collectionBoxCache).invalidateAfterCompletion(dto.getCollectionBoxIdentifier());
+        verify(donationLedgerRepository, never()).appendEntry(any(), any(), any(), any());
+        verify(pendingDonationTotals, never()).add(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void addMoneyToCollectionBox_CachedBoxReassigned_CreditsTheCurrentEvent() {
+        AddMoneyDto dto = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .currencyCode("EUR")
+                .amount(new BigDecimal("50.00"))
+                .build();
+        FundraisingEvent otherEvent = FundraisingEvent.builder()
+                .id(2L)
+                .name("Other Event")
+                .accountBalance(BigDecimal.ZERO)
                 .currency(eurCurrency)
-                .amount(new BigDecimal("100.00"))
                 .build();
+        collectionBox.setFundraisingEvent(otherEvent);
 
-        collectionBox.getMoney().add(existingMoney);
-        collectionBox.setIsEmpty(false);
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, false)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
+        when(currencyRegistry.ordinalOf(eurCurrency)).thenReturn(1);
+        when(collectionBoxRepository.markNotEmpty(collectionBox.getId(), fundraisingEvent.getId())).thenReturn(0);
+        when(collectionBoxRepository.findByIdentifierForUpdate(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxRepository.markNotEmpty(collectionBox.getId(), otherEvent.getId())).thenReturn(1);
 
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
-        when(currencyRepository.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
-        when(collectionBoxRepository.save(any(CollectionBox.class))).thenReturn(collectionBox);
+        collectionBoxService.addMoneyToCollectionBox(dto);
+
+        verify(collectionBoxCache).invalidateAfterCompletion(dto.getCollectionBoxIdentifier());
+        verify(donationLedgerRepository).appendEntry(collectionBox.getId(), eurCurrency.getId(), new BigDecimal("50.00"), "DONATION");
+        verify(pendingDonationTotals).add(otherEvent.getId(), 1, 1, Money.of(new BigDecimal("50.00"), "EUR"));
+        verify(pendingDonationTotals, never()).add(eq(fundraisingEvent.getId()), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void addMoneyToCollectionBox_CachedBoxUnassigned_Throws() {
+        AddMoneyDto dto = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .currencyCode("EUR")
+                .amount(new BigDecimal("50.00"))
+                .build();
+
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, true)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
+        when(collectionBoxRepository.markNotEmpty(collectionBox.getId(), fundraisingEvent.getId())).thenReturn(0);
+        when(collectionBoxRepository.findByIdentifierForUpdate(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> collectionBoxService.addMoneyToCollectionBox(dto));
+
+        assertEquals("You can only add money to a box that is assigned to a fundraising event", exception.getMessage());
+        verify(donationLedgerRepository, never()).appendEntry(any(), any(), any(), any());
+        verify(pendingDonationTotals, never()).add(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void addMoneyToCollectionBox_WriteBehind_BuffersDonation() {
+        AddMoneyDto dto = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .currencyCode("EUR")
+                .amount(new BigDecimal("25.00"))
+                .build();
+
+        when(donationWriteBehindBuffer.isEnabled()).thenReturn(true);
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, true)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
+        when(collectionBoxRepository.markNotEmpty(collectionBox.getId(), fundraisingEvent.getId())).thenReturn(1);
 
         MessageResponseDto result = collectionBoxService.addMoneyToCollectionBox(dto);
 
-        assertNotNull(result);
-        assertEquals("Amount 50.00 EUR added to collection box with identifier BOX123", result.getMessage());
-        assertFalse(collectionBox.getIsEmpty());
-        assertEquals(1, collectionBox.getMoney().size());
-        assertEquals(eurCurrency, collectionBox.getMoney().get(0).getCurrency());
-        assertEquals(new BigDecimal("150.00"), collectionBox.getMoney().get(0).getAmount());
+        assertEquals("Amount 25.00 EUR added to collection box with identifier BOX123", result.getMessage());
+        verify(collectionBoxRepository).markNotEmpty(collectionBox.getId(), fundraisingEvent.getId());
+        verify(donationWriteBehindBuffer).add(collectionBox.getId(), eurCurrency.getId(), new Money(2500, 2));
+        verify(donationLedgerRepository, never()).appendEntry(any(), any(), any(), any());
+    }
 
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
-        verify(currencyRepository).findByCode(dto.getCurrencyCode());
-        verify(collectionBoxRepository).save(collectionBox);
+    @Test
+    void addMoneyToCollectionBox_WriteBehind_CachedBoxDeleted_ThrowsWithoutBuffering() {
+        AddMoneyDto dto = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .currencyCode("EUR")
+                .amount(new BigDecimal("25.00"))
+                .build();
+
+        lenient().when(donationWriteBehindBuffer.isEnabled()).thenReturn(true);
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, false)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
+        when(collectionBoxRepository.markNotEmpty(collectionBox.getId(), fundraisingEvent.getId())).thenReturn(0);
+        when(collectionBoxRepository.findByIdentifierForUpdate(dto.getCollectionBoxIdentifier())).thenReturn(Optional.empty());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> collectionBoxService.addMoneyToCollectionBox(dto));
+
+        assertEquals("Collection box not found with identifier: BOX123", exception.getMessage());
+        verify(collectionBoxCache).invalidateAfterCompletion(dto.getCollectionBoxIdentifier());
+        verify(donationWriteBehindBuffer, never()).add(anyLong(), anyLong(), any());
+        verify(pendingDonationTotals, never()).add(any(), anyInt(), anyInt(), any());
     }
 
     @Test
@@ -341,15 +512,15 @@ public class CollectionBoxServiceTest {
                 .amount(new BigDecimal("100.00"))
                 .build();
 
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.empty());
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             collectionBoxService.addMoneyToCollectionBox(dto);
         });
 
         assertEquals("Collection box not found with identifier: NONEXISTENT", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
-        verify(currencyRepository, never()).findByCode(anyString());
+        verify(collectionBoxCache).get(dto.getCollectionBoxIdentifier());
+        verify(currencyRegistry, never()).findByCode(anyString());
         verify(collectionBoxRepository, never()).save(any(CollectionBox.class));
     }
 
@@ -361,15 +532,15 @@ public class CollectionBoxServiceTest {
                 .amount(new BigDecimal("100.00"))
                 .build();
 
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(false, true)));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             collectionBoxService.addMoneyToCollectionBox(dto);
         });
 
         assertEquals("You can only add money to a box that is assigned to a fundraising event", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
-        verify(currencyRepository, never()).findByCode(anyString());
+        verify(collectionBoxCache).get(dto.getCollectionBoxIdentifier());
+        verify(currencyRegistry, never()).findByCode(anyString());
         verify(collectionBoxRepository, never()).save(any(CollectionBox.class));
     }
 
@@ -381,19 +552,38 @@ public class CollectionBoxServiceTest {
                 .amount(new BigDecimal("100.00"))
                 .build();
 
-        collectionBox.setFundraisingEvent(fundraisingEvent);
-
-        when(collectionBoxRepository.findByIdentifier(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(collectionBox));
-        when(currencyRepository.findByCode(dto.getCurrencyCode())).thenReturn(Optional.empty());
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, true)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             collectionBoxService.addMoneyToCollectionBox(dto);
         });
 
         assertEquals("Currency not supported: USD", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(dto.getCollectionBoxIdentifier());
-        verify(currencyRepository).findByCode(dto.getCurrencyCode());
-        verify(collectionBoxRepository, never()).save(any(CollectionBox.class));
+        verify(currencyRegistry).findByCode(dto.getCurrencyCode());
+        verify(collectionBoxRepository, never()).markNotEmpty(anyLong(), any());
+        verify(donationLedgerRepository, never()).appendEntry(any(), any(), any(), any());
+    }
+
+    @Test
+    void addMoneyToCollectionBox_TooManyDecimalPlaces_ThrowsException() {
+        AddMoneyDto dto = AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX123")
+                .currencyCode("EUR")
+                .amount(new BigDecimal("10.005"))
+                .build();
+
+        when(collectionBoxCache.get(dto.getCollectionBoxIdentifier())).thenReturn(Optional.of(boxState(true, true)));
+        when(currencyRegistry.findByCode(dto.getCurrencyCode())).thenReturn(Optional.of(eurCurrency));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            collectionBoxService.addMoneyToCollectionBox(dto);
+        });
+
+        assertEquals("Amount 10.005 has more decimal places than EUR allows (2)", exception.getMessage());
+        verify(collectionBoxRepository, never()).markNotEmpty(anyLong(), any());
+        verify(donationLedgerRepository, never()).appendEntry(any(), any(), any(), any());
+        verifyNoInteractions(pendingDonationTotals);
     }
 
     @Test
@@ -403,26 +593,15 @@ public class CollectionBoxServiceTest {
         collectionBox.setFundraisingEvent(fundraisingEvent);
         collectionBox.setIsEmpty(false);
 
-        CollectionBoxMoney money1 = CollectionBoxMoney.builder()
-                .id(1L)
-                .collectionBox(collectionBox)
-                .currency(plnCurrency)
-                .amount(new BigDecimal("100.00"))
-                .build();
-
-        CollectionBoxMoney money2 = CollectionBoxMoney.builder()
-                .id(2L)
-                .collectionBox(collectionBox)
-                .currency(eurCurrency)
-                .amount(new BigDecimal("50.00"))
-                .build();
-
-        collectionBox.getMoney().add(money1);
-        collectionBox.getMoney().add(money2);
-
-        when(collectionBoxRepository.findByIdentifier(identifier)).thenReturn(Optional.of(collectionBox));
-        when(exchangeRateRepository.findByFromCurrencyAndToCurrency(eurCurrency, plnCurrency))
-                .thenReturn(Optional.of(exchangeRate));
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxMoneyRepository.findBalances(collectionBox.getId())).thenReturn(List.of(
+                new CurrencyBalance(plnCurrency.getId(), new BigDecimal("100.00")),
+                new CurrencyBalance(eurCurrency.getId(), new BigDecimal("50.00"))));
+        when(currencyRegistry.getCurrency(plnCurrency.getId())).thenReturn(plnCurrency);
+        when(currencyRegistry.getCurrency(eurCurrency.getId())).thenReturn(eurCurrency);
+        when(currencyRegistry.ordinalOf(plnCurrency.getId())).thenReturn(0);
+        when(currencyRegistry.ordinalOf(eurCurrency.getId())).thenReturn(1);
+        when(exchangeRateMatrix.current()).thenReturn(rates);
         when(fundraisingEventRepository.save(any(FundraisingEvent.class))).thenReturn(fundraisingEvent);
         when(collectionBoxRepository.save(any(CollectionBox.class))).thenReturn(collectionBox);
 
@@ -436,27 +615,60 @@ public class CollectionBoxServiceTest {
                 fundraisingEvent.getAccountBalance().setScale(2, RoundingMode.HALF_UP));
 
         assertTrue(collectionBox.getIsEmpty());
-        assertTrue(collectionBox.getMoney().isEmpty());
 
-        verify(collectionBoxRepository).findByIdentifier(identifier);
-        verify(exchangeRateRepository).findByFromCurrencyAndToCurrency(eurCurrency, plnCurrency);
+        verify(collectionBoxRepository).findByIdentifierForUpdate(identifier);
+        verify(donationWriteBehindBuffer).flushCollectionBox(collectionBox.getId());
+        verify(exchangeRateMatrix, never()).refresh(anyLong());
         verify(fundraisingEventRepository).save(fundraisingEvent);
+        verify(donationLedgerRepository).appendEntries(List.of(
+                new MoneyIncrement(collectionBox.getId(), plnCurrency.getId(), new BigDecimal("-100.00")),
+                new MoneyIncrement(collectionBox.getId(), eurCurrency.getId(), new BigDecimal("-50.00"))), LedgerEntryType.SETTLEMENT, 7L);
+        verify(collectionBoxMoneyRepository).snapshotLedger(collectionBox.getId());
+        verify(pendingDonationTotals).remove(fundraisingEvent, List.of(
+                new CurrencyBalance(plnCurrency.getId(), new BigDecimal("100.00")),
+                new CurrencyBalance(eurCurrency.getId(), new BigDecimal("50.00"))));
         verify(collectionBoxRepository).save(collectionBox);
+        verify(collectionBoxCache).invalidateAfterCompletion(identifier);
+    }
+
+    @Test
+    void emptyCollectionBox_RateMissingFromSnapshot_RefreshesMatrixAndRecordsNewVersion() {
+        String identifier = "BOX123";
+
+        collectionBox.setFundraisingEvent(fundraisingEvent);
+        collectionBox.setIsEmpty(false);
+
+        ExchangeRateMatrix.Snapshot stale = new ExchangeRateMatrix.Snapshot(6L, new long[]{Money.RATE_ONE});
+
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxMoneyRepository.findBalances(collectionBox.getId()))
+                .thenReturn(List.of(new CurrencyBalance(eurCurrency.getId(), new BigDecimal("10.00"))));
+        when(currencyRegistry.getCurrency(eurCurrency.getId())).thenReturn(eurCurrency);
+        when(currencyRegistry.ordinalOf(plnCurrency.getId())).thenReturn(0);
+        when(currencyRegistry.ordinalOf(eurCurrency.getId())).thenReturn(1);
+        when(exchangeRateMatrix.current()).thenReturn(stale);
+        when(exchangeRateMatrix.refresh(6L)).thenReturn(rates);
+
+        MessageResponseDto result = collectionBoxService.emptyCollectionBox(identifier);
+
+        assertTrue(result.getMessage().contains("Amount 45.00 PLN"));
+        verify(donationLedgerRepository).appendEntries(List.of(
+                new MoneyIncrement(collectionBox.getId(), eurCurrency.getId(), new BigDecimal("-10.00"))), LedgerEntryType.SETTLEMENT, 7L);
     }
 
     @Test
     void emptyCollectionBox_NotFound() {
         String identifier = "NONEXISTENT";
 
-        when(collectionBoxRepository.findByIdentifier(identifier)).thenReturn(Optional.empty());
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             collectionBoxService.emptyCollectionBox(identifier);
         });
 
         assertEquals("Collection box not found", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(identifier);
-        verify(exchangeRateRepository, never()).findByFromCurrencyAndToCurrency(any(), any());
+        verify(collectionBoxRepository).findByIdentifierForUpdate(identifier);
+        verify(exchangeRateMatrix, never()).current();
         verify(fundraisingEventRepository, never()).save(any());
         verify(collectionBoxRepository, never()).save(any());
     }
@@ -467,15 +679,15 @@ public class CollectionBoxServiceTest {
 
         collectionBox.setIsEmpty(true);
 
-        when(collectionBoxRepository.findByIdentifier(identifier)).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.of(collectionBox));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             collectionBoxService.emptyCollectionBox(identifier);
         });
 
         assertEquals("Collection box has no money inside", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(identifier);
-        verify(exchangeRateRepository, never()).findByFromCurrencyAndToCurrency(any(), any());
+        verify(collectionBoxRepository).findByIdentifierForUpdate(identifier);
+        verify(exchangeRateMatrix, never()).current();
         verify(fundraisingEventRepository, never()).save(any());
         verify(collectionBoxRepository, never()).save(any());
     }
@@ -486,15 +698,15 @@ public class CollectionBoxServiceTest {
 
         collectionBox.setIsEmpty(false);
 
-        when(collectionBoxRepository.findByIdentifier(identifier)).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.of(collectionBox));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             collectionBoxService.emptyCollectionBox(identifier);
         });
 
         assertEquals("Collection box is not assigned to an event", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(identifier);
-        verify(exchangeRateRepository, never()).findByFromCurrencyAndToCurrency(any(), any());
+        verify(collectionBoxRepository).findByIdentifierForUpdate(identifier);
+        verify(exchangeRateMatrix, never()).current();
         verify(fundraisingEventRepository, never()).save(any());
         verify(collectionBoxRepository, never()).save(any());
     }
@@ -506,27 +718,29 @@ public class CollectionBoxServiceTest {
         collectionBox.setFundraisingEvent(fundraisingEvent);
         collectionBox.setIsEmpty(false);
 
-        CollectionBoxMoney money = CollectionBoxMoney.builder()
-                .id(1L)
-                .collectionBox(collectionBox)
-                .currency(eurCurrency)
-                .amount(new BigDecimal("50.00"))
-                .build();
-
-        collectionBox.getMoney().add(money);
-
-        when(collectionBoxRepository.findByIdentifier(identifier)).thenReturn(Optional.of(collectionBox));
-        when(exchangeRateRepository.findByFromCurrencyAndToCurrency(eurCurrency, plnCurrency))
-                .thenReturn(Optional.empty());
+        when(collectionBoxRepository.findByIdentifierForUpdate(identifier)).thenReturn(Optional.of(collectionBox));
+        when(collectionBoxMoneyRepository.findBalances(collectionBox.getId()))
+                .thenReturn(List.of(new CurrencyBalance(eurCurrency.getId(), new BigDecimal("50.00"))));
+        when(currencyRegistry.getCurrency(eurCurrency.getId())).thenReturn(eurCurrency);
+        when(currencyRegistry.ordinalOf(plnCurrency.getId())).thenReturn(0);
+        when(currencyRegistry.ordinalOf(eurCurrency.getId())).thenReturn(1);
+        ExchangeRateMatrix.Snapshot withoutRates = new ExchangeRateMatrix.Snapshot(7L, new long[]{Money.RATE_ONE, 0});
+        when(exchangeRateMatrix.current()).thenReturn(withoutRates);
+        when(exchangeRateMatrix.refresh(7L)).thenReturn(withoutRates);
 
         IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
             collectionBoxService.emptyCollectionBox(identifier);
         });
 
         assertEquals("Exchange rate not found for currency pair: EUR to PLN", exception.getMessage());
-        verify(collectionBoxRepository).findByIdentifier(identifier);
-        verify(exchangeRateRepository).findByFromCurrencyAndToCurrency(eurCurrency, plnCurrency);
+        verify(collectionBoxRepository).findByIdentifierForUpdate(identifier);
+        verify(exchangeRateMatrix).refresh(7L);
         verify(fundraisingEventRepository, never()).save(any());
+        verify(donationLedgerRepository, never()).appendEntries(any(), any(), any());
         verify(collectionBoxRepository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    private CollectionBoxCache.BoxState boxState(boolean assigned, boolean empty) {
+        return new CollectionBoxCache.BoxState(collectionBox.getId(), assigned ? fundraisingEvent.getId() : null, 0, empty);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.repository.CurrencyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CurrencyRegistryTest {
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    private CurrencyRegistry currencyRegistry;
+
+    private Currency plnCurrency;
+    private Currency eurCurrency;
+
+    @BeforeEach
+    void setUp() {
+        currencyRegistry = new CurrencyRegistry(currencyRepository);
+        plnCurrency = currency(1L, "PLN");
+        eurCurrency = currency(2L, "EUR");
+    }
+
+    @Test
+    void findByCode_AfterLoading_AnswersFromMemory() {
+        when(currencyRepository.findAll()).thenReturn(List.of(plnCurrency, eurCurrency));
+        currencyRegistry.afterSingletonsInstantiated();
+
+        assertEquals(Optional.of(eurCurrency), currencyRegistry.findByCode("EUR"));
+        assertEquals(Optional.empty(), currencyRegistry.findByCode("XYZ"));
+        assertEquals(Map.of("PLN", plnCurrency), currencyRegistry.findAllByCode(List.of("PLN", "ABC")));
+        assertEquals(1, currencyRegistry.ordinalOf(eurCurrency));
+        verify(currencyRepository, never()).findByCode(anyString());
+        verify(currencyRepository, never()).findByCodeIn(anyCollection());
+    }
+
+    @Test
+    void findByCode_BeforeLoading_FallsBackToRepository() {
+        when(currencyRepository.findByCode("EUR")).thenReturn(Optional.of(eurCurrency));
+
+        assertEquals(Optional.of(eurCurrency), currencyRegistry.findByCode("EUR"));
+        assertEquals(Optional.of(eurCurrency), currencyRegistry.findByCode("EUR"));
+
+        verify(currencyRepository, times(1)).findByCode("EUR");
+    }
+
+    @Test
+    void registerAndRemove_KeepOrdinalsOfOtherCurrencies() {
+        when(currencyRepository.findAll()).thenReturn(List.of(plnCurrency, eurCurrency));
+        currencyRegistry.afterSingletonsInstantiated();
+        Currency thbCurrency = currency(3L, "THB");
+
+        currencyRegistry.removeAfterCommit(plnCurrency);
+        currencyRegistry.registerAfterCommit(thbCurrency);
+
+        assertEquals(Optional.empty(), currencyRegistry.findByCode("PLN"));
+        assertEquals(1, currencyRegistry.ordinalOf(eurCurrency));
+        assertEquals(2, currencyRegistry.ordinalOf(thbCurrency));
+        assertEquals(thbCurrency, currencyRegistry.findByCode("THB").orElseThrow());
+        assertEquals(3, currencyRegistry.size());
+    }
+
+    private Currency currency(Long id, String code) {
+        Currency currency = new Currency();
+        currency.setId(id);
+        currency.setCode(code);
+        return currency;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.AddMoneyDto;
+import com.example.charity_collection.dto.BulkAddMoneyResponseDto;
+import com.example.charity_collection.model.BoxContents;
+import com.example.charity_collection.model.CollectionBox;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.model.LedgerEntryType;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.DonationLedgerRepository;
+import com.example.charity_collection.repository.MoneyIncrement;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DonationBatchServiceTest {
+
+    @Mock
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Mock
+    private DonationLedgerRepository donationLedgerRepository;
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    @Mock
+    private DonationWriteBehindBuffer donationWriteBehindBuffer;
+
+    @Mock
+    private PendingDonationTotals pendingDonationTotals;
+
+    private DonationBatchService donationBatchService;
+
+    private CollectionBox assignedBox;
+    private CollectionBox unassignedBox;
+    private Currency eurCurrency;
+    private Currency plnCurrency;
+
+    @BeforeEach
+    void setUp() {
+        donationBatchService = new DonationBatchService(collectionBoxRepository, donationLedgerRepository,
+                new CurrencyRegistry(currencyRepository), Validation.buildDefaultValidatorFactory().getValidator(), donationWriteBehindBuffer,
+                pendingDonationTotals);
+
+        plnCurrency = new Currency();
+        plnCurrency.setId(1L);
+        plnCurrency.setCode("PLN");
+        plnCurrency.setName("Polish Zloty");
+
+        eurCurrency = new Currency();
+        eurCurrency.setId(2L);
+        eurCurrency.setCode("EUR");
+        eurCurrency.setName("Euro");
+
+        FundraisingEvent fundraisingEvent = FundraisingEvent.builder()
+                .id(1L)
+                .name("Test Event")
+                .accountBalance(BigDecimal.ZERO)
+                .currency(plnCurrency)
+                .build();
+
+        assignedBox = CollectionBox.builder()
+                .id(1L)
+                .identifier("BOX001")
+                .isEmpty(true)
+                .fundraisingEvent(fundraisingEvent)
+                .money(new ArrayList<>())
+                .build();
+
+        unassignedBox = CollectionBox.builder()
+                .id(2L)
+                .identifier("BOX002")
+                .isEmpty(true)
+                .money(new ArrayList<>())
+                .build();
+    }
+
+    @Test
+    void addMoneyToCollectionBoxes_MergesAmountsPerBoxAndCurrency() {
+        List<AddMoneyDto> donations = List.of(
+                donation("BOX001", "5.00", "EUR"),
+                donation("BOX001", "2.50", "EUR"),
+                donation("BOX001", "20.00", "PLN"));
+
+        when(currencyRepository.findByCodeIn(anyCollection())).thenReturn(List.of(eurCurrency, plnCurrency));
+        when(collectionBoxRepository.findAllWithEventByIdentifierIn(anyCollection())).thenReturn(List.of(assignedBox));
+
+        BulkAddMoneyResponseDto result = donationBatchService.addMoneyToCollectionBoxes(donations);
+
+        assertEquals(3, result.getTotal());
+        assertEquals(3, result.getSucceeded());
+        assertEquals(0, result.getFailed());
+
+        verify(currencyRepository).findByCodeIn(anyCollection());
+        InOrder inOrder = inOrder(collectionBoxRepository);
+        inOrder.verify(collectionBoxRepository).lockAllByIdentifierIn(Set.of("BOX001"));
+        inOrder.verify(collectionBoxRepository).findAllWithEventByIdentifierIn(anyCollection());
+        verify(collectionBoxRepository).markAllNotEmpty(Set.of(1L));
+        verify(donationLedgerRepository).appendEntries(List.of(
+                new MoneyIncrement(1L, 2L, new BigDecimal("7.50")),
+                new MoneyIncrement(1L, 1L, new BigDecimal("20.00"))), LedgerEntryType.DONATION);
+        verify(pendingDonationTotals).addAll(eq(assignedBox.getFundraisingEvent()), any(BoxContents.class));
+        verify(collectionBoxRepository, never()).findByIdentifier(anyString());
+    }
+
+    @Test
+    void addMoneyToCollectionBoxes_ReportsFailuresPerItem() {
+        List<AddMoneyDto> donations = List.of(
+                donation("BOX001", "5.00", "EUR"),
+                donation("MISSING", "5.00", "EUR"),
+                donation("BOX002", "5.00", "EUR"),
+                donation("BOX001", "5.00", "USD"),
+                donation("BOX001", "-1.00", "EUR"));
+
+        when(currencyRepository.findByCodeIn(anyCollection())).thenReturn(List.of(eurCurrency));
+        when(collectionBoxRepository.findAllWithEventByIdentifierIn(anyCollection()))
+                .thenReturn(List.of(assignedBox, unassignedBox));
+
+        BulkAddMoneyResponseDto result = donationBatchService.addMoneyToCollectionBoxes(donations);
+
+        assertEquals(5, result.getTotal());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(4, result.getFailed());
+
+        assertTrue(result.getResults().get(0).isSuccess());
+        assertEquals("Collection box not found with identifier: MISSING", result.getResults().get(1).getMessage());
+        assertEquals("You can only add money to a box that is assigned to a fundraising event",
+                result.getResults().get(2).getMessage());
+        assertEquals("Currency not supported: USD", result.getResults().get(3).getMessage());
+        assertEquals("Validation failed: amount: Amount must be greater than 0", result.getResults().get(4).getMessage());
+
+        verify(collectionBoxRepository).markAllNotEmpty(Set.of(1L));
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 2L, new BigDecimal("5.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void addMoneyToCollectionBoxes_WriteBehind_BuffersMergedAmounts() {
+        List<AddMoneyDto> donations = List.of(
+                donation("BOX001", "5.00", "EUR"),
+                donation("BOX001", "2.50", "EUR"));
+
+        when(donationWriteBehindBuffer.isEnabled()).thenReturn(true);
+        when(currencyRepository.findByCodeIn(anyCollection())).thenReturn(List.of(eurCurrency));
+        when(collectionBoxRepository.findAllWithEventByIdentifierIn(anyCollection())).thenReturn(List.of(assignedBox));
+
+        BulkAddMoneyResponseDto result = donationBatchService.addMoneyToCollectionBoxes(donations);
+
+        assertEquals(2, result.getSucceeded());
+        verify(collectionBoxRepository).markAllNotEmpty(Set.of(1L));
+        verify(donationWriteBehindBuffer).add(1L, 2L, new Money(750, 2));
+        verify(donationLedgerRepository, never()).appendEntries(anyCollection(), eq(LedgerEntryType.DONATION));
+    }
+
+    @Test
+    void addMoneyToCollectionBoxes_WriteBehind_MarksBoxesThatAlreadyHoldMoney() {
+        assignedBox.setIsEmpty(false);
+        List<AddMoneyDto> donations = List.of(donation("BOX001", "5.00", "EUR"));
+
+        when(donationWriteBehindBuffer.isEnabled()).thenReturn(true);
+        when(currencyRepository.findByCodeIn(anyCollection())).thenReturn(List.of(eurCurrency));
+        when(collectionBoxRepository.findAllWithEventByIdentifierIn(anyCollection())).thenReturn(List.of(assignedBox));
+
+        BulkAddMoneyResponseDto result = donationBatchService.addMoneyToCollectionBoxes(donations);
+
+        assertEquals(1, result.getSucceeded());
+        verify(collectionBoxRepository).lockAllByIdentifierIn(Set.of("BOX001"));
+        verify(collectionBoxRepository).markAllNotEmpty(Set.of(1L));
+        verify(donationWriteBehindBuffer).add(1L, 2L, new Money(500, 2));
+    }
+
+    @Test
+    void addMoneyToCollectionBoxes_AmountOutOfRange_FailsOnlyThatItem() {
+        List<AddMoneyDto> donations = List.of(
+                donation("BOX001", "100000000000000000000.00", "EUR"),
+                donation("BOX001", "1.00", "EUR"));
+
+        when(currencyRepository.findByCodeIn(anyCollection())).thenReturn(List.of(eurCurrency));
+        when(collectionBoxRepository.findAllWithEventByIdentifierIn(anyCollection())).thenReturn(List.of(assignedBox));
+
+        BulkAddMoneyResponseDto result = donationBatchService.addMoneyToCollectionBoxes(donations);
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals("Amount out of range: 100000000000000000000.00", result.getResults().get(0).getMessage());
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 2L, new BigDecimal("1.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void addMoneyToCollectionBoxes_TooManyDecimalPlaces_FailsOnlyThatItem() {
+        List<AddMoneyDto> donations = List.of(
+                donation("BOX001", "2.505", "EUR"),
+                donation("BOX001", "1.00", "EUR"));
+
+        when(currencyRepository.findByCodeIn(anyCollection())).thenReturn(List.of(eurCurrency));
+        when(collectionBoxRepository.findAllWithEventByIdentifierIn(anyCollection())).thenReturn(List.of(assignedBox));
+
+        BulkAddMoneyResponseDto result = donationBatchService.addMoneyToCollectionBoxes(donations);
+
+        assertEquals(1, result.getSucceeded());
+        assertFalse(result.getResults().get(0).isSuccess());
+        assertEquals("Amount 2.505 has more decimal places than EUR allows (2)", result.getResults().get(0).getMessage());
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 2L, new BigDecimal("1.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void addMoneyToCollectionBoxes_AllInvalid_SkipsLookups() {
+        List<AddMoneyDto> donations = List.of(donation("", "5.00", "eur"));
+
+        BulkAddMoneyResponseDto result = donationBatchService.addMoneyToCollectionBoxes(donations);
+
+        assertEquals(1, result.getFailed());
+        assertEquals("Validation failed: collectionBoxIdentifier: Box identifier is required, "
+                        + "currencyCode: Currency code has to contain exactly 3 uppercase letters",
+                result.getResults().get(0).getMessage());
+        verify(currencyRepository, never()).findByCodeIn(anyCollection());
+        verify(collectionBoxRepository, never()).findAllWithEventByIdentifierIn(anyCollection());
+        verify(donationLedgerRepository, never()).appendEntries(anyCollection(), eq(LedgerEntryType.DONATION));
+    }
+
+    private AddMoneyDto donation(String identifier, String amount, String currencyCode) {
+        return AddMoneyDto.builder()
+                .collectionBoxIdentifier(identifier)
+                .amount(new BigDecimal(amount))
+                .currencyCode(currencyCode)
+                .build();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.AddMoneyDto;
+import com.example.charity_collection.dto.BulkAddMoneyResponseDto;
+import com.example.charity_collection.dto.DonationResultDto;
+import com.example.charity_collection.dto.DonationStreamProgressDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DonationStreamServiceTest {
+
+    @Mock
+    private DonationBatchService donationBatchService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DonationStreamService donationStreamService;
+
+    @BeforeEach
+    void setUp() {
+        donationStreamService = new DonationStreamService(donationBatchService, objectMapper, 2, 256);
+    }
+
+    @Test
+    void addMoneyFromStream_AppliesFixedSizeChunksAndReportsProgress() throws Exception {
+        when(donationBatchService.addMoneyToCollectionBoxes(anyList())).thenAnswer(invocation -> allSucceeded(invocation.getArgument(0)));
+
+        List<DonationStreamProgressDto> progress = run(
+                donation("BOX001", "1.00"),
+                donation("BOX001", "2.00"),
+                "",
+                donation("BOX002", "3.00"));
+
+        verify(donationBatchService, times(2)).addMoneyToCollectionBoxes(anyList());
+        assertEquals(3, progress.size());
+
+        assertEquals(1, progress.get(0).getChunk());
+        assertEquals(1, progress.get(0).getFirstLine());
+        assertEquals(2, progress.get(0).getLastLine());
+        assertEquals(2, progress.get(0).getSucceeded());
+
+        assertEquals(2, progress.get(1).getChunk());
+        assertEquals(4, progress.get(1).getFirstLine());
+        assertEquals(3, progress.get(1).getTotalSucceeded());
+
+        assertTrue(progress.get(2).isComplete());
+        assertEquals(2, progress.get(2).getChunk());
+        assertEquals(3, progress.get(2).getTotalSucceeded());
+        assertEquals(0, progress.get(2).getTotalFailed());
+    }
+
+    @Test
+    void addMoneyFromStream_ReportsInvalidAndRejectedLines() throws Exception {
+        when(donationBatchService.addMoneyToCollectionBoxes(anyList())).thenReturn(BulkAddMoneyResponseDto.builder()
+                .total(1)
+                .failed(1)
+                .results(List.of(DonationResultDto.builder()
+                        .index(0)
+                        .collectionBoxIdentifier("MISSING")
+                        .success(false)
+                        .message("Collection box not found with identifier: MISSING")
+                        .build()))
+                .build());
+
+        List<DonationStreamProgressDto> progress = run("{not json", donation("MISSING", "1.00"));
+
+        DonationStreamProgressDto chunk = progress.get(0);
+        assertEquals(0, chunk.getSucceeded());
+        assertEquals(2, chunk.getFailed());
+        assertEquals(1, chunk.getErrors().get(0).getLine());
+        assertTrue(chunk.getErrors().get(0).getMessage().startsWith("Invalid JSON"));
+        assertEquals(2, chunk.getErrors().get(1).getLine());
+        assertEquals("Collection box not found with identifier: MISSING", chunk.getErrors().get(1).getMessage());
+        assertEquals(2, progress.get(1).getTotalFailed());
+    }
+
+    @Test
+    void addMoneyFromStream_FailedChunk_MarksItsLinesFailedAndContinues() throws Exception {
+        when(donationBatchService.addMoneyToCollectionBoxes(anyList()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenAnswer(invocation -> allSucceeded(invocation.getArgument(0)));
+
+        List<DonationStreamProgressDto> progress = run(
+                donation("BOX001", "1.00"),
+                donation("BOX001", "2.00"),
+                donation("BOX001", "3.00"));
+
+        assertEquals(2, progress.get(0).getFailed());
+        assertEquals("Chunk could not be applied: database unavailable", progress.get(0).getErrors().get(0).getMessage());
+        assertEquals(1, progress.get(1).getSucceeded());
+        assertEquals(1, progress.get(2).getTotalSucceeded());
+        assertEquals(2, progress.get(2).getTotalFailed());
+    }
+
+    @Test
+    void addMoneyFromStream_OversizedLine_IsRejectedWithoutBufferingIt() throws Exception {
+        when(donationBatchService.addMoneyToCollectionBoxes(anyList())).thenAnswer(invocation -> allSucceeded(invocation.getArgument(0)));
+
+        List<DonationStreamProgressDto> progress = run(
+                "{\"collectionBoxIdentifier\":\"" + "X".repeat(10_000) + "\"}",
+                donation("BOX001", "1.00"));
+
+        DonationStreamProgressDto chunk = progress.get(0);
+        assertEquals(1, chunk.getSucceeded());
+        assertEquals(1, chunk.getFailed());
+        assertEquals(1, chunk.getErrors().get(0).getLine());
+        assertEquals("Record exceeds the maximum length of 256 characters", chunk.getErrors().get(0).getMessage());
+        verify(donationBatchService).addMoneyToCollectionBoxes(argThat(donations -> donations.size() == 1));
+    }
+
+    @Test
+    void addMoneyFromStream_UnterminatedOversizedRecord_IsRejectedAtEndOfStream() throws Exception {
+        when(donationBatchService.addMoneyToCollectionBoxes(anyList())).thenAnswer(invocation -> allSucceeded(invocation.getArgument(0)));
+
+        List<DonationStreamProgressDto> progress = run(
+                donation("BOX001", "1.00"),
+                "[" + "1,".repeat(1_000_000));
+
+        DonationStreamProgressDto chunk = progress.get(0);
+        assertEquals(1, chunk.getSucceeded());
+        assertEquals(1, chunk.getFailed());
+        assertEquals(2, chunk.getErrors().get(0).getLine());
+        assertTrue(progress.get(1).isComplete());
+        assertEquals(2, progress.get(1).getLastLine());
+    }
+
+    @Test
+    void addMoneyFromStream_EmptyUpload_ReportsOnlySummary() throws Exception {
+        List<DonationStreamProgressDto> progress = run();
+
+        assertEquals(1, progress.size());
+        assertTrue(progress.get(0).isComplete());
+        assertEquals(0, progress.get(0).getChunk());
+        verify(donationBatchService, never()).addMoneyToCollectionBoxes(anyList());
+    }
+
+    private List<DonationStreamProgressDto> run(String... lines) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        donationStreamService.addMoneyFromStream(
+                new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)), output);
+
+        List<DonationStreamProgressDto> progress = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            progress.add(objectMapper.readValue(line, DonationStreamProgressDto.class));
+        }
+        return progress;
+    }
+
+    private BulkAddMoneyResponseDto allSucceeded(List<AddMoneyDto> donations) {
+        List<DonationResultDto> results = new ArrayList<>();
+        for (int i = 0; i < donations.size(); i++) {
+            results.add(DonationResultDto.builder()
+                    .index(i)
+                    .collectionBoxIdentifier(donations.get(i).getCollectionBoxIdentifier())
+                    .success(true)
+                    .build());
+        }
+        return BulkAddMoneyResponseDto.builder()
+                .total(results.size())
+                .succeeded(results.size())
+                .results(results)
+                .build();
+    }
+
+    private String donation(String identifier, String amount) throws Exception {
+        return objectMapper.writeValueAsString(AddMoneyDto.builder()
+                .collectionBoxIdentifier(identifier)
+                .amount(new BigDecimal(amount))
+                .currencyCode("USD")
+                .build());
+    }
+}
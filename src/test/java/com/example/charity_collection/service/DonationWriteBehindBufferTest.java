@@ -0,0 +1,255 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.LedgerEntryType;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.CollectionBoxRepository;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.DonationLedgerRepository;
+import com.example.charity_collection.repository.MoneyIncrement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DonationWriteBehindBufferTest {
+
+    @Mock
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Mock
+    private DonationLedgerRepository donationLedgerRepository;
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DonationWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(currencyRepository.findById(10L)).thenReturn(Optional.of(currency(10L, "USD")));
+        lenient().when(currencyRepository.findById(20L)).thenReturn(Optional.of(currency(20L, "EUR")));
+        lenient().when(collectionBoxRepository.lockAllByIdIn(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<Long>>getArgument(0)));
+
+        buffer = new DonationWriteBehindBuffer(true, 4, collectionBoxRepository, donationLedgerRepository,
+                new CurrencyRegistry(currencyRepository), new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void flush_WritesMergedDeltasInOneBatchPerStripe() {
+        buffer.add(1L, 10L, money("1.50"));
+        buffer.add(1L, 10L, money("2.25"));
+        buffer.add(1L, 20L, money("5"));
+
+        buffer.flush();
+
+        verify(collectionBoxRepository).markAllNotEmpty(Set.of(1L));
+        verify(donationLedgerRepository).appendEntries(argThat(increments ->
+                Set.copyOf(increments).equals(Set.of(
+                        new MoneyIncrement(1L, 10L, new BigDecimal("3.75")),
+                        new MoneyIncrement(1L, 20L, new BigDecimal("5.00"))))), eq(LedgerEntryType.DONATION));
+    }
+
+    @Test
+    void flush_WithNothingPending_DoesNotTouchTheDatabase() {
+        buffer.flush();
+
+        verifyNoInteractions(collectionBoxRepository, donationLedgerRepository, transactionManager);
+    }
+
+    @Test
+    void flush_WhenWriteFails_KeepsDeltasForTheNextFlush() {
+        buffer.add(1L, 10L, money("4.00"));
+        doThrow(new IllegalStateException("database unavailable")).doNothing()
+                .when(donationLedgerRepository).appendEntries(anyCollection(), eq(LedgerEntryType.DONATION));
+
+        buffer.flush();
+        buffer.flush();
+
+        verify(donationLedgerRepository, times(2))
+                .appendEntries(List.of(new MoneyIncrement(1L, 10L, new BigDecimal("4.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void flush_LocksTheBoxesBeforeDrainingThem() {
+        buffer.add(1L, 10L, money("1.00"));
+        when(collectionBoxRepository.lockAllByIdIn(Set.of(1L))).thenAnswer(invocation -> {
+            // An empty that got the row lock first writes the delta itself
+            buffer.flushCollectionBox(1L);
+            verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 10L, new BigDecimal("1.00"))), LedgerEntryType.DONATION);
+            return List.of(1L);
+        });
+
+        buffer.flush();
+
+        verifyNoMoreInteractions(donationLedgerRepository);
+    }
+
+    @Test
+    void flush_BoxDeletedMeanwhile_DiscardsItsDeltas() {
+        buffer.add(1L, 10L, money("1.00"));
+        when(collectionBoxRepository.lockAllByIdIn(Set.of(1L))).thenReturn(List.of());
+
+        buffer.flush();
+        buffer.flush();
+
+        verify(collectionBoxRepository, never()).markAllNotEmpty(anyCollection());
+        verifyNoInteractions(donationLedgerRepository);
+    }
+
+    @Test
+    void flushCollectionBox_WritesOnlyThatBox() {
+        buffer.add(1L, 10L, money("1.00"));
+        buffer.add(2L, 10L, money("2.00"));
+
+        buffer.flushCollectionBox(2L);
+
+        verify(collectionBoxRepository).markAllNotEmpty(Set.of(2L));
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(2L, 10L, new BigDecimal("2.00"))), LedgerEntryType.DONATION);
+
+        buffer.flush();
+
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 10L, new BigDecimal("1.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void add_InTransaction_IsStagedBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.add(1L, 10L, money("1.00"));
+
+            buffer.flushCollectionBox(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 10L, new BigDecimal("1.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void add_RolledBack_TakesTheDeltaBackOut() {
+        buffer.add(2L, 10L, money("3.00"));
+        rollBack(() -> buffer.add(2L, 10L, money("1.00")));
+
+        buffer.flush();
+
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(2L, 10L, new BigDecimal("3.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void add_RolledBackAfterFlush_WritesTheNegativeDelta() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.add(1L, 10L, money("1.00"));
+            buffer.flush();
+            completeAll(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        buffer.flush();
+
+        verify(collectionBoxRepository, times(2)).markAllNotEmpty(Set.of(1L));
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 10L, new BigDecimal("1.00"))), LedgerEntryType.DONATION);
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 10L, new BigDecimal("-1.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void add_RolledBackBeforeFlush_WritesNothing() {
+        rollBack(() -> buffer.add(1L, 10L, money("1.00")));
+
+        buffer.flush();
+
+        verifyNoInteractions(collectionBoxRepository, donationLedgerRepository);
+    }
+
+    @Test
+    void add_NormalizesScaleOfZeroDecimalCurrencies() {
+        buffer.add(1L, 10L, new Money(5, 0));
+
+        buffer.flush();
+
+        verify(donationLedgerRepository).appendEntries(List.of(new MoneyIncrement(1L, 10L, new BigDecimal("5.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void add_CurrencyRegisteredAfterStartup_GetsItsOwnSlot() {
+        buffer.add(1L, 10L, money("1.00"));
+        buffer.flush();
+
+        when(currencyRepository.findById(30L)).thenReturn(Optional.of(currency(30L, "GBP")));
+        buffer.add(1L, 30L, money("2.00"));
+        buffer.add(1L, 10L, money("3.00"));
+        buffer.flush();
+
+        verify(donationLedgerRepository).appendEntries(List.of(
+                new MoneyIncrement(1L, 10L, new BigDecimal("3.00")),
+                new MoneyIncrement(1L, 30L, new BigDecimal("2.00"))), LedgerEntryType.DONATION);
+    }
+
+    @Test
+    void add_DetectsOverflow() {
+        buffer.add(1L, 10L, new Money(Long.MAX_VALUE, Money.DEFAULT_SCALE));
+
+        assertThrows(ArithmeticException.class, () -> buffer.add(1L, 10L, money("0.01")));
+    }
+
+    @Test
+    void disabledBuffer_IgnoresFlushes() {
+        DonationWriteBehindBuffer disabled = new DonationWriteBehindBuffer(false, 4, collectionBoxRepository,
+                donationLedgerRepository, new CurrencyRegistry(currencyRepository), new TransactionTemplate(transactionManager));
+
+        disabled.flush();
+        disabled.flushCollectionBox(1L);
+
+        assertFalse(disabled.isEnabled());
+        verifyNoInteractions(collectionBoxRepository, donationLedgerRepository);
+    }
+
+    private void rollBack(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            completeAll(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void completeAll(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private Currency currency(Long id, String code) {
+        Currency currency = new Currency();
+        currency.setId(id);
+        currency.setCode(code);
+        return currency;
+    }
+
+    private Money money(String amount) {
+        return Money.of(new BigDecimal(amount), Money.DEFAULT_SCALE);
+    }
+}
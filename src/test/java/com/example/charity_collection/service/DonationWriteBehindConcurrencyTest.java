@@ -0,0 +1,156 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.AddMoneyDto;
+import com.example.charity_collection.dto.BulkAddMoneyResponseDto;
+import com.example.charity_collection.model.CollectionBox;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "charity.donations.write-behind.enabled=true")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class DonationWriteBehindConcurrencyTest {
+
+    @Autowired
+    private CollectionBoxService collectionBoxService;
+
+    @Autowired
+    private DonationWriteBehindBuffer donationWriteBehindBuffer;
+
+    @Autowired
+    private DonationBatchService donationBatchService;
+
+    @Autowired
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Autowired
+    private DonationLedgerRepository donationLedgerRepository;
+
+    @Autowired
+    private CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+
+    @Autowired
+    private FundraisingEventRepository fundraisingEventRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private FundraisingEvent savedEvent;
+
+    @BeforeEach
+    void setUp() {
+        collectionBoxRepository.deleteAll();
+        fundraisingEventRepository.deleteAll();
+
+        Currency usdCurrency = currencyRepository.findByCode("USD").orElseThrow();
+
+        savedEvent = fundraisingEventRepository.save(FundraisingEvent.builder()
+                .name("Street Collection")
+                .accountBalance(BigDecimal.ZERO)
+                .currency(usdCurrency)
+                .build());
+
+        collectionBoxRepository.save(CollectionBox.builder()
+                .identifier("BOX001")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build());
+    }
+
+    @Test
+    void emptyTakingTheLockRightAfterAddCommits_ShouldTransferTheBufferedDonation() {
+        ExecutorService emptier = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Registered ahead of the add, so the box is emptied as soon as the add releases the row lock
+                // and before any of the add's own after-commit callbacks run
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        try {
+                            emptier.submit(() -> collectionBoxService.emptyCollectionBox("BOX001")).get(10, TimeUnit.SECONDS);
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+                collectionBoxService.addMoneyToCollectionBox(donation("1.00"));
+            });
+        } finally {
+            emptier.shutdownNow();
+        }
+
+        donationWriteBehindBuffer.flush();
+
+        CollectionBox box = collectionBoxRepository.findByIdentifier("BOX001").orElseThrow();
+        assertThat(fundraisingEventRepository.findById(savedEvent.getId()).orElseThrow().getAccountBalance())
+                .isEqualByComparingTo("1.00");
+        assertThat(box.getIsEmpty()).isTrue();
+        assertThat(collectionBoxMoneyRepository.findBalances(box.getId()))
+                .allSatisfy(balance -> assertThat(balance.amount()).isEqualByComparingTo(BigDecimal.ZERO));
+    }
+
+    @Test
+    void batchAddToNonEmptyBoxWhileUnregisterIsUncommitted_ShouldBufferNothing() throws Exception {
+        collectionBoxService.addMoneyToCollectionBox(donation("1.00"));
+        donationWriteBehindBuffer.flush();
+        CountDownLatch deleted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> unregistering = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                collectionBoxService.unregisterCollectionBox("BOX001");
+                collectionBoxRepository.flush();
+                deleted.countDown();
+                try {
+                    commit.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(deleted.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Future<BulkAddMoneyResponseDto> adding = executor.submit(() ->
+                    donationBatchService.addMoneyToCollectionBoxes(List.of(donation("2.00"))));
+            Thread.sleep(200);
+            commit.countDown();
+            unregistering.get(10, TimeUnit.SECONDS);
+
+            assertThat(adding.get(10, TimeUnit.SECONDS).getFailed()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long entries = donationLedgerRepository.count();
+        donationWriteBehindBuffer.flush();
+        assertThat(donationLedgerRepository.count()).isEqualTo(entries);
+    }
+
+    private AddMoneyDto donation(String amount) {
+        return AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX001")
+                .amount(new BigDecimal(amount))
+                .currencyCode("USD")
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.CrossRate;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateHistoryRepository;
+import com.example.charity_collection.repository.HistoricalRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExchangeRateHistoryIndexTest {
+
+    @Mock
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    private CurrencyRegistry currencyRegistry;
+    private ExchangeRateHistoryIndex exchangeRateHistoryIndex;
+
+    private Currency plnCurrency;
+    private Currency eurCurrency;
+    private Currency usdCurrency;
+
+    @BeforeEach
+    void setUp() {
+        currencyRegistry = new CurrencyRegistry(currencyRepository);
+        exchangeRateHistoryIndex = new ExchangeRateHistoryIndex(exchangeRateHistoryRepository, currencyRegistry);
+
+        plnCurrency = currency(1L, "PLN");
+        eurCurrency = currency(2L, "EUR");
+        usdCurrency = currency(3L, "USD");
+        currencyRegistry.ordinalOf(plnCurrency);
+        currencyRegistry.ordinalOf(eurCurrency);
+        currencyRegistry.ordinalOf(usdCurrency);
+
+        when(exchangeRateHistoryRepository.findAllRates()).thenReturn(List.of(
+                new HistoricalRate(2L, LocalDate.of(2025, 5, 5), new BigDecimal("4.2500")),
+                new HistoricalRate(2L, LocalDate.of(2025, 5, 7), new BigDecimal("4.3000")),
+                new HistoricalRate(2L, LocalDate.of(2025, 5, 8), new BigDecimal("4.2800")),
+                new HistoricalRate(3L, LocalDate.of(2025, 5, 7), new BigDecimal("4.0000"))));
+        exchangeRateHistoryIndex.refreshAfterCommit();
+    }
+
+    @Test
+    void rateAsOf_ReturnsRateEffectiveOnOrBeforeDate() {
+        assertEquals(new BigDecimal("4.25"), exchangeRateHistoryIndex.rateAsOf(eurCurrency, plnCurrency, LocalDate.of(2025, 5, 5)).toBigDecimal(2));
+        assertEquals(new BigDecimal("4.25"), exchangeRateHistoryIndex.rateAsOf(eurCurrency, plnCurrency, LocalDate.of(2025, 5, 6)).toBigDecimal(2));
+        assertEquals(new BigDecimal("4.30"), exchangeRateHistoryIndex.rateAsOf(eurCurrency, plnCurrency, LocalDate.of(2025, 5, 7)).toBigDecimal(2));
+        assertEquals(new BigDecimal("4.28"), exchangeRateHistoryIndex.rateAsOf(eurCurrency, plnCurrency, LocalDate.of(2026, 1, 1)).toBigDecimal(2));
+    }
+
+    @Test
+    void rateAsOf_DerivesCrossAndInverseRatesFromPlnRates() {
+        LocalDate date = LocalDate.of(2025, 5, 7);
+
+        assertEquals(new BigDecimal("1.075"), exchangeRateHistoryIndex.rateAsOf(eurCurrency, usdCurrency, date).toBigDecimal(3));
+        assertEquals(new BigDecimal("0.232558"), exchangeRateHistoryIndex.rateAsOf(plnCurrency, eurCurrency, date).toBigDecimal(6));
+        assertEquals(CrossRate.ONE, exchangeRateHistoryIndex.rateAsOf(usdCurrency, usdCurrency, date));
+    }
+
+    @Test
+    void rateAsOf_BeforeFirstRateOrForUnknownCurrency_ReturnsZero() {
+        Currency gbpCurrency = currency(4L, "GBP");
+
+        assertTrue(exchangeRateHistoryIndex.rateAsOf(usdCurrency, plnCurrency, LocalDate.of(2025, 5, 6)).isMissing());
+        assertTrue(exchangeRateHistoryIndex.rateAsOf(eurCurrency, usdCurrency, LocalDate.of(2025, 5, 5)).isMissing());
+        assertTrue(exchangeRateHistoryIndex.rateAsOf(gbpCurrency, plnCurrency, LocalDate.of(2025, 5, 8)).isMissing());
+        verify(exchangeRateHistoryRepository, times(1)).findAllRates();
+    }
+
+    private Currency currency(Long id, String code) {
+        Currency currency = new Currency();
+        currency.setId(id);
+        currency.setCode(code);
+        return currency;
+    }
+}
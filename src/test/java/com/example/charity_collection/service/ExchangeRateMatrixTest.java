@@ -0,0 +1,171 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.CrossRate;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.ExchangeRate;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateRepository;
+import com.example.charity_collection.repository.RateUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExchangeRateMatrixTest {
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    @TempDir
+    private Path snapshotDirectory;
+
+    private ExchangeRateSnapshotStore exchangeRateSnapshotStore;
+    private CurrencyRegistry currencyRegistry;
+    private ExchangeRateMatrix exchangeRateMatrix;
+
+    private Currency plnCurrency;
+    private Currency eurCurrency;
+    private Currency usdCurrency;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateSnapshotStore = new ExchangeRateSnapshotStore(snapshotDirectory.resolve("rates.snapshot").toString());
+        currencyRegistry = new CurrencyRegistry(currencyRepository);
+        exchangeRateMatrix = new ExchangeRateMatrix(exchangeRateRepository, currencyRegistry, exchangeRateSnapshotStore);
+
+        plnCurrency = currency(1L, "PLN");
+        eurCurrency = currency(2L, "EUR");
+        usdCurrency = currency(3L, "USD");
+    }
+
+    @Test
+    void refreshAfterCommit_WithoutTransaction_LoadsPlnRatesIndexedByCurrencyOrdinal() {
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(
+                rate(eurCurrency, plnCurrency, "4.2567"),
+                rate(usdCurrency, plnCurrency, "3.7895")));
+
+        exchangeRateMatrix.refreshAfterCommit();
+
+        ExchangeRateMatrix.Snapshot snapshot = exchangeRateMatrix.current();
+        int pln = currencyRegistry.ordinalOf(plnCurrency);
+        int eur = currencyRegistry.ordinalOf(eurCurrency);
+        int usd = currencyRegistry.ordinalOf(usdCurrency);
+
+        assertTrue(snapshot.version() > 0);
+        assertEquals(3, snapshot.plnRates().length);
+        assertEquals(Money.RATE_ONE, snapshot.plnRate(pln));
+        assertEquals(new BigDecimal("4.2567"), snapshot.rate(eur, pln).toBigDecimal(4));
+        assertEquals(new BigDecimal("0.234924"), snapshot.rate(pln, eur).toBigDecimal(6));
+        assertEquals(new BigDecimal("1.123288"), snapshot.rate(eur, usd).toBigDecimal(6));
+        assertEquals(new BigDecimal("0.890244"), snapshot.rate(usd, eur).toBigDecimal(6));
+        assertEquals(CrossRate.ONE, snapshot.rate(eur, eur));
+        assertTrue(snapshot.rate(eur, 5).isMissing());
+    }
+
+    @Test
+    void refreshAfterCommit_IgnoresRatesNotAgainstPln() {
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(
+                rate(eurCurrency, plnCurrency, "4.2567"),
+                rate(eurCurrency, usdCurrency, "1.5")));
+
+        exchangeRateMatrix.refreshAfterCommit();
+
+        ExchangeRateMatrix.Snapshot snapshot = exchangeRateMatrix.current();
+        assertTrue(snapshot.rate(currencyRegistry.ordinalOf(eurCurrency), currencyRegistry.ordinalOf(usdCurrency)).isMissing());
+    }
+
+    @Test
+    void refresh_WithCurrentVersion_ReloadsAndBumpsVersion() {
+        when(exchangeRateRepository.findAll()).thenReturn(List.of())
+                .thenReturn(List.of(rate(eurCurrency, plnCurrency, "4.30")));
+
+        ExchangeRateMatrix.Snapshot initial = exchangeRateMatrix.current();
+        ExchangeRateMatrix.Snapshot first = exchangeRateMatrix.refresh(initial.version());
+        ExchangeRateMatrix.Snapshot second = exchangeRateMatrix.refresh(first.version());
+
+        assertTrue(second.version() > first.version());
+        assertSame(second, exchangeRateMatrix.current());
+        assertEquals(new BigDecimal("4.30"),
+                second.rate(currencyRegistry.ordinalOf(eurCurrency), currencyRegistry.ordinalOf(plnCurrency)).toBigDecimal(2));
+    }
+
+    @Test
+    void refresh_WithOutdatedVersion_ReturnsNewerSnapshotWithoutReloading() {
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(rate(eurCurrency, plnCurrency, "4.30")));
+
+        ExchangeRateMatrix.Snapshot initial = exchangeRateMatrix.current();
+        ExchangeRateMatrix.Snapshot reloaded = exchangeRateMatrix.refresh(initial.version());
+
+        assertSame(reloaded, exchangeRateMatrix.refresh(initial.version()));
+        verify(exchangeRateRepository, times(1)).findAll();
+    }
+
+    @Test
+    void restore_AfterRestart_ServesRatesFromSnapshotWithoutQueryingRates() {
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(
+                rate(eurCurrency, plnCurrency, "4.2567"),
+                rate(usdCurrency, plnCurrency, "3.7895")));
+        exchangeRateMatrix.refreshAfterCommit();
+        long savedVersion = exchangeRateMatrix.current().version();
+
+        Currency restartedEur = currency(12L, "EUR");
+        Currency restartedPln = currency(11L, "PLN");
+        when(currencyRepository.findByCode("PLN")).thenReturn(Optional.of(restartedPln));
+        when(currencyRepository.findByCode("EUR")).thenReturn(Optional.of(restartedEur));
+        when(currencyRepository.findByCode("USD")).thenReturn(Optional.empty());
+        CurrencyRegistry restartedRegistry = new CurrencyRegistry(currencyRepository);
+        ExchangeRateMatrix restarted = new ExchangeRateMatrix(exchangeRateRepository, restartedRegistry, exchangeRateSnapshotStore);
+
+        List<RateUpdate> restoredRates = restarted.restore();
+
+        ExchangeRateMatrix.Snapshot snapshot = restarted.current();
+        assertEquals(savedVersion, snapshot.version());
+        assertEquals(new BigDecimal("4.2567"),
+                snapshot.rate(restartedRegistry.ordinalOf(restartedEur), restartedRegistry.ordinalOf(restartedPln)).toBigDecimal(4));
+        assertEquals(List.of(new RateUpdate(12L, 11L, new BigDecimal("4.2567000000"))), restoredRates);
+        verify(exchangeRateRepository, times(1)).findAll();
+    }
+
+    @Test
+    void restore_WithoutSnapshotOrAfterLoad_LeavesMatrixUnchanged() {
+        assertTrue(exchangeRateMatrix.restore().isEmpty());
+        assertEquals(0, exchangeRateMatrix.current().version());
+
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(rate(eurCurrency, plnCurrency, "4.30")));
+        exchangeRateMatrix.refreshAfterCommit();
+        ExchangeRateMatrix.Snapshot loaded = exchangeRateMatrix.current();
+
+        assertTrue(exchangeRateMatrix.restore().isEmpty());
+        assertSame(loaded, exchangeRateMatrix.current());
+    }
+
+    private ExchangeRate rate(Currency fromCurrency, Currency toCurrency, String rate) {
+        ExchangeRate exchangeRate = new ExchangeRate();
+        exchangeRate.setFromCurrency(fromCurrency);
+        exchangeRate.setToCurrency(toCurrency);
+        exchangeRate.setRate(new BigDecimal(rate));
+        return exchangeRate;
+    }
+
+    private Currency currency(Long id, String code) {
+        Currency currency = new Currency();
+        currency.setId(id);
+        currency.setCode(code);
+        return currency;
+    }
+}
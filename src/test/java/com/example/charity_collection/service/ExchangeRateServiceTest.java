@@ -0,0 +1,382 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.NbpApiDto;
+import com.example.charity_collection.model.CrossRate;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.dto.ExchangeRateDto;
+import com.example.charity_collection.dto.ExchangeRateUpdateJobDto;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.ExchangeRateHistoryRepository;
+import com.example.charity_collection.repository.ExchangeRateRepository;
+import com.example.charity_collection.repository.HistoricalRate;
+import com.example.charity_collection.repository.RateUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExchangeRateServiceTest {
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Mock
+    private ExchangeRateMatrix exchangeRateMatrix;
+
+    @Mock
+    private ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+
+    @Mock
+    private ExchangeRateHistoryIndex exchangeRateHistoryIndex;
+
+    @Mock
+    private CurrencyRegistry currencyRegistry;
+
+    @Mock
+    private PendingDonationTotals pendingDonationTotals;
+
+    @Mock
+    private ExchangeRateProvider exchangeRateProvider;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExchangeRateService exchangeRateService;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = new ExchangeRateService(currencyRepository, exchangeRateRepository, exchangeRateMatrix,
+                exchangeRateHistoryRepository, exchangeRateHistoryIndex, currencyRegistry, pendingDonationTotals, exchangeRateProvider,
+                new TransactionTemplate(transactionManager), Schedulers.immediate(), true, false);
+
+        lenient().when(currencyRepository.findAll()).thenReturn(List.of(
+                currency(1L, "EUR"), currency(2L, "USD"), currency(3L, "PLN")));
+    }
+
+    @Test
+    void updateExchangeRates_WritesOneRateAgainstPlnPerCurrency() {
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.just(table(rate("EUR", "4.2500"), rate("USD", "4.0000"))));
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of());
+
+        exchangeRateService.updateExchangeRates().block();
+
+        assertThat(upsertedRates()).containsExactly(
+                new RateUpdate(1L, 3L, new BigDecimal("4.2500000000")),
+                new RateUpdate(2L, 3L, new BigDecimal("4.0000000000")));
+        verify(currencyRepository, times(1)).findAll();
+        verify(currencyRepository, never()).findByCode(anyString());
+        verify(exchangeRateRepository, never()).findByFromCurrencyAndToCurrency(any(), any());
+        verify(exchangeRateMatrix).refreshAfterCommit();
+        verify(exchangeRateHistoryIndex).refreshAfterCommit();
+        verify(pendingDonationTotals).revalue();
+    }
+
+    @Test
+    void updateExchangeRates_RecordsPublishedRatesUnderEffectiveDate() {
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.just(table(rate("EUR", "4.2500"))));
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of(
+                new RateUpdate(2L, 3L, new BigDecimal("4.0000000000")),
+                new RateUpdate(3L, 2L, new BigDecimal("0.2500000000"))));
+
+        exchangeRateService.updateExchangeRates().block();
+
+        assertThat(recordedRates()).containsExactly(
+                new HistoricalRate(1L, LocalDate.of(2025, 5, 9), new BigDecimal("4.2500000000")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateExchangeRates_WithImportEnabled_AddsCurrenciesFromTableB() {
+        exchangeRateService = new ExchangeRateService(currencyRepository, exchangeRateRepository, exchangeRateMatrix,
+                exchangeRateHistoryRepository, exchangeRateHistoryIndex, currencyRegistry, pendingDonationTotals, exchangeRateProvider,
+                new TransactionTemplate(transactionManager), Schedulers.immediate(), true, true);
+        NbpApiDto.RateDto afn = rate("AFN", "0.0530");
+        afn.setCurrency("afgani (Afganistan)");
+        afn.setEffectiveDate("2025-05-07");
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.just(table(rate("EUR", "4.2500"), afn)));
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of());
+        when(currencyRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Currency> currencies = invocation.getArgument(0);
+            currencies.get(0).setId(4L);
+            return currencies;
+        });
+
+        exchangeRateService.updateExchangeRates().block();
+
+        ArgumentCaptor<List<Currency>> imported = ArgumentCaptor.forClass(List.class);
+        verify(currencyRepository).saveAll(imported.capture());
+        assertThat(imported.getValue()).extracting(Currency::getCode, Currency::getName)
+                .containsExactly(tuple("AFN", "afgani (Afganistan)"));
+        assertThat(upsertedRates()).containsExactly(
+                new RateUpdate(1L, 3L, new BigDecimal("4.2500000000")),
+                new RateUpdate(4L, 3L, new BigDecimal("0.0530000000")));
+        assertThat(recordedRates()).containsExactly(
+                new HistoricalRate(1L, LocalDate.of(2025, 5, 9), new BigDecimal("4.2500000000")),
+                new HistoricalRate(4L, LocalDate.of(2025, 5, 7), new BigDecimal("0.0530000000")));
+    }
+
+    @Test
+    void updateExchangeRates_WithoutEffectiveDate_SkipsHistory() {
+        NbpApiDto response = table(rate("EUR", "4.2500"));
+        response.setEffectiveDate(null);
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.just(response));
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of());
+
+        exchangeRateService.updateExchangeRates().block();
+
+        verify(exchangeRateRepository).upsertRates(anyCollection());
+        verify(exchangeRateHistoryRepository, never()).recordRates(anyCollection());
+    }
+
+    @Test
+    void getExchangeRate_ReturnsRateFromHistoryIndex() {
+        Currency eur = currency(1L, "EUR");
+        Currency pln = currency(3L, "PLN");
+        LocalDate date = LocalDate.of(2025, 5, 9);
+        when(currencyRegistry.findByCode("EUR")).thenReturn(Optional.of(eur));
+        when(currencyRegistry.findByCode("PLN")).thenReturn(Optional.of(pln));
+        when(exchangeRateHistoryIndex.rateAsOf(eur, pln, date)).thenReturn(CrossRate.of(new BigDecimal("4.25")));
+
+        ExchangeRateDto result = exchangeRateService.getExchangeRate("EUR", "PLN", date);
+
+        assertThat(result.getRate()).isEqualByComparingTo("4.25");
+        assertThat(result.getDate()).isEqualTo(date);
+    }
+
+    @Test
+    void getExchangeRate_WithoutHistory_ThrowsException() {
+        Currency eur = currency(1L, "EUR");
+        Currency pln = currency(3L, "PLN");
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        when(currencyRegistry.findByCode("EUR")).thenReturn(Optional.of(eur));
+        when(currencyRegistry.findByCode("PLN")).thenReturn(Optional.of(pln));
+        when(exchangeRateHistoryIndex.rateAsOf(eur, pln, date)).thenReturn(CrossRate.MISSING);
+
+        assertThatThrownBy(() -> exchangeRateService.getExchangeRate("EUR", "PLN", date))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Exchange rate not found for currency pair: EUR to PLN as of 2020-01-01");
+    }
+
+    @Test
+    void updateExchangeRates_WritesOnlyChangedRates() {
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.just(table(rate("EUR", "4.2500"), rate("USD", "4.1000"))));
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of(
+                new RateUpdate(1L, 3L, new BigDecimal("4.2500000000")),
+                new RateUpdate(2L, 3L, new BigDecimal("4.0000000000"))));
+
+        exchangeRateService.updateExchangeRates().block();
+
+        assertThat(upsertedRates()).containsExactly(new RateUpdate(2L, 3L, new BigDecimal("4.1000000000")));
+    }
+
+    @Test
+    void updateExchangeRates_SameTableAgain_SkipsDatabaseWork() {
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.just(table(rate("EUR", "4.2500"), rate("USD", "4.0000"))));
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of());
+
+        exchangeRateService.updateExchangeRates().block();
+        exchangeRateService.updateExchangeRates().block();
+
+        verify(exchangeRateProvider, times(2)).fetchLatestTable();
+        verify(currencyRepository, times(1)).findAll();
+        verify(exchangeRateRepository, times(1)).upsertRates(anyCollection());
+        verify(exchangeRateHistoryRepository, times(1)).recordRates(anyCollection());
+        verify(exchangeRateMatrix, times(1)).refreshAfterCommit();
+        verify(exchangeRateHistoryIndex, times(1)).refreshAfterCommit();
+    }
+
+    @Test
+    void updateExchangeRates_NewTable_AppliesAgain() {
+        NbpApiDto nextTable = table(rate("EUR", "4.2600"), rate("USD", "4.0000"));
+        nextTable.setNo("090/A/NBP/2025");
+        nextTable.setEffectiveDate("2025-05-12");
+        when(exchangeRateProvider.fetchLatestTable())
+                .thenReturn(Mono.just(table(rate("EUR", "4.2500"), rate("USD", "4.0000"))))
+                .thenReturn(Mono.just(nextTable));
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of());
+
+        exchangeRateService.updateExchangeRates().block();
+        exchangeRateService.updateExchangeRates().block();
+
+        verify(exchangeRateRepository, times(2)).upsertRates(anyCollection());
+        verify(exchangeRateMatrix, times(2)).refreshAfterCommit();
+    }
+
+    @Test
+    void updateExchangeRates_CurrencyMissingFromTable_KeepsStoredRate() {
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.just(table(rate("EUR", "4.2500"))));
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of(new RateUpdate(2L, 3L, new BigDecimal("4.0000000000"))));
+
+        exchangeRateService.updateExchangeRates().block();
+
+        assertThat(upsertedRates()).containsExactly(new RateUpdate(1L, 3L, new BigDecimal("4.2500000000")));
+    }
+
+    @Test
+    void updateExchangeRates_WhenApiFails_StillRefreshesMatrix() {
+        reset(currencyRepository);
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.error(new IllegalStateException("NBP API circuit breaker is open, skipping request")));
+
+        exchangeRateService.updateExchangeRates().block();
+
+        verify(exchangeRateRepository, never()).upsertRates(anyCollection());
+        verify(exchangeRateMatrix).refreshAfterCommit();
+    }
+
+    @Test
+    void updateExchangeRates_WhenProviderReturnsNoTable_SkipsWritesAndRefreshesMatrix() {
+        reset(currencyRepository);
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.empty());
+
+        exchangeRateService.updateExchangeRates().block();
+
+        verify(exchangeRateRepository, never()).upsertRates(anyCollection());
+        verify(exchangeRateHistoryRepository, never()).recordRates(anyCollection());
+        verify(exchangeRateMatrix).refreshAfterCommit();
+        verify(exchangeRateHistoryIndex).refreshAfterCommit();
+    }
+
+    @Test
+    void startUpdateJob_WhileRunning_JoinsInFlightRun() {
+        Sinks.One<NbpApiDto> response = Sinks.one();
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(response.asMono());
+        when(exchangeRateRepository.findAllRates()).thenReturn(List.of());
+
+        ExchangeRateUpdateJobDto first = exchangeRateService.startUpdateJob();
+        ExchangeRateUpdateJobDto second = exchangeRateService.startUpdateJob();
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getStatus()).isEqualTo("RUNNING");
+        assertThat(second.getStage()).isEqualTo("FETCHING");
+        verify(exchangeRateProvider, times(1)).fetchLatestTable();
+
+        response.tryEmitValue(table(rate("EUR", "4.2500"), rate("USD", "4.0000")));
+
+        ExchangeRateUpdateJobDto finished = exchangeRateService.getUpdateJob(first.getId());
+        assertThat(finished.getStatus()).isEqualTo("SUCCEEDED");
+        assertThat(finished.getStage()).isEqualTo("DONE");
+        assertThat(finished.getRatesChanged()).isEqualTo(2);
+        assertThat(finished.getFinishedAt()).isNotNull();
+        assertThat(finished.getError()).isNull();
+
+        assertThat(exchangeRateService.startUpdateJob().getId()).isNotEqualTo(first.getId());
+    }
+
+    @Test
+    void startUpdateJob_WhenApiFails_ReportsError() {
+        reset(currencyRepository);
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.error(new IllegalStateException("NBP API circuit breaker is open, skipping request")));
+
+        ExchangeRateUpdateJobDto job = exchangeRateService.startUpdateJob();
+
+        assertThat(job.getStatus()).isEqualTo("FAILED");
+        assertThat(job.getError()).isEqualTo("NBP API circuit breaker is open, skipping request");
+        verify(exchangeRateMatrix).refreshAfterCommit();
+    }
+
+    @Test
+    void getUpdateJob_WithUnknownId_ThrowsException() {
+        assertThatThrownBy(() -> exchangeRateService.getUpdateJob("missing"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Exchange rate update job not found: missing");
+    }
+
+    @Test
+    void updateExchangeRates_DoesNotCallProviderUntilSubscribed() {
+        reset(currencyRepository);
+
+        Mono<Void> update = exchangeRateService.updateExchangeRates();
+
+        verifyNoInteractions(exchangeRateProvider, exchangeRateRepository, exchangeRateMatrix);
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.empty());
+        update.block();
+        verify(exchangeRateProvider).fetchLatestTable();
+    }
+
+    @Test
+    void onApplicationReady_WithRestoredSnapshot_StoresRatesBeforeFetchingNewTable() {
+        reset(currencyRepository);
+        List<RateUpdate> restoredRates = List.of(new RateUpdate(1L, 3L, new BigDecimal("4.2500000000")));
+        when(exchangeRateMatrix.restore()).thenReturn(restoredRates);
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.empty());
+
+        exchangeRateService.onApplicationReady();
+
+        var inOrder = inOrder(exchangeRateRepository, exchangeRateProvider);
+        inOrder.verify(exchangeRateRepository).upsertRates(restoredRates);
+        inOrder.verify(exchangeRateProvider).fetchLatestTable();
+    }
+
+    @Test
+    void onApplicationReady_WithRestoredSnapshotAndExistingRates_KeepsStoredRates() {
+        reset(currencyRepository);
+        when(exchangeRateMatrix.restore()).thenReturn(List.of(new RateUpdate(1L, 3L, new BigDecimal("4.2500000000"))));
+        when(exchangeRateRepository.count()).thenReturn(12L);
+        when(exchangeRateProvider.fetchLatestTable()).thenReturn(Mono.empty());
+
+        exchangeRateService.onApplicationReady();
+
+        verify(exchangeRateRepository, never()).upsertRates(anyCollection());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<HistoricalRate> recordedRates() {
+        ArgumentCaptor<Collection<HistoricalRate>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(exchangeRateHistoryRepository).recordRates(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RateUpdate> upsertedRates() {
+        ArgumentCaptor<Collection<RateUpdate>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(exchangeRateRepository).upsertRates(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private NbpApiDto table(NbpApiDto.RateDto... rates) {
+        NbpApiDto table = new NbpApiDto();
+        table.setTable("A");
+        table.setNo("089/A/NBP/2025");
+        table.setEffectiveDate("2025-05-09");
+        table.setRates(List.of(rates));
+        return table;
+    }
+
+    private NbpApiDto.RateDto rate(String code, String mid) {
+        NbpApiDto.RateDto rate = new NbpApiDto.RateDto();
+        rate.setCode(code);
+        rate.setMid(mid);
+        return rate;
+    }
+
+    private Currency currency(Long id, String code) {
+        Currency currency = new Currency();
+        currency.setId(id);
+        currency.setCode(code);
+        return currency;
+    }
+}
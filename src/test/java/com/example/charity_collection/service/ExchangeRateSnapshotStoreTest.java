@@ -0,0 +1,51 @@
+package com.example.charity_collection.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExchangeRateSnapshotStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void write_ThenRead_ReturnsSameRates() {
+        ExchangeRateSnapshotStore store = new ExchangeRateSnapshotStore(directory.resolve("nested/rates.snapshot").toString());
+        long[] plnRates = {1_000_000, 4_256_700};
+
+        store.write(42L, new String[]{"PLN", "EUR"}, plnRates);
+        store.write(43L, new String[]{"PLN", "EUR"}, plnRates);
+
+        ExchangeRateSnapshotStore.StoredRates stored = store.read().orElseThrow();
+        assertEquals(43L, stored.version());
+        assertArrayEquals(new String[]{"PLN", "EUR"}, stored.codes());
+        assertArrayEquals(plnRates, stored.plnRates());
+    }
+
+    @Test
+    void read_WithMissingOrForeignFile_ReturnsEmpty() throws IOException {
+        Path file = directory.resolve("rates.snapshot");
+        ExchangeRateSnapshotStore store = new ExchangeRateSnapshotStore(file.toString());
+
+        assertTrue(store.read().isEmpty());
+
+        Files.writeString(file, "not a snapshot");
+        assertTrue(store.read().isEmpty());
+    }
+
+    @Test
+    void blankPath_DisablesStore() {
+        ExchangeRateSnapshotStore store = new ExchangeRateSnapshotStore("");
+
+        store.write(1L, new String[]{"PLN"}, new long[1]);
+
+        assertFalse(store.isEnabled());
+        assertTrue(store.read().isEmpty());
+    }
+}
@@ -3,7 +3,6 @@ package com.example.charity_collection.service;
 import com.example.charity_collection.dto.FundraisingEventDto;
 import com.example.charity_collection.model.Currency;
 import com.example.charity_collection.model.FundraisingEvent;
-import com.example.charity_collection.repository.CurrencyRepository;
 import com.example.charity_collection.repository.FundraisingEventRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,7 +26,7 @@ public class FundraisingEventServiceTest {
     private FundraisingEventRepository fundraisingEventRepository;
 
     @Mock
-    private CurrencyRepository currencyRepository;
+    private CurrencyRegistry currencyRegistry;
 
     @InjectMocks
     private FundraisingEventService fundraisingEventService;
@@ -67,7 +66,7 @@ public class FundraisingEventServiceTest {
 
     @Test
     void createFundraisingEvent_Success() {
-        when(currencyRepository.findByCode(fundraisingEventDto.getCurrencyCode())).thenReturn(Optional.of(currency));
+        when(currencyRegistry.findByCode(fundraisingEventDto.getCurrencyCode())).thenReturn(Optional.of(currency));
         when(fundraisingEventRepository.save(any(FundraisingEvent.class))).thenReturn(fundraisingEvent);
 
         FundraisingEventDto result = fundraisingEventService.createFundraisingEvent(fundraisingEventDto);
@@ -81,7 +80,7 @@ public class FundraisingEventServiceTest {
         assertEquals(fundraisingEvent.getCurrency().getCode(), result.getCurrencyCode());
         assertEquals(fundraisingEvent.getAccountBalance(), result.getAccountBalance());
 
-        verify(currencyRepository).findByCode(fundraisingEventDto.getCurrencyCode());
+        verify(currencyRegistry).findByCode(fundraisingEventDto.getCurrencyCode());
         verify(fundraisingEventRepository).save(any(FundraisingEvent.class));
     }
 
@@ -98,7 +97,7 @@ public class FundraisingEventServiceTest {
         });
 
         assertEquals("Start date must be before end date", exception.getMessage());
-        verify(currencyRepository, never()).findByCode(anyString());
+        verify(currencyRegistry, never()).findByCode(anyString());
         verify(fundraisingEventRepository, never()).save(any(FundraisingEvent.class));
     }
 
@@ -114,7 +113,7 @@ public class FundraisingEventServiceTest {
         });
 
         assertEquals("Start date must be before end date", exception.getMessage());
-        verify(currencyRepository, never()).findByCode(anyString());
+        verify(currencyRegistry, never()).findByCode(anyString());
         verify(fundraisingEventRepository, never()).save(any(FundraisingEvent.class));
     }
 
@@ -122,20 +121,20 @@ public class FundraisingEventServiceTest {
     void createFundraisingEvent_CurrencyNotSupported() {
         fundraisingEventDto.setCurrencyCode("XYZ");
 
-        when(currencyRepository.findByCode(fundraisingEventDto.getCurrencyCode())).thenReturn(Optional.empty());
+        when(currencyRegistry.findByCode(fundraisingEventDto.getCurrencyCode())).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             fundraisingEventService.createFundraisingEvent(fundraisingEventDto);
         });
 
         assertEquals("Currency not supported: XYZ", exception.getMessage());
-        verify(currencyRepository).findByCode(fundraisingEventDto.getCurrencyCode());
+        verify(currencyRegistry).findByCode(fundraisingEventDto.getCurrencyCode());
         verify(fundraisingEventRepository, never()).save(any(FundraisingEvent.class));
     }
 
     @Test
     void createFundraisingEvent_AccountBalanceInitializedToZero() {
-        when(currencyRepository.findByCode(fundraisingEventDto.getCurrencyCode())).thenReturn(Optional.of(currency));
+        when(currencyRegistry.findByCode(fundraisingEventDto.getCurrencyCode())).thenReturn(Optional.of(currency));
         when(fundraisingEventRepository.save(any(FundraisingEvent.class))).thenReturn(fundraisingEvent);
 
         FundraisingEventDto result = fundraisingEventService.createFundraisingEvent(fundraisingEventDto);
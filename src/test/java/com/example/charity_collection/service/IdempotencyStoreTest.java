@@ -0,0 +1,196 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.MessageResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+
+    private MutableClock clock;
+    private IdempotencyStore idempotencyStore;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        idempotencyStore = new IdempotencyStore(Duration.ofMinutes(10), 4, 1, clock);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void execute_ReplayedKey_ReturnsStoredResponseWithoutRunningAction() {
+        MessageResponseDto first = idempotencyStore.execute("add", "key-1", "payload", this::countingAction);
+        MessageResponseDto replay = idempotencyStore.execute("add", "key-1", "payload", this::countingAction);
+
+        assertSame(first, replay);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_WithoutKey_AlwaysRunsAction() {
+        idempotencyStore.execute("add", null, "payload", this::countingAction);
+        idempotencyStore.execute("add", null, "payload", this::countingAction);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_SameKeyInDifferentScopes_RunsBothActions() {
+        idempotencyStore.execute("add", "key-1", "payload", this::countingAction);
+        idempotencyStore.execute("empty", "key-1", "payload", this::countingAction);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_KeyReusedForDifferentRequest_ThrowsException() {
+        idempotencyStore.execute("add", "key-1", "payload", this::countingAction);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> idempotencyStore.execute("add", "key-1", "other payload", this::countingAction));
+
+        assertEquals("Idempotency-Key key-1 was already used for a different request", exception.getMessage());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_InvalidKey_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyStore.execute("add", " ", "payload", this::countingAction));
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyStore.execute("add", "k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1), "payload", this::countingAction));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void execute_FailedAction_IsNotStored() {
+        assertThrows(IllegalArgumentException.class, () -> idempotencyStore.execute("add", "key-1", "payload", () -> {
+            throw new IllegalArgumentException("Collection box not found with identifier: BOX123");
+        }));
+
+        idempotencyStore.execute("add", "key-1", "payload", this::countingAction);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_ExpiredKey_RunsActionAgain() {
+        idempotencyStore.execute("add", "key-1", "payload", this::countingAction);
+
+        clock.advance(Duration.ofMinutes(11));
+        idempotencyStore.execute("add", "key-1", "payload", this::countingAction);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_MoreKeysThanCapacity_EvictsOldestKeys() {
+        for (int i = 0; i < 5; i++) {
+            idempotencyStore.execute("add", "key-" + i, "payload", this::countingAction);
+        }
+
+        idempotencyStore.execute("add", "key-4", "payload", this::countingAction);
+        assertEquals(5, calls.get());
+
+        idempotencyStore.execute("add", "key-0", "payload", this::countingAction);
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    void execute_MoreKeysThanCapacity_KeepsKeysInProgress() {
+        MessageResponseDto result = idempotencyStore.execute("add", "key-0", "payload", () -> {
+            for (int i = 1; i <= 5; i++) {
+                idempotencyStore.execute("add", "key-" + i, "payload", this::countingAction);
+            }
+            assertThrows(IllegalArgumentException.class,
+                    () -> idempotencyStore.execute("add", "key-0", "other payload", this::countingAction));
+            return countingAction();
+        });
+
+        assertEquals("call 6", result.getMessage());
+        assertSame(result, idempotencyStore.execute("add", "key-0", "payload", this::countingAction));
+    }
+
+    @Test
+    void execute_EveryKeyInProgress_RejectsNewKeys() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> nestedInProgress(0));
+
+        assertEquals("Too many requests with an Idempotency-Key are in progress, retry later", exception.getMessage());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void execute_ConcurrentRetries_RunActionOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<MessageResponseDto> first = executor.submit(() -> idempotencyStore.execute("add", "key-1", "payload", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return countingAction();
+            }));
+            started.await();
+
+            Future<MessageResponseDto> retry = executor.submit(() ->
+                    idempotencyStore.execute("add", "key-1", "payload", this::countingAction));
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), retry.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MessageResponseDto nestedInProgress(int depth) {
+        return idempotencyStore.execute("add", "key-" + depth, "payload", () -> nestedInProgress(depth + 1));
+    }
+
+    private MessageResponseDto countingAction() {
+        return new MessageResponseDto("call " + calls.incrementAndGet());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.AddMoneyDto;
+import com.example.charity_collection.model.CollectionBox;
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "charity.ledger.snapshot.min-entries=2")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class LedgerSnapshotServiceTest {
+
+    @Autowired
+    private LedgerSnapshotService ledgerSnapshotService;
+
+    @Autowired
+    private CollectionBoxService collectionBoxService;
+
+    @Autowired
+    private CollectionBoxRepository collectionBoxRepository;
+
+    @Autowired
+    private CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+
+    @Autowired
+    private DonationLedgerRepository donationLedgerRepository;
+
+    @Autowired
+    private FundraisingEventRepository fundraisingEventRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    private Currency usdCurrency;
+    private CollectionBox savedBox;
+
+    @BeforeEach
+    void setUp() {
+        usdCurrency = currencyRepository.findByCode("USD").orElseThrow();
+
+        FundraisingEvent savedEvent = fundraisingEventRepository.save(FundraisingEvent.builder()
+                .name("Street Collection")
+                .accountBalance(BigDecimal.ZERO)
+                .currency(usdCurrency)
+                .build());
+
+        savedBox = collectionBoxRepository.save(CollectionBox.builder()
+                .identifier("BOX001")
+                .isEmpty(true)
+                .fundraisingEvent(savedEvent)
+                .build());
+    }
+
+    @Test
+    void snapshotCollectionBoxes_FoldsLedgerTailIntoSnapshot() {
+        addUsd("10.00");
+        addUsd("2.50");
+
+        ledgerSnapshotService.snapshotCollectionBoxes();
+
+        CollectionBox snapshotted = collectionBoxRepository.findById(savedBox.getId()).orElseThrow();
+        assertThat(snapshotted.getSnapshotEntryId()).isPositive();
+        assertThat(collectionBoxMoneyRepository.findAll())
+                .extracting(money -> money.getCurrency().getCode() + " " + money.getAmount())
+                .containsExactly("USD 12.50");
+        assertThat(donationLedgerRepository.findByCollectionBoxIdOrderById(savedBox.getId())).hasSize(2);
+
+        addUsd("1.00");
+
+        assertThat(collectionBoxMoneyRepository.findBalances(savedBox.getId()))
+                .containsExactly(new CurrencyBalance(usdCurrency.getId(), new BigDecimal("13.50")));
+    }
+
+    @Test
+    void snapshotCollectionBoxes_SkipsBoxesWithShortTail() {
+        addUsd("10.00");
+
+        ledgerSnapshotService.snapshotCollectionBoxes();
+
+        assertThat(collectionBoxRepository.findById(savedBox.getId()).orElseThrow().getSnapshotEntryId()).isZero();
+        assertThat(collectionBoxMoneyRepository.findAll()).isEmpty();
+        assertThat(collectionBoxMoneyRepository.findBalances(savedBox.getId()))
+                .containsExactly(new CurrencyBalance(usdCurrency.getId(), new BigDecimal("10.00")));
+    }
+
+    @Test
+    void emptyCollectionBox_SettlesAndSnapshotsBox() {
+        addUsd("10.00");
+        addUsd("5.00");
+
+        collectionBoxService.emptyCollectionBox("BOX001");
+
+        assertThat(collectionBoxMoneyRepository.findBalances(savedBox.getId())).isEmpty();
+        assertThat(collectionBoxMoneyRepository.findAll()).isEmpty();
+        assertThat(donationLedgerRepository.findByCollectionBoxIdOrderById(savedBox.getId()))
+                .extracting(entry -> entry.getEntryType() + " " + entry.getAmount())
+                .containsExactly("DONATION 10.00", "DONATION 5.00", "SETTLEMENT -15.00");
+        assertThat(donationLedgerRepository.findCollectionBoxIdsWithUnsnapshottedEntries(1)).isEmpty();
+    }
+
+    private void addUsd(String amount) {
+        collectionBoxService.addMoneyToCollectionBox(AddMoneyDto.builder()
+                .collectionBoxIdentifier("BOX001")
+                .amount(new BigDecimal(amount))
+                .currencyCode("USD")
+                .build());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.dto.NbpApiDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NbpExchangeRateProviderTest {
+
+    private static final String TABLE_JSON = "[{\"table\":\"A\",\"no\":\"089/A/NBP/2025\",\"effectiveDate\":\"2025-05-09\"," +
+            "\"rates\":[{\"currency\":\"euro\",\"code\":\"EUR\",\"mid\":4.2567}]}]";
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> requestedUrls = new ArrayList<>();
+
+    @Test
+    void fetchLatestTable_RetriesTransientFailuresAndReturnsFirstTable() {
+        NbpExchangeRateProvider provider = provider(responses(
+                error(HttpStatus.SERVICE_UNAVAILABLE), error(HttpStatus.BAD_GATEWAY), ok(TABLE_JSON)),
+                new CircuitBreaker(5, Duration.ofMinutes(5)));
+
+        NbpApiDto table = provider.fetchLatestTable().block();
+
+        assertEquals("089/A/NBP/2025", table.getNo());
+        assertEquals("4.2567", table.getRates().get(0).getMid());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void fetchLatestTable_ClientError_FailsWithoutRetry() {
+        NbpExchangeRateProvider provider = provider(responses(error(HttpStatus.NOT_FOUND), ok(TABLE_JSON)),
+                new CircuitBreaker(5, Duration.ofMinutes(5)));
+
+        assertThrows(WebClientResponseException.NotFound.class, () -> provider.fetchLatestTable().block());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void fetchLatestTable_SlowResponse_TimesOutAfterBoundedRetries() {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.incrementAndGet();
+                    return Mono.never();
+                })
+                .build();
+        NbpExchangeRateProvider provider = new NbpExchangeRateProvider(webClient, "http://nbp.test/tables/{table}",
+                List.of("A"), Duration.ofMillis(50), 2, Duration.ofMillis(1), new CircuitBreaker(5, Duration.ofMinutes(5)), Set.of());
+
+        Exception exception = assertThrows(Exception.class, () -> provider.fetchLatestTable().block());
+
+        assertInstanceOf(TimeoutException.class, exception.getCause());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void fetchLatestTable_OpenCircuit_SkipsRequest() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMinutes(5));
+        NbpExchangeRateProvider provider = provider(responses(
+                error(HttpStatus.SERVICE_UNAVAILABLE), error(HttpStatus.SERVICE_UNAVAILABLE), error(HttpStatus.SERVICE_UNAVAILABLE),
+                error(HttpStatus.SERVICE_UNAVAILABLE), ok(TABLE_JSON)), circuitBreaker);
+
+        assertThrows(WebClientResponseException.ServiceUnavailable.class, () -> provider.fetchLatestTable().block());
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> provider.fetchLatestTable().block());
+
+        assertEquals("NBP API circuit breaker is open, skipping request", exception.getMessage());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void fetchLatestTable_EmptyResponse_CompletesEmpty() {
+        NbpExchangeRateProvider provider = provider(responses(ok("[]")), new CircuitBreaker(5, Duration.ofMinutes(5)));
+
+        assertNull(provider.fetchLatestTable().block());
+    }
+
+    @Test
+    void fetchLatestTable_KeepsOnlyConfiguredCurrencies() {
+        String json = "[{\"table\":\"A\",\"no\":\"089/A/NBP/2025\",\"effectiveDate\":\"2025-05-09\",\"extra\":{\"nested\":[1,2]}," +
+                "\"rates\":[{\"currency\":\"bat (Tajlandia)\",\"code\":\"THB\",\"mid\":0.1148}," +
+                "{\"currency\":\"dolar amerykański\",\"code\":\"USD\",\"mid\":3.78950}," +
+                "{\"currency\":\"euro\",\"code\":\"EUR\",\"mid\":4.2567,\"flags\":[]}]}]";
+        NbpExchangeRateProvider provider = provider(responses(ok(json)), new CircuitBreaker(5, Duration.ofMinutes(5)), Set.of("EUR", "USD"));
+
+        NbpApiDto table = provider.fetchLatestTable().block();
+
+        assertEquals("A", table.getTable());
+        assertEquals("2025-05-09", table.getEffectiveDate());
+        assertEquals(List.of("USD 3.78950", "EUR 4.2567"), table.getRates().stream()
+                .map(rate -> rate.getCode() + " " + rate.getMid())
+                .toList());
+    }
+
+    @Test
+    void fetchLatestTable_MergesTablesAAndB() {
+        String tableB = "[{\"table\":\"B\",\"no\":\"019/B/NBP/2025\",\"effectiveDate\":\"2025-05-07\"," +
+                "\"rates\":[{\"currency\":\"afgani (Afganistan)\",\"code\":\"AFN\",\"mid\":0.053}," +
+                "{\"currency\":\"euro\",\"code\":\"EUR\",\"mid\":4.3}]}]";
+        NbpExchangeRateProvider provider = provider(responses(ok(TABLE_JSON), ok(tableB)),
+                new CircuitBreaker(5, Duration.ofMinutes(5)), Set.of(), List.of("A", "B"));
+
+        NbpApiDto table = provider.fetchLatestTable().block();
+
+        assertEquals(List.of("http://nbp.test/tables/A", "http://nbp.test/tables/B"), requestedUrls);
+        assertEquals("A,B", table.getTable());
+        assertEquals("089/A/NBP/2025,019/B/NBP/2025", table.getNo());
+        assertEquals("2025-05-09", table.getEffectiveDate());
+        assertEquals(List.of("EUR 4.2567 2025-05-09", "AFN 0.053 2025-05-07"), table.getRates().stream()
+                .map(rate -> rate.getCode() + " " + rate.getMid() + " " + rate.getEffectiveDate())
+                .toList());
+    }
+
+    private NbpExchangeRateProvider provider(Queue<ClientResponse> responses, CircuitBreaker circuitBreaker) {
+        return provider(responses, circuitBreaker, Set.of());
+    }
+
+    private NbpExchangeRateProvider provider(Queue<ClientResponse> responses, CircuitBreaker circuitBreaker, Set<String> currencyCodes) {
+        return provider(responses, circuitBreaker, currencyCodes, List.of("A"));
+    }
+
+    private NbpExchangeRateProvider provider(Queue<ClientResponse> responses, CircuitBreaker circuitBreaker,
+                                             Set<String> currencyCodes, List<String> tables) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.incrementAndGet();
+                    requestedUrls.add(request.url().toString());
+                    return Mono.just(responses.remove());
+                })
+                .build();
+        return new NbpExchangeRateProvider(webClient, "http://nbp.test/tables/{table}", tables, Duration.ofSeconds(5), 3,
+                Duration.ofMillis(1), circuitBreaker, currencyCodes);
+    }
+
+    private Queue<ClientResponse> responses(ClientResponse... responses) {
+        return new ArrayDeque<>(List.of(responses));
+    }
+
+    private ClientResponse ok(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    private ClientResponse error(HttpStatus status) {
+        return ClientResponse.create(status).build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.charity_collection.service;
+
+import com.example.charity_collection.model.Currency;
+import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.model.Money;
+import com.example.charity_collection.repository.CollectionBoxMoneyRepository;
+import com.example.charity_collection.repository.CurrencyBalance;
+import com.example.charity_collection.repository.CurrencyRepository;
+import com.example.charity_collection.repository.EventCurrencyBalance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PendingDonationTotalsTest {
+
+    @Mock
+    private CollectionBoxMoneyRepository collectionBoxMoneyRepository;
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    @Mock
+    private ExchangeRateMatrix exchangeRateMatrix;
+
+    private PendingDonationTotals pendingDonationTotals;
+
+    private Currency plnCurrency;
+    private Currency eurCurrency;
+    private Currency usdCurrency;
+    private FundraisingEvent plnEvent;
+    private FundraisingEvent eurEvent;
+    private ExchangeRateMatrix.Snapshot ratesWithoutUsd;
+
+    @BeforeEach
+    void setUp() {
+        CurrencyRegistry currencyRegistry = new CurrencyRegistry(currencyRepository);
+        plnCurrency = currency(1L, "PLN");
+        eurCurrency = currency(2L, "EUR");
+        usdCurrency = currency(3L, "USD");
+        currencyRegistry.ordinalOf(plnCurrency);
+        currencyRegistry.ordinalOf(eurCurrency);
+        currencyRegistry.ordinalOf(usdCurrency);
+
+        plnEvent = FundraisingEvent.builder().id(10L).name("Charity One").currency(plnCurrency).build();
+        eurEvent = FundraisingEvent.builder().id(20L).name("Charity Two").currency(eurCurrency).build();
+
+        ratesWithoutUsd = new ExchangeRateMatrix.Snapshot(1L, new long[]{Money.RATE_ONE, Money.rateUnits(new BigDecimal("4.25")), 0});
+        when(exchangeRateMatrix.current()).thenReturn(ratesWithoutUsd);
+        pendingDonationTotals = new PendingDonationTotals(collectionBoxMoneyRepository, currencyRegistry, exchangeRateMatrix);
+
+        when(collectionBoxMoneyRepository.findPendingBalancesByEvent()).thenReturn(List.of(
+                new EventCurrencyBalance(10L, 1L, 2L, new BigDecimal("100.00")),
+                new EventCurrencyBalance(10L, 1L, 1L, new BigDecimal("50.00")),
+                new EventCurrencyBalance(20L, 2L, 1L, new BigDecimal("100.00"))));
+        pendingDonationTotals.afterSingletonsInstantiated();
+    }
+
+    @Test
+    void pendingTotal_ConvertsLoadedAggregatesIntoEventCurrency() {
+        assertEquals(new Money(47_500, 2), pendingDonationTotals.pendingTotal(plnEvent).amount());
+        assertEquals(new Money(2_353, 2), pendingDonationTotals.pendingTotal(eurEvent).amount());
+
+        FundraisingEvent otherEvent = FundraisingEvent.builder().id(30L).currency(eurCurrency).build();
+        assertEquals(Money.zero(2), pendingDonationTotals.pendingTotal(otherEvent).amount());
+    }
+
+    @Test
+    void addAndRemove_UpdateOnlyTheAffectedCurrency() {
+        pendingDonationTotals.add(plnEvent.getId(), 0, 1, Money.of(new BigDecimal("10.00"), "EUR"));
+        assertEquals(new Money(51_750, 2), pendingDonationTotals.pendingTotal(plnEvent).amount());
+
+        pendingDonationTotals.remove(plnEvent, List.of(
+                new CurrencyBalance(2L, new BigDecimal("110.00")),
+                new CurrencyBalance(1L, new BigDecimal("20.00"))));
+        assertEquals(new Money(3_000, 2), pendingDonationTotals.pendingTotal(plnEvent).amount());
+    }
+
+    @Test
+    void revalue_RecomputesFromAggregatesWhenRatesChange() {
+        pendingDonationTotals.add(plnEvent.getId(), 0, 2, Money.of(new BigDecimal("20.00"), "USD"));
+
+        PendingDonationTotals.PendingTotal withoutUsdRate = pendingDonationTotals.pendingTotal(plnEvent);
+        assertEquals(new Money(47_500, 2), withoutUsdRate.amount());
+        assertEquals(List.of("USD"), withoutUsdRate.unconvertedCurrencies());
+
+        when(exchangeRateMatrix.current()).thenReturn(
+                new ExchangeRateMatrix.Snapshot(2L, new long[]{Money.RATE_ONE, Money.rateUnits(new BigDecimal("4.3")), Money.rateUnits(new BigDecimal("4.0"))}));
+        pendingDonationTotals.revalue();
+
+        PendingDonationTotals.PendingTotal revalued = pendingDonationTotals.pendingTotal(plnEvent);
+        assertEquals(new Money(56_000, 2), revalued.amount());
+        assertTrue(revalued.unconvertedCurrencies().isEmpty());
+        assertEquals(new Money(2_326, 2), pendingDonationTotals.pendingTotal(eurEvent).amount());
+        verify(collectionBoxMoneyRepository, times(1)).findPendingBalancesByEvent();
+    }
+
+    private Currency currency(Long id, String code) {
+        Currency currency = new Currency();
+        currency.setId(id);
+        currency.setCode(code);
+        return currency;
+    }
+}
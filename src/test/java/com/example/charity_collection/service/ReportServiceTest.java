@@ -1,8 +1,10 @@
 package com.example.charity_collection.service;
 
 import com.example.charity_collection.dto.FinancialReportDto;
+import com.example.charity_collection.dto.PendingFundsReportDto;
 import com.example.charity_collection.model.Currency;
 import com.example.charity_collection.model.FundraisingEvent;
+import com.example.charity_collection.model.Money;
 import com.example.charity_collection.repository.FundraisingEventRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,6 +28,9 @@ public class ReportServiceTest {
     @Mock
     private FundraisingEventRepository fundraisingEventRepository;
 
+    @Mock
+    private PendingDonationTotals pendingDonationTotals;
+
     @InjectMocks
     private ReportService reportService;
 
@@ -114,4 +119,24 @@ public class ReportServiceTest {
         verify(fundraisingEventRepository).findAll();
     }
 
-}
\ No newline at end of file
+    @Test
+    void generatePendingFundsReport_ReturnsMaintainedTotalPerEvent() {
+        when(fundraisingEventRepository.findAll()).thenReturn(Arrays.asList(event1, event2));
+        when(pendingDonationTotals.pendingTotal(event1)).thenReturn(
+                new PendingDonationTotals.PendingTotal(new Money(12_345, 2), List.of()));
+        when(pendingDonationTotals.pendingTotal(event2)).thenReturn(
+                new PendingDonationTotals.PendingTotal(Money.zero(2), List.of("GBP")));
+
+        List<PendingFundsReportDto> report = reportService.generatePendingFundsReport();
+
+        assertEquals(2, report.size());
+        assertEquals("Charity One", report.get(0).getEventName());
+        assertEquals(new BigDecimal("123.45"), report.get(0).getAmount());
+        assertEquals("PLN", report.get(0).getCurrency());
+        assertTrue(report.get(0).getUnconvertedCurrencies().isEmpty());
+
+        assertEquals(new BigDecimal("0.00"), report.get(1).getAmount());
+        assertEquals("EUR", report.get(1).getCurrency());
+        assertEquals(List.of("GBP"), report.get(1).getUnconvertedCurrencies());
+    }
+}